@@ -8,6 +8,7 @@ import org.springframework.cloud.client.circuitbreaker.EnableCircuitBreaker;
 //import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.cloud.netflix.hystrix.dashboard.EnableHystrixDashboard;
 import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
 
 import com.eatza.restaurantsearch.config.JwtFilter;
 
@@ -28,7 +29,8 @@ public class RestaurantsearchserviceApplication {
 	public FilterRegistrationBean jwtFilter() {
 		final FilterRegistrationBean registrationBean = new FilterRegistrationBean();
 		registrationBean.setFilter(new JwtFilter());
-		registrationBean.addUrlPatterns("/restaurant/*", "/restaurants/*","/item/");
+		registrationBean.addUrlPatterns("/restaurant/*", "/restaurants/*","/item/","/writes/*");
+		registrationBean.setOrder(Ordered.LOWEST_PRECEDENCE - 2);
 
 		return registrationBean;
 	}
@@ -0,0 +1,190 @@
+package com.eatza.restaurantsearch.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Warms the service caches on start by replaying the queries that were most
+ * popular before the last shutdown, with bounded parallelism, and reports
+ * out of service until that is done. While running it periodically writes
+ * the current top queries from {@link PopularQueryRecorder} to a local file.
+ */
+@Component
+public class CacheWarmup implements ApplicationRunner, HealthIndicator {
+
+	private static final Logger logger = LoggerFactory.getLogger(CacheWarmup.class);
+
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private PopularQueryRecorder popularQueryRecorder;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${search.warmup.enabled:true}")
+	private boolean enabled;
+
+	@Value("${search.warmup.file:popular-queries.json}")
+	private String file;
+
+	@Value("${search.warmup.top:200}")
+	private int top;
+
+	@Value("${search.warmup.parallelism:4}")
+	private int parallelism;
+
+	@Value("${search.warmup.timeout-ms:30000}")
+	private long timeoutMillis;
+
+	@Value("${search.warmup.persist-interval-ms:60000}")
+	private long persistIntervalMillis;
+
+	private volatile boolean warming = true;
+
+	private ScheduledExecutorService persister;
+
+	@Override
+	public void run(ApplicationArguments args) {
+		if (!enabled) {
+			warming = false;
+			return;
+		}
+		try {
+			replay(load());
+		} finally {
+			warming = false;
+		}
+		persister = Executors.newSingleThreadScheduledExecutor(daemon("popular-query-persister"));
+		persister.scheduleWithFixedDelay(this::persist, persistIntervalMillis, persistIntervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public Health health() {
+		return warming ? Health.outOfService().withDetail("warmup", "replaying popular queries").build() : Health.up().build();
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (persister != null) {
+			persister.shutdownNow();
+			persist();
+		}
+	}
+
+	List<PopularQuery> load() {
+		File source = new File(file);
+		if (!source.isFile()) {
+			logger.debug("No popular queries recorded at {}, starting cold", source);
+			return Collections.emptyList();
+		}
+		try {
+			return objectMapper.readValue(source, new TypeReference<List<PopularQuery>>() {});
+		} catch (IOException e) {
+			logger.warn("Could not read popular queries from {}, starting cold", source, e);
+			return Collections.emptyList();
+		}
+	}
+
+	void replay(List<PopularQuery> queries) {
+		if (queries.isEmpty()) {
+			return;
+		}
+		logger.debug("Replaying {} popular queries with {} threads", queries.size(), parallelism);
+		ExecutorService executor = Executors.newFixedThreadPool(parallelism, daemon("cache-warmup"));
+		for (PopularQuery query : queries) {
+			executor.execute(() -> replay(query));
+		}
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+				logger.warn("Cache warm-up did not finish in {} ms, continuing with a partly warm cache", timeoutMillis);
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	// Called through the bean, so the result lands in its cache like any other call
+	private void replay(PopularQuery query) {
+		try {
+			Class<?> type = Class.forName(query.getType());
+			Object bean = applicationContext.getBean(type);
+			List<Object> args = query.getArgs() != null ? query.getArgs() : Collections.emptyList();
+			for (Method method : type.getMethods()) {
+				if (method.getName().equals(query.getMethod()) && method.getParameterCount() == args.size()
+						&& AnnotationUtils.findAnnotation(method, Cacheable.class) != null) {
+					method.invoke(bean, convert(args, method.getParameterTypes()));
+					return;
+				}
+			}
+			logger.debug("No method {} on {} to replay", query.getMethod(), query.getType());
+		} catch (InvocationTargetException e) {
+			logger.debug("Replaying {}.{} failed", query.getType(), query.getMethod(), e.getCause());
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			logger.debug("Could not replay {}.{}", query.getType(), query.getMethod(), e);
+		}
+	}
+
+	private Object[] convert(List<Object> args, Class<?>[] types) {
+		Object[] converted = new Object[types.length];
+		for (int i = 0; i < types.length; i++) {
+			converted[i] = objectMapper.convertValue(args.get(i), types[i]);
+		}
+		return converted;
+	}
+
+	void persist() {
+		try {
+			Path target = new File(file).getAbsoluteFile().toPath();
+			Path temp = Files.createTempFile(target.getParent(), "popular-queries", ".tmp");
+			objectMapper.writeValue(temp.toFile(), popularQueryRecorder.top(top));
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			popularQueryRecorder.decay();
+		} catch (IOException | RuntimeException e) {
+			logger.warn("Could not write popular queries to {}", file, e);
+		}
+	}
+
+	private static ThreadFactory daemon(String name) {
+		return runnable -> {
+			Thread thread = new Thread(runnable, name);
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+}
@@ -0,0 +1,26 @@
+package com.eatza.restaurantsearch.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Counter bumped on every write to restaurants, menus or menu items, and
+ * when the search index finishes a rebuild. Search caches fold it into their
+ * keys, so a write makes every earlier entry unreachable at once and
+ * eviction reclaims them later.
+ */
+@Component
+public class CatalogVersion {
+
+	private final AtomicLong version = new AtomicLong();
+
+	public long current() {
+		return version.get();
+	}
+
+	public long bump() {
+		return version.incrementAndGet();
+	}
+
+}
@@ -0,0 +1,30 @@
+package com.eatza.restaurantsearch.cache;
+
+import java.lang.reflect.Method;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.interceptor.KeyGenerator;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keys made of the current {@link CatalogVersion} followed by the method
+ * params, for caches whose results change when any restaurant or item is added.
+ */
+@Component(CatalogVersionKeyGenerator.NAME)
+public class CatalogVersionKeyGenerator implements KeyGenerator {
+
+	public static final String NAME = "catalogVersionKeyGenerator";
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Override
+	public Object generate(Object target, Method method, Object... params) {
+		Object[] elements = new Object[params.length + 1];
+		elements[0] = catalogVersion.current();
+		System.arraycopy(params, 0, elements, 1, params.length);
+		return new SimpleKey(elements);
+	}
+
+}
@@ -0,0 +1,46 @@
+package com.eatza.restaurantsearch.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.stereotype.Component;
+
+/**
+ * Short-lived record of lookups that found nothing. Lookups that miss throw
+ * instead of returning, so {@code @Cacheable} never stores them; this keeps
+ * them apart under the current {@link CatalogVersion}, so any write makes an
+ * earlier miss worth retrying.
+ */
+@Component
+public class NegativeCache {
+
+	public static final String NAME = "notfound";
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	public boolean isKnownMiss(String lookup, Object... params) {
+		return cache().get(key(lookup, params)) != null;
+	}
+
+	public void recordMiss(String lookup, Object... params) {
+		cache().put(key(lookup, params), Boolean.TRUE);
+	}
+
+	private Cache cache() {
+		return cacheManager.getCache(NAME);
+	}
+
+	private Object key(String lookup, Object... params) {
+		Object[] elements = new Object[params.length + 2];
+		elements[0] = catalogVersion.current();
+		elements[1] = lookup;
+		System.arraycopy(params, 0, elements, 2, params.length);
+		return new SimpleKey(elements);
+	}
+
+}
@@ -0,0 +1,29 @@
+package com.eatza.restaurantsearch.cache;
+
+import java.util.List;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A call to a cached service method, recorded by bean type, method name and
+ * args so it can be made again on the next start.
+ */
+@Getter @Setter @NoArgsConstructor @EqualsAndHashCode
+public class PopularQuery {
+
+	private String type;
+	private String method;
+	private List<Object> args;
+
+
+	public PopularQuery(String type, String method, List<Object> args) {
+		super();
+		this.type = type;
+		this.method = method;
+		this.args = args;
+	}
+
+}
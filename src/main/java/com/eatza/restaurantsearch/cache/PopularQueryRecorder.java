@@ -0,0 +1,86 @@
+package com.eatza.restaurantsearch.cache;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts successful calls to {@code @Cacheable} service methods whose args
+ * are plain values, so {@link CacheWarmup} can replay the most frequent ones
+ * after a restart. Runs outside the caching interceptor, so cache hits count.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class PopularQueryRecorder {
+
+	@Value("${search.warmup.max-tracked:10000}")
+	private int maxTracked = 10000;
+
+	private final Map<PopularQuery, LongAdder> counts = new ConcurrentHashMap<>();
+
+	@Around("@annotation(org.springframework.cache.annotation.Cacheable) && within(com.eatza.restaurantsearch.service..*)")
+	public Object recordCall(ProceedingJoinPoint joinPoint) throws Throwable {
+		Object result = joinPoint.proceed();
+		MethodSignature signature = (MethodSignature) joinPoint.getSignature();
+		record(signature.getDeclaringType().getName(), signature.getName(), joinPoint.getArgs());
+		return result;
+	}
+
+	public void record(String type, String method, Object[] args) {
+		for (Object arg : args) {
+			if (!isPlainValue(arg)) {
+				return;
+			}
+		}
+		PopularQuery query = new PopularQuery(type, method, Arrays.asList(args));
+		LongAdder count = counts.get(query);
+		if (count == null) {
+			if (counts.size() >= maxTracked) {
+				return;
+			}
+			count = counts.computeIfAbsent(query, key -> new LongAdder());
+		}
+		count.increment();
+	}
+
+	public List<PopularQuery> top(int limit) {
+		List<Map.Entry<PopularQuery, Long>> snapshot = new ArrayList<>(counts.size());
+		counts.forEach((query, count) -> snapshot.add(new AbstractMap.SimpleImmutableEntry<>(query, count.sum())));
+		snapshot.sort(Map.Entry.<PopularQuery, Long>comparingByValue(Comparator.reverseOrder()));
+		List<PopularQuery> top = new ArrayList<>(Math.min(limit, snapshot.size()));
+		for (int i = 0; i < snapshot.size() && i < limit; i++) {
+			top.add(snapshot.get(i).getKey());
+		}
+		return top;
+	}
+
+	// Halves every count, so queries that stopped arriving give way to new ones
+	public void decay() {
+		counts.entrySet().removeIf(entry -> {
+			LongAdder count = entry.getValue();
+			long half = count.sumThenReset() / 2;
+			count.add(half);
+			return half == 0;
+		});
+	}
+
+	private static boolean isPlainValue(Object arg) {
+		return arg == null || arg instanceof String || arg instanceof Number || arg instanceof Boolean || arg instanceof Enum;
+	}
+
+}
@@ -0,0 +1,44 @@
+package com.eatza.restaurantsearch.config;
+
+import java.util.Collections;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Caffeine backed caches, bounded in size and age. Each cache takes its spec
+ * from {@code cache.specs.<name>}, falling back to {@code cache.default-spec}
+ * for caches without one, in the format of
+ * {@link com.github.benmanes.caffeine.cache.CaffeineSpec}.
+ */
+@Configuration
+public class CacheConfiguration {
+
+	@Bean
+	public CacheManager cacheManager(@Value("${cache.default-spec:maximumSize=1000,expireAfterWrite=10m}") String defaultSpec,
+			Environment environment) {
+		Map<String, String> specs = Binder.get(environment)
+				.bind("cache.specs", Bindable.mapOf(String.class, String.class))
+				.orElse(Collections.emptyMap());
+		CaffeineCacheManager cacheManager = new CaffeineCacheManager() {
+			@Override
+			protected Cache<Object, Object> createNativeCaffeineCache(String name) {
+				String spec = specs.get(name);
+				return spec != null ? Caffeine.from(spec).build() : super.createNativeCaffeineCache(name);
+			}
+		};
+		cacheManager.setCacheSpecification(defaultSpec);
+		return cacheManager;
+	}
+
+}
@@ -0,0 +1,130 @@
+package com.eatza.restaurantsearch.config;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+
+/**
+ * Conditional GET on the read endpoints. Their responses only change when
+ * the {@link CatalogVersion} does, so the ETag is that version, prefixed
+ * with a per-start epoch since the version restarts from zero. A matching
+ * {@code If-None-Match} is answered with 304 before the request reaches
+ * any controller or service. The search index bumps the version when its
+ * startup build completes, so the empty answers given before then carry a tag
+ * that stops matching. NDJSON streams are left untagged, so a tag is only
+ * ever shared by the JSON body and its gzip variant.
+ */
+public class CatalogEtagFilter extends OncePerRequestFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(CatalogEtagFilter.class);
+
+	private static final String GZIP_SUFFIX = "-gzip";
+
+	private final CatalogVersion catalogVersion;
+	private final String epoch;
+
+	public CatalogEtagFilter(CatalogVersion catalogVersion) {
+		this(catalogVersion, Long.toString(System.currentTimeMillis(), 36));
+	}
+
+	CatalogEtagFilter(CatalogVersion catalogVersion, String epoch) {
+		this.catalogVersion = catalogVersion;
+		this.epoch = epoch;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"GET".equals(request.getMethod()) || ResponseBodyCacheFilter.acceptsStream(request);
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String tag = epoch + '-' + catalogVersion.current();
+		String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+		String matched = ifNoneMatch != null ? matching(ifNoneMatch, tag) : null;
+		if (matched != null) {
+			logger.debug("Catalog unchanged since {}, answering 304 for {}", matched, request.getRequestURI());
+			response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+			response.setHeader(HttpHeaders.ETAG, matched);
+			return;
+		}
+		chain.doFilter(request, new EtagResponseWrapper(response, tag));
+	}
+
+	// Weak comparison, as If-None-Match calls for; the gzip variant of a body shares its version
+	private static String matching(String ifNoneMatch, String tag) {
+		for (String candidate : ifNoneMatch.split(",")) {
+			String value = candidate.trim();
+			if (value.startsWith("W/")) {
+				value = value.substring(2);
+			}
+			if (value.equals("\"" + tag + "\"") || value.equals("\"" + tag + GZIP_SUFFIX + "\"")) {
+				return value;
+			}
+		}
+		return null;
+	}
+
+	// Tags the response once its status is settled, just before the body is written, and again if it is then gzipped
+	private static final class EtagResponseWrapper extends HttpServletResponseWrapper {
+
+		private final String tag;
+		private boolean tagged;
+
+		EtagResponseWrapper(HttpServletResponse response, String tag) {
+			super(response);
+			this.tag = tag;
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			tag();
+			return super.getOutputStream();
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			tag();
+			return super.getWriter();
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			tag();
+			super.flushBuffer();
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			super.setHeader(name, value);
+			if (tagged && HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)) {
+				tag();
+			}
+		}
+
+		private void tag() {
+			if (isCommitted() || getStatus() != HttpServletResponse.SC_OK || (!tagged && getHeader(HttpHeaders.ETAG) != null)) {
+				return;
+			}
+			tagged = true;
+			boolean gzipped = "gzip".equalsIgnoreCase(getHeader(HttpHeaders.CONTENT_ENCODING));
+			super.setHeader(HttpHeaders.ETAG, '"' + tag + (gzipped ? GZIP_SUFFIX : "") + '"');
+		}
+
+	}
+
+}
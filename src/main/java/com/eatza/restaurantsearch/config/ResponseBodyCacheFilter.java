@@ -0,0 +1,144 @@
+package com.eatza.restaurantsearch.config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.interceptor.SimpleKey;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+
+/**
+ * Keeps the encoded JSON of successful GET responses, keyed by the current
+ * {@link CatalogVersion}, path and query string. A hit is written to the
+ * response as stored bytes, gzipped when the client accepts it, without
+ * calling the controller or serializing anything. {@link CatalogEtagFilter}
+ * tags both with the catalog version. Requests for NDJSON are passed through
+ * untouched, since those bodies are streamed after the controller returns.
+ */
+public class ResponseBodyCacheFilter extends OncePerRequestFilter {
+
+	private static final Logger logger = LoggerFactory.getLogger(ResponseBodyCacheFilter.class);
+
+	private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+	private final Cache cache;
+	private final CatalogVersion catalogVersion;
+	private final int gzipMinBytes;
+
+	public ResponseBodyCacheFilter(Cache cache, CatalogVersion catalogVersion, int gzipMinBytes) {
+		this.cache = cache;
+		this.catalogVersion = catalogVersion;
+		this.gzipMinBytes = gzipMinBytes;
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) {
+		return !"GET".equals(request.getMethod()) || acceptsStream(request);
+	}
+
+	// Wrapping a streamed body would buffer all of it, and it is written on an async thread after this filter returns
+	static boolean acceptsStream(HttpServletRequest request) {
+		String accept = request.getHeader(HttpHeaders.ACCEPT);
+		if (accept == null) {
+			return false;
+		}
+		try {
+			for (MediaType mediaType : MediaType.parseMediaTypes(accept)) {
+				if (NDJSON.equalsTypeAndSubtype(mediaType)) {
+					return true;
+				}
+			}
+		} catch (InvalidMediaTypeException e) {
+			logger.debug("Unparseable Accept header {}", accept);
+		}
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		// Read before the controller runs, so a body built during a write lands under the old version
+		Object key = new SimpleKey(catalogVersion.current(), request.getRequestURI(), request.getQueryString());
+		CachedBody cached = cache.get(key, CachedBody.class);
+		if (cached != null) {
+			logger.debug("Response body cache hit for {}", request.getRequestURI());
+			write(cached, request, response);
+			return;
+		}
+		ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+		chain.doFilter(request, wrapper);
+		if (wrapper.getStatus() != HttpServletResponse.SC_OK || !isJson(wrapper.getContentType()) || request.isAsyncStarted()) {
+			wrapper.copyBodyToResponse();
+			return;
+		}
+		CachedBody body = new CachedBody(wrapper.getContentType(), wrapper.getContentAsByteArray(), gzipMinBytes);
+		cache.put(key, body);
+		wrapper.resetBuffer();
+		write(body, request, response);
+	}
+
+	private static void write(CachedBody body, HttpServletRequest request, HttpServletResponse response) throws IOException {
+		byte[] bytes = body.plain;
+		if (body.gzipped != null) {
+			response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			if (acceptsGzip(request)) {
+				response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+				bytes = body.gzipped;
+			}
+		}
+		response.setStatus(HttpServletResponse.SC_OK);
+		response.setContentType(body.contentType);
+		response.setContentLength(bytes.length);
+		response.getOutputStream().write(bytes);
+	}
+
+	private static boolean isJson(String contentType) {
+		try {
+			return contentType != null && MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private static boolean acceptsGzip(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+		return acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+	}
+
+	static final class CachedBody {
+
+		final String contentType;
+		final byte[] plain;
+		final byte[] gzipped;
+
+		CachedBody(String contentType, byte[] plain, int gzipMinBytes) throws IOException {
+			this.contentType = contentType;
+			this.plain = plain;
+			this.gzipped = plain.length >= gzipMinBytes ? gzip(plain) : null;
+		}
+
+		private static byte[] gzip(byte[] bytes) throws IOException {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+			try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+				gzip.write(bytes);
+			}
+			return out.toByteArray();
+		}
+
+	}
+
+}
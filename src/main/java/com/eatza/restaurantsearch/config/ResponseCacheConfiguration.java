@@ -0,0 +1,45 @@
+package com.eatza.restaurantsearch.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+
+/**
+ * Registers {@link CatalogEtagFilter} and then {@link ResponseBodyCacheFilter}
+ * on the read endpoints, both after {@link JwtFilter} so only authorized
+ * requests are answered from them.
+ */
+@Configuration
+public class ResponseCacheConfiguration {
+
+	public static final String CACHE_NAME = "responsebodies";
+
+	private static final String[] URL_PATTERNS = { "/restaurant/*", "/restaurants/*", "/item/*" };
+
+	@Bean
+	public FilterRegistrationBean<CatalogEtagFilter> catalogEtagFilter(CatalogVersion catalogVersion) {
+		FilterRegistrationBean<CatalogEtagFilter> registrationBean = new FilterRegistrationBean<>(
+				new CatalogEtagFilter(catalogVersion));
+		registrationBean.addUrlPatterns(URL_PATTERNS);
+		registrationBean.setOrder(Ordered.LOWEST_PRECEDENCE - 1);
+		return registrationBean;
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "search.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+	public FilterRegistrationBean<ResponseBodyCacheFilter> responseBodyCacheFilter(CacheManager cacheManager,
+			CatalogVersion catalogVersion, @Value("${search.response-cache.gzip-min-bytes:1024}") int gzipMinBytes) {
+		FilterRegistrationBean<ResponseBodyCacheFilter> registrationBean = new FilterRegistrationBean<>(
+				new ResponseBodyCacheFilter(cacheManager.getCache(CACHE_NAME), catalogVersion, gzipMinBytes));
+		registrationBean.addUrlPatterns(URL_PATTERNS);
+		registrationBean.setOrder(Ordered.LOWEST_PRECEDENCE);
+		return registrationBean;
+	}
+
+}
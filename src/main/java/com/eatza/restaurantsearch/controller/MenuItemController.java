@@ -1,12 +1,21 @@
 package com.eatza.restaurantsearch.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -16,11 +25,16 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.eatza.restaurantsearch.dto.ItemImportFormat;
+import com.eatza.restaurantsearch.dto.ItemImportResponseDto;
 import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.WriteStatusDto;
 import com.eatza.restaurantsearch.exception.ItemNotFoundException;
-import com.eatza.restaurantsearch.model.MenuItem;
 import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.service.importservice.ItemImportService;
 import com.eatza.restaurantsearch.service.menuitemservice.MenuItemService;
+import com.eatza.restaurantsearch.service.writebehindservice.WriteBehindService;
 
 @RestController
 public class MenuItemController {
@@ -28,6 +42,12 @@ public class MenuItemController {
 
 	@Autowired
 	MenuItemService menuItemService;
+	@Autowired
+	ItemImportService itemImportService;
+	@Autowired
+	WriteBehindService writeBehindService;
+	private static final String NDJSON = "application/x-ndjson";
+	private static final String CSV = "text/csv";
 	private static final Logger logger = LoggerFactory.getLogger(MenuItemController.class);
 
 	
@@ -43,19 +63,49 @@ public class MenuItemController {
 
 	}
 
+	// Queues the write and answers straight away; the outcome is read back from /writes/{id}
+	@PostMapping(value = "/item", params = "async=true")
+	public ResponseEntity<WriteStatusDto> addItemsToRestaurantMenuAsync(@RequestHeader String authorization,@RequestBody ItemRequestDto itemRequestDto){
+
+		logger.debug("In addItemsToRestaurantMenuAsync method, queueing the write");
+		WriteStatusDto queued = writeBehindService.submitMenuItem(itemRequestDto);
+		return ResponseEntity
+				.status(HttpStatus.ACCEPTED)
+				.location(URI.create("/writes/" + queued.getId()))
+				.body(queued);
+
+	}
+
+	// Reads one item per line, so the upload is never held in memory; failed lines are listed in the response
+	@PostMapping(value = "/restaurants/items/bulk", consumes = { NDJSON, CSV })
+	public ResponseEntity<ItemImportResponseDto> importItems(@RequestHeader String authorization, @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) throws IOException{
+
+		logger.debug("In importItems method, calling service");
+		MediaType mediaType = MediaType.parseMediaType(contentType);
+		Charset charset = mediaType.getCharset() != null ? mediaType.getCharset() : StandardCharsets.UTF_8;
+		ItemImportFormat format = mediaType.isCompatibleWith(MediaType.parseMediaType(CSV)) ? ItemImportFormat.CSV : ItemImportFormat.NDJSON;
+		ItemImportResponseDto imported = itemImportService.importItems(new BufferedReader(new InputStreamReader(body, charset)), format);
+		logger.debug("Items imported, returning back");
+		return ResponseEntity
+				.status(HttpStatus.OK)
+				.body(imported);
+
+	}
+
 	@GetMapping("/restaurant/item/name/{name}")
-	public ResponseEntity<List<Restaurant>> getRestaurantsContainingItem(@RequestHeader String authorization,@PathVariable String name, @RequestParam(defaultValue="1") int pagenumber,@RequestParam(defaultValue="10") int pagesize) throws  ItemNotFoundException{
+	public ResponseEntity<List<Restaurant>> getRestaurantsContainingItem(@RequestHeader String authorization,@PathVariable String name, @RequestParam(defaultValue="1") int pagenumber,@RequestParam(defaultValue="10") int pagesize, @RequestParam(defaultValue="false") boolean fuzzy) throws  ItemNotFoundException{
 		logger.debug("In getRestaurantsContainingItem method, calling service");
 		return ResponseEntity
 				.status(HttpStatus.OK)
-				.body(menuItemService.findByName(name, pagenumber, pagesize));
+				.body(fuzzy ? menuItemService.findByNameFuzzy(name, pagenumber, pagesize)
+						: menuItemService.findByName(name, pagenumber, pagesize));
 
 	}
 
 	@GetMapping("/item/id/{id}")
-	public ResponseEntity<MenuItem> getItemById( @PathVariable Long id) throws ItemNotFoundException{
+	public ResponseEntity<MenuItemDto> getItemById( @PathVariable Long id) throws ItemNotFoundException{
 		logger.debug("In getItemById method, calling service");
-		Optional<MenuItem> item = menuItemService.findById(id);
+		Optional<MenuItemDto> item = menuItemService.findDtoById(id);
 		if(item.isPresent()) {
 			logger.debug("## got the item:{}",id);
 
@@ -1,8 +1,14 @@
 package com.eatza.restaurantsearch.controller;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 import com.eatza.restaurantsearch.model.Restaurant;
 import com.netflix.hystrix.Hystrix;
@@ -15,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -23,13 +30,27 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import com.eatza.restaurantsearch.dto.BulkImportResponseDto;
+import com.eatza.restaurantsearch.dto.BulkRestaurantDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.RestaurantDetailDto;
 import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
 import com.eatza.restaurantsearch.dto.RestaurantResponseDto;
+import com.eatza.restaurantsearch.dto.TotalsMode;
+import com.eatza.restaurantsearch.dto.WriteStatusDto;
 import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
 import com.eatza.restaurantsearch.exception.RestaurantNotFoundException;
 import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.service.importservice.RestaurantImportService;
 import com.eatza.restaurantsearch.service.restaurantservice.RestaurantService;
+import com.eatza.restaurantsearch.service.restaurantstreamservice.RestaurantStreamService;
+import com.eatza.restaurantsearch.service.writebehindservice.WriteBehindService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 
 
 @RestController
@@ -38,21 +59,44 @@ public class RestaurantController {
     @Autowired
     private RestaurantService restaurantService;
 
+    @Autowired
+    private RestaurantImportService restaurantImportService;
+
+    @Autowired
+    private WriteBehindService writeBehindService;
+
+    @Autowired
+    private RestaurantStreamService restaurantStreamService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
     private static final Logger logger = LoggerFactory.getLogger(RestaurantController.class);
 
     private static final String RESTAURANT_BAD_REQUEST_MSG = "Page number or Page size cannot be 0 or less";
     private static final String RESTAURANT_NOT_FOUND_MSG = "No Restaurants found for specified inputs";
+    private static final String FUZZY_CURSOR_MSG = "Cursor paging is not supported for fuzzy search";
+    private static final String FUZZY_STREAM_MSG = "Fuzzy search is not available as a stream";
+    private static final String NDJSON = "application/x-ndjson";
 
     /*@HystrixCommand(fallbackMethod = "fallBackRestaurant",commandKey = "getAllRestaurants",groupKey = "getAllRestaurants")*/
     @GetMapping("/restaurants")
-    public ResponseEntity<RestaurantResponseDto> getAllRestaurants(@RequestHeader String authorization, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+    public ResponseEntity<RestaurantResponseDto> getAllRestaurants(@RequestHeader String authorization, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "exact") String totals) {
         logger.debug("In getall restaurants method");
         if (pagenumber <= 0 || pagesize <= 0) {
             logger.debug("Page number or size cannot be zero or less, throwing exception");
             throw new RestaurantBadRequestException(RESTAURANT_BAD_REQUEST_MSG);
         }
+        TotalsMode totalsMode = TotalsMode.from(totals);
         logger.debug("calling service to get restaurants with pagination");
-        RestaurantResponseDto responseDto = restaurantService.findAllRestaurants(pagenumber, pagesize);
+        RestaurantResponseDto responseDto;
+        if (cursor != null) {
+            responseDto = restaurantService.findAllRestaurantsAfter(cursor, pagesize);
+        } else if (totalsMode == TotalsMode.EXACT) {
+            responseDto = restaurantService.findAllRestaurants(pagenumber, pagesize);
+        } else {
+            responseDto = restaurantService.findAllRestaurants(pagenumber, pagesize, totalsMode);
+        }
         if (responseDto.getRestaurants().isEmpty()) {
             logger.debug("No restaurants were found");
             throw new RestaurantNotFoundException(RESTAURANT_NOT_FOUND_MSG);
@@ -64,6 +108,71 @@ public class RestaurantController {
 
 
     }
+
+    // NDJSON variants of the listings: every match, unpaged, written one line per restaurant as rows are read.
+    // Only chosen when NDJSON is asked for by name, so */* still gets the JSON page
+    @GetMapping(value = "/restaurants", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllRestaurants(@RequestHeader String authorization) {
+        logger.debug("In stream all restaurants method");
+        return ndjson(restaurantStreamService::streamAll);
+    }
+
+    @GetMapping(value = "/restaurants/name/{name}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamRestaurantsByName(@RequestHeader String authorization, @PathVariable String name, @RequestParam(defaultValue = "false") boolean fuzzy) {
+        logger.debug("In stream restaurants by name method");
+        if (fuzzy) {
+            throw new RestaurantBadRequestException(FUZZY_STREAM_MSG);
+        }
+        return ndjson(action -> restaurantStreamService.streamByName(name, action));
+    }
+
+    @GetMapping(value = "/restaurants/location/{location}/cuisine/{cuisine}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamRestaurantsByLocationCuisine(@RequestHeader String authorization, @PathVariable String location, @PathVariable String cuisine, @RequestParam(defaultValue = "false") boolean fuzzy) {
+        logger.debug("In stream restaurants by location and cuisine method");
+        if (fuzzy) {
+            throw new RestaurantBadRequestException(FUZZY_STREAM_MSG);
+        }
+        return ndjson(action -> restaurantStreamService.streamByLocationAndCuisine(location, cuisine, action));
+    }
+
+    @GetMapping(value = "/restaurants/name/{name}/location/{location}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamRestaurantsByLocationName(@RequestHeader String authorization, @PathVariable String location, @PathVariable String name, @RequestParam(defaultValue = "false") boolean fuzzy) {
+        logger.debug("In stream restaurants by location and name method");
+        if (fuzzy) {
+            throw new RestaurantBadRequestException(FUZZY_STREAM_MSG);
+        }
+        return ndjson(action -> restaurantStreamService.streamByLocationAndName(location, name, action));
+    }
+
+    @GetMapping(value = "/restaurants/budget/{budget}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamRestaurantsByBudget(@RequestHeader String authorization, @PathVariable int budget) {
+        logger.debug("In stream restaurants by budget method");
+        return ndjson(action -> restaurantStreamService.streamByBudget(budget, action));
+    }
+
+    @GetMapping(value = "/restaurants/rating/{rating}", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamRestaurantsByRating(@RequestHeader String authorization, @PathVariable double rating) {
+        logger.debug("In stream restaurants by rating method");
+        return ndjson(action -> restaurantStreamService.streamByRating(rating, action));
+    }
+
+    // The body is written on an async thread after the handler returns, so an empty result is an empty 200, not a 404
+    private ResponseEntity<StreamingResponseBody> ndjson(Function<Consumer<Restaurant>, Long> query) {
+        ObjectWriter writer = objectMapper.writerFor(Restaurant.class);
+        StreamingResponseBody body = out -> query.apply(restaurant -> {
+            try {
+                out.write(writer.writeValueAsBytes(restaurant));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
 /*    public ResponseEntity<RestaurantResponseDto> fallBackRestaurant(){
   *//*      List<Restaurant> resturants = Arrays.asList(new Restaurant("Resturant1", "Location1", "Chinese", 400, 4.0)
                 , new Restaurant("Resturant2", "Location2", "Indian", 200, 4.3)
@@ -92,6 +201,49 @@ public class RestaurantController {
 
     }
 
+    // Queues the write and answers straight away; the outcome is read back from /writes/{id}
+    @PostMapping(value = "/restaurant", params = "async=true")
+    public ResponseEntity<WriteStatusDto> addRestaurantAsync(@RequestHeader String authorization, @RequestBody RestaurantRequestDto restaurantDto) {
+
+        logger.debug("In add restaurant async method, queueing the write");
+
+        WriteStatusDto queued = writeBehindService.submitRestaurant(restaurantDto);
+        return ResponseEntity
+                .status(HttpStatus.ACCEPTED)
+                .location(URI.create("/writes/" + queued.getId()))
+                .body(queued);
+
+    }
+
+    @GetMapping("/writes/{id}")
+    public ResponseEntity<WriteStatusDto> getWriteStatus(@RequestHeader String authorization, @PathVariable String id) {
+
+        logger.debug("In get write status method, calling service");
+
+        return writeBehindService.getStatus(id)
+                .map(status -> ResponseEntity.status(HttpStatus.OK).body(status))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND).build());
+
+    }
+
+    // Reads a JSON array or newline-delimited JSON one restaurant at a time, so the body is never held in memory
+    @PostMapping(value = "/restaurants/bulk", consumes = { MediaType.APPLICATION_JSON_VALUE, NDJSON })
+    public ResponseEntity<BulkImportResponseDto> importRestaurants(@RequestHeader String authorization, InputStream body) throws IOException {
+
+        logger.debug("In import restaurants method, calling service");
+
+        try (MappingIterator<BulkRestaurantDto> restaurants = objectMapper.readerFor(BulkRestaurantDto.class).readValues(body)) {
+            BulkImportResponseDto imported = restaurantImportService.importRestaurants(restaurants);
+            logger.debug("Restaurants imported, returning back");
+            return ResponseEntity
+                    .status(HttpStatus.OK)
+                    .body(imported);
+        } catch (JsonProcessingException e) {
+            throw new RestaurantBadRequestException("Could not read restaurants to import");
+        }
+
+    }
+
     /// for hystrix
     @HystrixCommand(fallbackMethod = "fallBackHello", commandKey = "Hello", groupKey = "Hello")
     @GetMapping("/hello")
@@ -145,14 +297,28 @@ public class RestaurantController {
 /////
 
     @GetMapping("/restaurants/name/{name}")
-    public ResponseEntity<RestaurantResponseDto> getRestaurantsByName(@RequestHeader String authorization, @PathVariable String name, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+    public ResponseEntity<RestaurantResponseDto> getRestaurantsByName(@RequestHeader String authorization, @PathVariable String name, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize, @RequestParam(defaultValue = "false") boolean fuzzy, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "exact") String totals) {
         logger.debug("In get restaurants by name method");
         if (pagenumber <= 0 || pagesize <= 0) {
             logger.debug("Page number or size cannot be zero or less, throwing exception");
 
             throw new RestaurantBadRequestException(RESTAURANT_BAD_REQUEST_MSG);
         }
-        RestaurantResponseDto responseDto = restaurantService.findByName(name, pagenumber, pagesize);
+        if (fuzzy && cursor != null) {
+            logger.debug("Fuzzy search has no stable sort key to seek on, throwing exception");
+            throw new RestaurantBadRequestException(FUZZY_CURSOR_MSG);
+        }
+        TotalsMode totalsMode = TotalsMode.from(totals);
+        RestaurantResponseDto responseDto;
+        if (fuzzy) {
+            responseDto = restaurantService.findByNameFuzzy(name, pagenumber, pagesize);
+        } else if (cursor != null) {
+            responseDto = restaurantService.findByNameAfter(name, cursor, pagesize);
+        } else if (totalsMode != TotalsMode.EXACT) {
+            responseDto = restaurantService.findByName(name, pagenumber, pagesize, totalsMode);
+        } else {
+            responseDto = restaurantService.findByName(name, pagenumber, pagesize);
+        }
         if (responseDto.getRestaurants().isEmpty()) {
             logger.debug("No restaurants were found");
 
@@ -165,13 +331,27 @@ public class RestaurantController {
     }
 
     @GetMapping("/restaurants/location/{location}/cuisine/{cuisine}")
-    public ResponseEntity<RestaurantResponseDto> getRestaurantsByLocationCuisine(@RequestHeader String authorization, @PathVariable String location, @PathVariable String cuisine, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+    public ResponseEntity<RestaurantResponseDto> getRestaurantsByLocationCuisine(@RequestHeader String authorization, @PathVariable String location, @PathVariable String cuisine, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize, @RequestParam(defaultValue = "false") boolean fuzzy, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "exact") String totals) {
         logger.debug("In get restaurants by location and cuisine method");
         if (pagenumber <= 0 || pagesize <= 0) {
             logger.debug("Page number or size cannot be zero or less, throwing exception");
             throw new RestaurantBadRequestException(RESTAURANT_BAD_REQUEST_MSG);
         }
-        RestaurantResponseDto responseDto = restaurantService.findByLocationAndCuisine(location, cuisine, pagenumber, pagesize);
+        if (fuzzy && cursor != null) {
+            logger.debug("Fuzzy search has no stable sort key to seek on, throwing exception");
+            throw new RestaurantBadRequestException(FUZZY_CURSOR_MSG);
+        }
+        TotalsMode totalsMode = TotalsMode.from(totals);
+        RestaurantResponseDto responseDto;
+        if (fuzzy) {
+            responseDto = restaurantService.findByLocationAndCuisineFuzzy(location, cuisine, pagenumber, pagesize);
+        } else if (cursor != null) {
+            responseDto = restaurantService.findByLocationAndCuisineAfter(location, cuisine, cursor, pagesize);
+        } else if (totalsMode != TotalsMode.EXACT) {
+            responseDto = restaurantService.findByLocationAndCuisine(location, cuisine, pagenumber, pagesize, totalsMode);
+        } else {
+            responseDto = restaurantService.findByLocationAndCuisine(location, cuisine, pagenumber, pagesize);
+        }
         if (responseDto.getRestaurants().isEmpty()) {
             logger.debug("No restaurants were found");
             throw new RestaurantNotFoundException(RESTAURANT_NOT_FOUND_MSG);
@@ -183,14 +363,28 @@ public class RestaurantController {
     }
 
     @GetMapping("/restaurants/name/{name}/location/{location}")
-    public ResponseEntity<RestaurantResponseDto> getRestaurantsByLocationName(@RequestHeader String authorization, @PathVariable String location, @PathVariable String name, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+    public ResponseEntity<RestaurantResponseDto> getRestaurantsByLocationName(@RequestHeader String authorization, @PathVariable String location, @PathVariable String name, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize, @RequestParam(defaultValue = "false") boolean fuzzy, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "exact") String totals) {
         logger.debug("In get restaurants by location and cuisine method");
 
         if (pagenumber <= 0 || pagesize <= 0) {
             logger.debug("Page number or size cannot be zero or less, throwing exception");
             throw new RestaurantBadRequestException(RESTAURANT_BAD_REQUEST_MSG);
         }
-        RestaurantResponseDto responseDto = restaurantService.findByLocationAndName(location, name, pagenumber, pagesize);
+        if (fuzzy && cursor != null) {
+            logger.debug("Fuzzy search has no stable sort key to seek on, throwing exception");
+            throw new RestaurantBadRequestException(FUZZY_CURSOR_MSG);
+        }
+        TotalsMode totalsMode = TotalsMode.from(totals);
+        RestaurantResponseDto responseDto;
+        if (fuzzy) {
+            responseDto = restaurantService.findByLocationAndNameFuzzy(location, name, pagenumber, pagesize);
+        } else if (cursor != null) {
+            responseDto = restaurantService.findByLocationAndNameAfter(location, name, cursor, pagesize);
+        } else if (totalsMode != TotalsMode.EXACT) {
+            responseDto = restaurantService.findByLocationAndName(location, name, pagenumber, pagesize, totalsMode);
+        } else {
+            responseDto = restaurantService.findByLocationAndName(location, name, pagenumber, pagesize);
+        }
         if (responseDto.getRestaurants().isEmpty()) {
             logger.debug("No restaurants were found");
             throw new RestaurantNotFoundException(RESTAURANT_NOT_FOUND_MSG);
@@ -202,14 +396,22 @@ public class RestaurantController {
     }
 
     @GetMapping("/restaurants/budget/{budget}")
-    public ResponseEntity<RestaurantResponseDto> getRestaurantsByBudget(@RequestHeader String authorization, @PathVariable int budget, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+    public ResponseEntity<RestaurantResponseDto> getRestaurantsByBudget(@RequestHeader String authorization, @PathVariable int budget, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "exact") String totals) {
         logger.debug("In get restaurants by budget method");
 
         if (pagenumber <= 0 || pagesize <= 0) {
             logger.debug("Page number or size cannot be zero or less, throwing exception");
             throw new RestaurantBadRequestException(RESTAURANT_BAD_REQUEST_MSG);
         }
-        RestaurantResponseDto responseDto = restaurantService.findByBudget(budget, pagenumber, pagesize);
+        TotalsMode totalsMode = TotalsMode.from(totals);
+        RestaurantResponseDto responseDto;
+        if (cursor != null) {
+            responseDto = restaurantService.findByBudgetAfter(budget, cursor, pagesize);
+        } else if (totalsMode == TotalsMode.EXACT) {
+            responseDto = restaurantService.findByBudget(budget, pagenumber, pagesize);
+        } else {
+            responseDto = restaurantService.findByBudget(budget, pagenumber, pagesize, totalsMode);
+        }
         if (responseDto.getRestaurants().isEmpty()) {
             logger.debug("No restaurants were found");
             throw new RestaurantNotFoundException(RESTAURANT_NOT_FOUND_MSG);
@@ -221,14 +423,22 @@ public class RestaurantController {
     }
 
     @GetMapping("/restaurants/rating/{rating}")
-    public ResponseEntity<RestaurantResponseDto> getRestaurantsByRating(@RequestHeader String authorization, @PathVariable double rating, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+    public ResponseEntity<RestaurantResponseDto> getRestaurantsByRating(@RequestHeader String authorization, @PathVariable double rating, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "exact") String totals) {
         logger.debug("In get restaurants by rating method");
 
         if (pagenumber <= 0 || pagesize <= 0) {
             logger.debug("Page number or size cannot be zero or less, throwing exception");
             throw new RestaurantBadRequestException(RESTAURANT_BAD_REQUEST_MSG);
         }
-        RestaurantResponseDto responseDto = restaurantService.findByRating(rating, pagenumber, pagesize);
+        TotalsMode totalsMode = TotalsMode.from(totals);
+        RestaurantResponseDto responseDto;
+        if (cursor != null) {
+            responseDto = restaurantService.findByRatingAfter(rating, cursor, pagesize);
+        } else if (totalsMode == TotalsMode.EXACT) {
+            responseDto = restaurantService.findByRating(rating, pagenumber, pagesize);
+        } else {
+            responseDto = restaurantService.findByRating(rating, pagenumber, pagesize, totalsMode);
+        }
         if (responseDto.getRestaurants().isEmpty()) {
             logger.debug("No restaurants were found");
             throw new RestaurantNotFoundException(RESTAURANT_NOT_FOUND_MSG);
@@ -239,10 +449,22 @@ public class RestaurantController {
 
     }
 
+    @GetMapping("/restaurants/{id}/detail")
+    public ResponseEntity<RestaurantDetailDto> getRestaurantDetail(@RequestHeader String authorization, @PathVariable Long id, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+        logger.debug("In get restaurant detail method");
+        if (pagenumber <= 0 || pagesize <= 0) {
+            logger.debug("Page number or size cannot be zero or less, throwing exception");
+            throw new RestaurantBadRequestException(RESTAURANT_BAD_REQUEST_MSG);
+        }
+        return ResponseEntity
+                .status(HttpStatus.OK)
+                .body(restaurantService.findDetailById(id, pagenumber, pagesize));
+    }
+
     @GetMapping("/restaurant/items/{restaurantid}")
-    public ResponseEntity<List<MenuItem>> getItemsByRestaurantId(@RequestHeader String authorization, @PathVariable Long restaurantid, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
+    public ResponseEntity<List<MenuItemDto>> getItemsByRestaurantId(@RequestHeader String authorization, @PathVariable Long restaurantid, @RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize) {
 
-        List<MenuItem> items = restaurantService.findMenuItemByRestaurantId(restaurantid, pagenumber, pagesize);
+        List<MenuItemDto> items = restaurantService.findMenuItemByRestaurantId(restaurantid, pagenumber, pagesize);
         if (items.isEmpty()) {
             throw new RestaurantNotFoundException(RESTAURANT_NOT_FOUND_MSG);
         }
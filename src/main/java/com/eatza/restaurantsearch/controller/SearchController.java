@@ -0,0 +1,147 @@
+package com.eatza.restaurantsearch.controller;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.eatza.restaurantsearch.dto.FacetsDto;
+import com.eatza.restaurantsearch.dto.NearbyRestaurantDto;
+import com.eatza.restaurantsearch.dto.RestaurantResponseDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.ScoredRestaurantDto;
+import com.eatza.restaurantsearch.dto.SuggestionDto;
+import com.eatza.restaurantsearch.dto.TotalsMode;
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
+import com.eatza.restaurantsearch.exception.RestaurantNotFoundException;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+import com.eatza.restaurantsearch.service.restaurantservice.RestaurantService;
+
+@RestController
+public class SearchController {
+
+	private static final Logger logger = LoggerFactory.getLogger(SearchController.class);
+
+	@Autowired
+	private RestaurantIndexService restaurantIndexService;
+
+	@Autowired
+	private RestaurantService restaurantService;
+
+	@Value("${search.suggest.max-limit:50}")
+	private int maxSuggestLimit;
+
+	@Value("${search.text.max-limit:100}")
+	private int maxTextLimit;
+
+	@Value("${search.nearby.max-limit:100}")
+	private int maxNearbyLimit;
+
+	@GetMapping("/restaurants/suggest")
+	public ResponseEntity<List<SuggestionDto>> suggest(@RequestHeader String authorization, @RequestParam String prefix, @RequestParam(defaultValue = "10") int limit) {
+		logger.debug("In suggest method");
+		if (prefix.trim().isEmpty() || limit <= 0) {
+			logger.debug("Prefix cannot be blank and limit must be positive, throwing exception");
+			throw new RestaurantBadRequestException("Prefix cannot be empty and limit cannot be 0 or less");
+		}
+		logger.debug("calling index service for suggestions");
+		return ResponseEntity
+				.status(HttpStatus.OK)
+				.body(restaurantIndexService.suggest(prefix, Math.min(limit, maxSuggestLimit)));
+	}
+
+	@GetMapping("/restaurants/search")
+	public ResponseEntity<RestaurantResponseDto> search(@RequestHeader String authorization,
+			@RequestParam(required = false) String location, @RequestParam(required = false) String cuisine,
+			@RequestParam(required = false) Integer budget, @RequestParam(required = false) Double rating,
+			@RequestParam(defaultValue = "1") int pagenumber, @RequestParam(defaultValue = "10") int pagesize,
+			@RequestParam(required = false) String cursor, @RequestParam(defaultValue = "exact") String totals) {
+		logger.debug("In search method");
+		if (pagenumber <= 0 || pagesize <= 0) {
+			logger.debug("Page number or size cannot be zero or less, throwing exception");
+			throw new RestaurantBadRequestException("Page number or Page size cannot be 0 or less");
+		}
+		logger.debug("calling service to search restaurants");
+		RestaurantSearchCriteria criteria = new RestaurantSearchCriteria(location, cuisine, budget, rating);
+		TotalsMode totalsMode = TotalsMode.from(totals);
+		RestaurantResponseDto responseDto;
+		if (cursor != null) {
+			responseDto = restaurantService.searchAfter(criteria, cursor, pagesize);
+		} else if (totalsMode == TotalsMode.EXACT) {
+			responseDto = restaurantService.search(criteria, pagenumber, pagesize);
+		} else {
+			responseDto = restaurantService.search(criteria, pagenumber, pagesize, totalsMode);
+		}
+		if (responseDto.getRestaurants().isEmpty()) {
+			logger.debug("No restaurants were found");
+			throw new RestaurantNotFoundException("No Restaurants found for specified inputs");
+		}
+		return ResponseEntity
+				.status(HttpStatus.OK)
+				.body(responseDto);
+	}
+
+	@GetMapping("/restaurants/facets")
+	public ResponseEntity<FacetsDto> facets(@RequestHeader String authorization,
+			@RequestParam(required = false) String location, @RequestParam(required = false) String cuisine,
+			@RequestParam(required = false) Integer budget, @RequestParam(required = false) Double rating) {
+		logger.debug("In facets method, calling index service for facet counts");
+		return ResponseEntity
+				.status(HttpStatus.OK)
+				.body(restaurantIndexService.facets(new RestaurantSearchCriteria(location, cuisine, budget, rating)));
+	}
+
+	@GetMapping("/restaurants/nearby")
+	public ResponseEntity<List<NearbyRestaurantDto>> nearby(@RequestHeader String authorization,
+			@RequestParam double latitude, @RequestParam double longitude,
+			@RequestParam(required = false) Double radius, @RequestParam(defaultValue = "10") int limit,
+			@RequestParam(required = false) Integer budget, @RequestParam(required = false) Double rating) {
+		logger.debug("In nearby method");
+		if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+			logger.debug("Coordinates out of range, throwing exception");
+			throw new RestaurantBadRequestException("Latitude must be within 90 and longitude within 180 degrees");
+		}
+		if (limit <= 0 || (radius != null && radius <= 0)) {
+			logger.debug("Limit or radius not positive, throwing exception");
+			throw new RestaurantBadRequestException("Limit and radius cannot be 0 or less");
+		}
+		logger.debug("calling index service for nearby restaurants");
+		List<NearbyRestaurantDto> nearby = restaurantIndexService.nearby(latitude, longitude,
+				radius == null ? Double.POSITIVE_INFINITY : radius, Math.min(limit, maxNearbyLimit),
+				new RestaurantSearchCriteria(null, null, budget, rating));
+		if (nearby.isEmpty()) {
+			logger.debug("No restaurants were found");
+			throw new RestaurantNotFoundException("No Restaurants found for specified inputs");
+		}
+		return ResponseEntity
+				.status(HttpStatus.OK)
+				.body(nearby);
+	}
+
+	@GetMapping("/restaurants/text")
+	public ResponseEntity<List<ScoredRestaurantDto>> searchText(@RequestHeader String authorization, @RequestParam String query, @RequestParam(defaultValue = "10") int limit) {
+		logger.debug("In searchText method");
+		if (query.trim().isEmpty() || limit <= 0) {
+			logger.debug("Query cannot be blank and limit must be positive, throwing exception");
+			throw new RestaurantBadRequestException("Query cannot be empty and limit cannot be 0 or less");
+		}
+		logger.debug("calling index service for ranked text search");
+		List<ScoredRestaurantDto> results = restaurantIndexService.searchText(query, Math.min(limit, maxTextLimit));
+		if (results.isEmpty()) {
+			logger.debug("No restaurants were found");
+			throw new RestaurantNotFoundException("No Restaurants found for specified inputs");
+		}
+		return ResponseEntity
+				.status(HttpStatus.OK)
+				.body(results);
+	}
+
+}
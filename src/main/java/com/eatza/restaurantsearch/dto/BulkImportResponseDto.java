@@ -0,0 +1,21 @@
+package com.eatza.restaurantsearch.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class BulkImportResponseDto {
+	
+	private int restaurants;
+	private int items;
+	
+	
+	public BulkImportResponseDto(int restaurants, int items) {
+		super();
+		this.restaurants = restaurants;
+		this.items = items;
+	}
+
+
+}
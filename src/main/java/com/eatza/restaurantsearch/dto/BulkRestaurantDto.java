@@ -0,0 +1,15 @@
+package com.eatza.restaurantsearch.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class BulkRestaurantDto extends RestaurantRequestDto {
+	
+	private List<ItemRequestDto> items;
+
+
+}
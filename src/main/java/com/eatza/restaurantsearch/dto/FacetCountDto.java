@@ -0,0 +1,21 @@
+package com.eatza.restaurantsearch.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class FacetCountDto {
+	
+	private String value;
+	private long count;
+	
+	
+	public FacetCountDto(String value, long count) {
+		super();
+		this.value = value;
+		this.count = count;
+	}
+
+
+}
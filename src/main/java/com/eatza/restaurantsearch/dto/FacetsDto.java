@@ -0,0 +1,30 @@
+package com.eatza.restaurantsearch.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class FacetsDto {
+	
+	long totalElements;
+	List<FacetCountDto> cuisines;
+	List<FacetCountDto> locations;
+	List<FacetCountDto> budgets;
+	List<FacetCountDto> ratings;
+	
+	
+	public FacetsDto(long totalElements, List<FacetCountDto> cuisines, List<FacetCountDto> locations,
+			List<FacetCountDto> budgets, List<FacetCountDto> ratings) {
+		super();
+		this.totalElements = totalElements;
+		this.cuisines = cuisines;
+		this.locations = locations;
+		this.budgets = budgets;
+		this.ratings = ratings;
+	}
+
+
+}
@@ -0,0 +1,11 @@
+package com.eatza.restaurantsearch.dto;
+
+/**
+ * Body formats accepted by the menu item import: one JSON item per line, or
+ * CSV with a header row naming the menuId, name, description and price columns.
+ */
+public enum ItemImportFormat {
+
+	NDJSON, CSV;
+
+}
@@ -0,0 +1,25 @@
+package com.eatza.restaurantsearch.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class ItemImportResponseDto {
+	
+	private int imported;
+	private int failed;
+	private List<LineErrorDto> errors;
+	
+	
+	public ItemImportResponseDto(int imported, int failed, List<LineErrorDto> errors) {
+		super();
+		this.imported = imported;
+		this.failed = failed;
+		this.errors = errors;
+	}
+
+
+}
@@ -0,0 +1,21 @@
+package com.eatza.restaurantsearch.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class LineErrorDto {
+	
+	private long line;
+	private String message;
+	
+	
+	public LineErrorDto(long line, String message) {
+		super();
+		this.line = line;
+		this.message = message;
+	}
+
+
+}
@@ -0,0 +1,37 @@
+package com.eatza.restaurantsearch.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class MenuItemDto {
+	
+	private Long id;
+	private String name;
+	private String description;
+	private int price;
+	private Long restaurantId;
+	private String restaurantName;
+	
+	
+	public MenuItemDto(Long id, String name, String description, int price) {
+		super();
+		this.id = id;
+		this.name = name;
+		this.description = description;
+		this.price = price;
+	}
+
+	// A single item also names its restaurant; item lists are already scoped to one
+	public MenuItemDto(Long id, String name, String description, int price, Long restaurantId, String restaurantName) {
+		this(id, name, description, price);
+		this.restaurantId = restaurantId;
+		this.restaurantName = restaurantName;
+	}
+
+
+}
@@ -0,0 +1,23 @@
+package com.eatza.restaurantsearch.dto;
+
+import com.eatza.restaurantsearch.model.Restaurant;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class NearbyRestaurantDto {
+	
+	private Restaurant restaurant;
+	private double distanceKm;
+	
+	
+	public NearbyRestaurantDto(Restaurant restaurant, double distanceKm) {
+		super();
+		this.restaurant = restaurant;
+		this.distanceKm = distanceKm;
+	}
+
+
+}
@@ -0,0 +1,29 @@
+package com.eatza.restaurantsearch.dto;
+
+import java.util.List;
+
+import com.eatza.restaurantsearch.model.Restaurant;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class RestaurantDetailDto {
+	
+	private Restaurant restaurant;
+	private String activeFrom;
+	private String activeTill;
+	private List<MenuItemDto> items;
+	
+	
+	public RestaurantDetailDto(Restaurant restaurant, String activeFrom, String activeTill, List<MenuItemDto> items) {
+		super();
+		this.restaurant = restaurant;
+		this.activeFrom = activeFrom;
+		this.activeTill = activeTill;
+		this.items = items;
+	}
+
+
+}
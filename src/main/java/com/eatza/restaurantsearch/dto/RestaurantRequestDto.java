@@ -12,6 +12,8 @@ public class RestaurantRequestDto {
 	private String cuisine;
 	private int budget;
 	private double rating;
+	private Double latitude;
+	private Double longitude;
 	private String activeFrom;
 	private String activeTill;
 
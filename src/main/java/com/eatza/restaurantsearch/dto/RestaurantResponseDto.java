@@ -3,17 +3,21 @@ package com.eatza.restaurantsearch.dto;
 import java.util.List;
 
 import com.eatza.restaurantsearch.model.Restaurant;
+import com.fasterxml.jackson.annotation.JsonInclude;
 
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Getter @Setter @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class RestaurantResponseDto {
 	
 	List<Restaurant> restaurants;
-	int totalPages;
-	long totalElements;
+	Integer totalPages;
+	Long totalElements;
+	String nextCursor;
+	Boolean hasNext;
 	
 	
 
@@ -26,5 +30,19 @@ public class RestaurantResponseDto {
 		this.totalElements = totalElements;
 	}
 
+	// Cursor pages carry no totals; nextCursor is null on the last page
+	public RestaurantResponseDto(List<Restaurant> restaurants, String nextCursor) {
+		super();
+		this.restaurants = restaurants;
+		this.nextCursor = nextCursor;
+	}
+
+	// Pages served without an exact count; totals are set only when approximated
+	public RestaurantResponseDto(List<Restaurant> restaurants, boolean hasNext) {
+		super();
+		this.restaurants = restaurants;
+		this.hasNext = hasNext;
+	}
+
 
 }
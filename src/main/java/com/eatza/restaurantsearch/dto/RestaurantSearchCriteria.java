@@ -0,0 +1,25 @@
+package com.eatza.restaurantsearch.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class RestaurantSearchCriteria {
+	
+	private String location;
+	private String cuisine;
+	private Integer budget;
+	private Double rating;
+	
+	
+	public RestaurantSearchCriteria(String location, String cuisine, Integer budget, Double rating) {
+		super();
+		this.location = location;
+		this.cuisine = cuisine;
+		this.budget = budget;
+		this.rating = rating;
+	}
+
+
+}
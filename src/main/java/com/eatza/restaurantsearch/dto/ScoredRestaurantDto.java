@@ -0,0 +1,23 @@
+package com.eatza.restaurantsearch.dto;
+
+import com.eatza.restaurantsearch.model.Restaurant;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class ScoredRestaurantDto {
+	
+	private Restaurant restaurant;
+	private double score;
+	
+	
+	public ScoredRestaurantDto(Restaurant restaurant, double score) {
+		super();
+		this.restaurant = restaurant;
+		this.score = score;
+	}
+
+
+}
@@ -0,0 +1,23 @@
+package com.eatza.restaurantsearch.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class SuggestionDto {
+	
+	private String text;
+	private String type;
+	private double rating;
+	
+	
+	public SuggestionDto(String text, String type, double rating) {
+		super();
+		this.text = text;
+		this.type = type;
+		this.rating = rating;
+	}
+
+
+}
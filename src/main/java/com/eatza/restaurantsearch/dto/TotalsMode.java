@@ -0,0 +1,23 @@
+package com.eatza.restaurantsearch.dto;
+
+import java.util.Locale;
+
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
+
+/**
+ * How a paged response reports its totals: counted exactly, omitted in
+ * favour of hasNext, or read from periodically refreshed cached counts.
+ */
+public enum TotalsMode {
+
+	EXACT, NONE, APPROXIMATE;
+
+	public static TotalsMode from(String value) {
+		try {
+			return valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new RestaurantBadRequestException("Totals must be one of exact, none or approximate");
+		}
+	}
+
+}
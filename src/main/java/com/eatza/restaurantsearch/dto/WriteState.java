@@ -0,0 +1,11 @@
+package com.eatza.restaurantsearch.dto;
+
+/**
+ * Progress of a write accepted for the write-behind queue: waiting in the
+ * queue, committed, or rejected by the writer.
+ */
+public enum WriteState {
+
+	QUEUED, SAVED, FAILED;
+
+}
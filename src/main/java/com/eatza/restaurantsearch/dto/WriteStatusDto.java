@@ -0,0 +1,25 @@
+package com.eatza.restaurantsearch.dto;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter @Setter @NoArgsConstructor
+public class WriteStatusDto {
+	
+	private String id;
+	private WriteState state;
+	private Long entityId;
+	private String message;
+	
+	
+	public WriteStatusDto(String id, WriteState state, Long entityId, String message) {
+		super();
+		this.id = id;
+		this.state = state;
+		this.entityId = entityId;
+		this.message = message;
+	}
+
+
+}
@@ -1,5 +1,6 @@
 package com.eatza.restaurantsearch.exception;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -32,6 +33,18 @@ public class CustomGlobalExceptionHandler extends ResponseEntityExceptionHandler
 		 return new ResponseEntity<>(exception.getMessage(), HttpStatus.NOT_FOUND);
 	}
 	
+	@ExceptionHandler(WriteQueueFullException.class)
+	ResponseEntity<Object> exception(WriteQueueFullException exception) {
+		
+		 return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").body(exception.getMessage());
+	}
+	
+	@ExceptionHandler(IndexNotReadyException.class)
+	ResponseEntity<Object> exception(IndexNotReadyException exception) {
+		
+		 return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "5").body(exception.getMessage());
+	}
+	
 	@ExceptionHandler(InvalidTokenException.class)
 	ResponseEntity<Object> exception(InvalidTokenException exception) {
 		
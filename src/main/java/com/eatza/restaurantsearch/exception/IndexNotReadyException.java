@@ -0,0 +1,12 @@
+package com.eatza.restaurantsearch.exception;
+
+public class IndexNotReadyException extends RuntimeException {
+	
+	public IndexNotReadyException() {
+		super();
+	}
+	public IndexNotReadyException(String msg) {
+		super(msg);
+	}
+
+}
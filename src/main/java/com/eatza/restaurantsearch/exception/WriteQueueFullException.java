@@ -0,0 +1,12 @@
+package com.eatza.restaurantsearch.exception;
+
+public class WriteQueueFullException extends RuntimeException {
+	
+	public WriteQueueFullException() {
+		super();
+	}
+	public WriteQueueFullException(String msg) {
+		super(msg);
+	}
+
+}
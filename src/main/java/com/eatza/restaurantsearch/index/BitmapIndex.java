@@ -0,0 +1,51 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * One compressed bitmap of document ordinals per distinct value of a field,
+ * for exact-match filters that are combined by intersection. Values are only
+ * lower-cased, not trimmed or collapsed, so a filter matches the same rows as
+ * the database's {@code LOWER(column) = LOWER(:value)} fallback.
+ */
+public final class BitmapIndex {
+
+	private static final RoaringBitmap EMPTY = new RoaringBitmap();
+
+	private final Map<String, RoaringBitmap> bitmaps = new LinkedHashMap<>();
+	private final Map<String, String> labels = new LinkedHashMap<>();
+
+	public void add(int doc, String value) {
+		if (value != null) {
+			String term = term(value);
+			bitmaps.computeIfAbsent(term, key -> new RoaringBitmap()).add(doc);
+			labels.putIfAbsent(term, value);
+		}
+	}
+
+	/** The documents holding {@code value}; callers must not modify the returned bitmap. */
+	public RoaringBitmap get(String value) {
+		RoaringBitmap bitmap = value == null ? null : bitmaps.get(term(value));
+		return bitmap == null ? EMPTY : bitmap;
+	}
+
+	/** Passes each value, as first indexed, with the number of {@code docs} holding it, skipping values none of them hold. */
+	public void count(RoaringBitmap docs, ObjIntConsumer<String> consumer) {
+		for (Map.Entry<String, RoaringBitmap> entry : bitmaps.entrySet()) {
+			int count = RoaringBitmap.andCardinality(docs, entry.getValue());
+			if (count > 0) {
+				consumer.accept(labels.get(entry.getKey()), count);
+			}
+		}
+	}
+
+	private static String term(String value) {
+		return value.toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -0,0 +1,153 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * Burkhard-Keller tree over normalized terms using Levenshtein distance. Each
+ * term carries the ordinals of the documents it was indexed for, so a lookup
+ * only visits subtrees whose edge distance can still fall within the bound.
+ */
+public class BkTree {
+
+	private Node root;
+	private int size;
+
+	private static final class Node {
+		final String term;
+		final IntList docs = new IntList(1);
+		int[] distances = new int[0];
+		Node[] children = new Node[0];
+
+		Node(String term) {
+			this.term = term;
+		}
+
+		Node child(int distance) {
+			for (int i = 0; i < distances.length; i++) {
+				if (distances[i] == distance) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		void addChild(int distance, Node node) {
+			distances = Arrays.copyOf(distances, distances.length + 1);
+			children = Arrays.copyOf(children, children.length + 1);
+			distances[distances.length - 1] = distance;
+			children[children.length - 1] = node;
+		}
+
+		void addDoc(int doc) {
+			if (docs.isEmpty() || docs.last() != doc) {
+				docs.add(doc);
+			}
+		}
+	}
+
+	/**
+	 * Indexes the whole value and, when it has several words, each word on its
+	 * own so "mg rd" can reach "mg road" and "dominoes" can reach "Dominos Pizza".
+	 */
+	public void addText(String text, int doc) {
+		String normalized = Terms.normalize(text);
+		if (normalized.isEmpty()) {
+			return;
+		}
+		add(normalized, doc);
+		String[] words = normalized.split(" ");
+		if (words.length > 1) {
+			for (String word : words) {
+				if (!word.isEmpty()) {
+					add(word, doc);
+				}
+			}
+		}
+	}
+
+	public void add(String term, int doc) {
+		if (root == null) {
+			root = new Node(term);
+			root.addDoc(doc);
+			size++;
+			return;
+		}
+		Node node = root;
+		while (true) {
+			int distance = distance(term, node.term);
+			if (distance == 0) {
+				node.addDoc(doc);
+				return;
+			}
+			Node child = node.child(distance);
+			if (child == null) {
+				Node leaf = new Node(term);
+				leaf.addDoc(doc);
+				node.addChild(distance, leaf);
+				size++;
+				return;
+			}
+			node = child;
+		}
+	}
+
+	/**
+	 * Records, for every document with a term within maxDistance of the
+	 * query, the smallest distance found into the given map.
+	 */
+	public void search(String query, int maxDistance, Map<Integer, Integer> bestDistances) {
+		String normalized = Terms.normalize(query);
+		if (root == null || normalized.isEmpty()) {
+			return;
+		}
+		Deque<Node> pending = new ArrayDeque<>();
+		pending.push(root);
+		while (!pending.isEmpty()) {
+			Node node = pending.pop();
+			int distance = distance(normalized, node.term);
+			if (distance <= maxDistance) {
+				for (int i = 0; i < node.docs.size(); i++) {
+					bestDistances.merge(node.docs.get(i), distance, Math::min);
+				}
+			}
+			for (int i = 0; i < node.distances.length; i++) {
+				if (Math.abs(node.distances[i] - distance) <= maxDistance) {
+					pending.push(node.children[i]);
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	static int distance(String a, String b) {
+		if (a.length() < b.length()) {
+			String swap = a;
+			a = b;
+			b = swap;
+		}
+		int[] previous = new int[b.length() + 1];
+		int[] current = new int[b.length() + 1];
+		for (int j = 0; j <= b.length(); j++) {
+			previous[j] = j;
+		}
+		for (int i = 1; i <= a.length(); i++) {
+			current[0] = i;
+			char ca = a.charAt(i - 1);
+			for (int j = 1; j <= b.length(); j++) {
+				int cost = ca == b.charAt(j - 1) ? 0 : 1;
+				current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+			}
+			int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+		return previous[b.length()];
+	}
+
+}
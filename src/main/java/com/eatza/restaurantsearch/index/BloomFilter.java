@@ -0,0 +1,67 @@
+package com.eatza.restaurantsearch.index;
+
+/**
+ * Bit-array Bloom filter over strings. {@link #mightContain} never returns
+ * false for an added value, and returns true for a value never added with
+ * roughly the false positive rate it was sized for, as long as no more than
+ * the expected number of values are added.
+ */
+public final class BloomFilter {
+
+	private final long[] bits;
+	private final long bitCount;
+	private final int hashes;
+
+	public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+		if (expectedInsertions <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("Invalid Bloom filter sizing: " + expectedInsertions + ", " + falsePositiveRate);
+		}
+		long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+		bits = new long[(int) Math.max(1, (optimalBits + 63) >>> 6)];
+		bitCount = (long) bits.length << 6;
+		hashes = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+	}
+
+	public void add(String value) {
+		long hash = fnv1a(value);
+		long h1 = hash;
+		long h2 = mix(hash) | 1;
+		for (int i = 0; i < hashes; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bitCount);
+			bits[(int) (bit >>> 6)] |= 1L << bit;
+		}
+	}
+
+	public boolean mightContain(String value) {
+		long hash = fnv1a(value);
+		long h1 = hash;
+		long h2 = mix(hash) | 1;
+		for (int i = 0; i < hashes; i++) {
+			long bit = Math.floorMod(h1 + i * h2, bitCount);
+			if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long fnv1a(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (int i = 0; i < value.length(); i++) {
+			hash ^= value.charAt(i);
+			hash *= 0x100000001b3L;
+		}
+		return hash;
+	}
+
+	// MurmurHash3 finalizer, so the second probe stride is independent of the first
+	private static long mix(long hash) {
+		hash ^= hash >>> 33;
+		hash *= 0xff51afd7ed558ccdL;
+		hash ^= hash >>> 33;
+		hash *= 0xc4ceb9fe1a85ec53L;
+		hash ^= hash >>> 33;
+		return hash;
+	}
+
+}
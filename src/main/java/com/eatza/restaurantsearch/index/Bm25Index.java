@@ -0,0 +1,233 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Inverted index ranking documents by Okapi BM25. Text can be added to a
+ * document in several calls with a per-field weight, which multiplies the
+ * term frequencies and length it contributes, so a word in a restaurant name
+ * counts for more than the same word in a dish description. Postings are
+ * appended as text arrives and put back in document order by
+ * {@link #compact}, once per batch of adds, which must run before the next
+ * search.
+ */
+public final class Bm25Index {
+
+	private static final double K1 = 1.2;
+	private static final double B = 0.75;
+
+	private final Map<String, Postings> postings = new HashMap<>();
+	private final List<Postings> unsorted = new ArrayList<>();
+	private int[] lengths = new int[16];
+	private int documents;
+	private long totalLength;
+
+	public void add(int doc, String text, int weight) {
+		String[] tokens = Terms.tokens(text);
+		if (tokens.length == 0) {
+			return;
+		}
+		if (doc >= lengths.length) {
+			lengths = Arrays.copyOf(lengths, Math.max(doc + 1, lengths.length << 1));
+		}
+		documents = Math.max(documents, doc + 1);
+		lengths[doc] += tokens.length * weight;
+		totalLength += tokens.length * weight;
+		for (String token : tokens) {
+			Postings list = postings.computeIfAbsent(token, key -> new Postings());
+			boolean wasSorted = list.sorted();
+			list.add(doc, weight);
+			if (wasSorted && !list.sorted()) {
+				unsorted.add(list);
+			}
+		}
+	}
+
+	/** Sorts and merges the postings added out of document order since the last call. */
+	public void compact() {
+		for (Postings list : unsorted) {
+			list.compact();
+		}
+		unsorted.clear();
+	}
+
+	/** The {@code limit} best scoring documents for {@code query}, best first, and how many matched at all. */
+	public ScoredDocs search(String query, int limit) {
+		Set<String> terms = new LinkedHashSet<>(Arrays.asList(Terms.tokens(query)));
+		List<Postings> lists = new ArrayList<>(terms.size());
+		int candidates = 0;
+		for (String term : terms) {
+			Postings list = postings.get(term);
+			if (list != null) {
+				lists.add(list);
+				candidates += list.size;
+			}
+		}
+		// Scores live in a table sized by the postings read, not by the whole corpus
+		Scores scores = new Scores(candidates);
+		double averageLength = documents == 0 ? 0 : (double) totalLength / documents;
+		for (Postings list : lists) {
+			double idf = Math.log(1 + (documents - list.size + 0.5) / (list.size + 0.5));
+			for (int i = 0; i < list.size; i++) {
+				int doc = list.docs[i];
+				int frequency = list.frequencies[i];
+				double norm = K1 * (1 - B + B * lengths[doc] / averageLength);
+				scores.add(doc, idf * frequency * (K1 + 1) / (frequency + norm));
+			}
+		}
+		IntList matched = scores.slots;
+		double[] values = scores.values;
+		int[] keys = scores.docs;
+		// min-heap of the best so far by slot; ties go to the lower ordinal
+		PriorityQueue<Integer> top = new PriorityQueue<>((a, b) -> values[a] != values[b] ? Double.compare(values[a], values[b]) : Integer.compare(keys[b], keys[a]));
+		for (int i = 0; i < matched.size(); i++) {
+			top.add(matched.get(i));
+			if (top.size() > limit) {
+				top.poll();
+			}
+		}
+		int[] docs = new int[top.size()];
+		double[] topScores = new double[top.size()];
+		for (int i = docs.length - 1; i >= 0; i--) {
+			int slot = top.poll();
+			docs[i] = keys[slot];
+			topScores[i] = values[slot];
+		}
+		return new ScoredDocs(docs, topScores, matched.size());
+	}
+
+	// Open-addressing map from document to its running score, remembering the slots in first-scored order
+	private static final class Scores {
+
+		final int[] docs;
+		final double[] values;
+		final boolean[] used;
+		final IntList slots = new IntList();
+		private final int mask;
+
+		Scores(int capacity) {
+			int size = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) << 1;
+			docs = new int[size];
+			values = new double[size];
+			used = new boolean[size];
+			mask = size - 1;
+		}
+
+		void add(int doc, double score) {
+			int slot = (doc * 0x9E3779B9) >>> 1 & mask;
+			while (used[slot] && docs[slot] != doc) {
+				slot = (slot + 1) & mask;
+			}
+			if (!used[slot]) {
+				used[slot] = true;
+				docs[slot] = doc;
+				slots.add(slot);
+			}
+			values[slot] += score;
+		}
+
+	}
+
+	// Documents with their (weighted) term frequency; the first sortedSize are in ascending order without repeats
+	private static final class Postings {
+
+		private int[] docs = new int[2];
+		private int[] frequencies = new int[2];
+		private int size;
+		private int sortedSize;
+
+		boolean sorted() {
+			return sortedSize == size;
+		}
+
+		void add(int doc, int weight) {
+			if (size > 0 && docs[size - 1] == doc) {
+				frequencies[size - 1] += weight;
+				return;
+			}
+			if (size == docs.length) {
+				docs = Arrays.copyOf(docs, size << 1);
+				frequencies = Arrays.copyOf(frequencies, size << 1);
+			}
+			if (sorted() && (size == 0 || doc > docs[size - 1])) {
+				sortedSize++;
+			}
+			docs[size] = doc;
+			frequencies[size] = weight;
+			size++;
+		}
+
+		// Sorts the appended tail and merges it into the sorted head, adding up repeated documents
+		void compact() {
+			int tail = size - sortedSize;
+			long[] appended = new long[tail];
+			for (int i = 0; i < tail; i++) {
+				appended[i] = (long) docs[sortedSize + i] << 32 | i;
+			}
+			Arrays.sort(appended);
+			int[] mergedDocs = new int[docs.length];
+			int[] mergedFrequencies = new int[docs.length];
+			int merged = 0;
+			for (int i = 0, j = 0; i < sortedSize || j < tail;) {
+				int doc;
+				int frequency;
+				if (j == tail || (i < sortedSize && docs[i] <= (int) (appended[j] >>> 32))) {
+					doc = docs[i];
+					frequency = frequencies[i++];
+				} else {
+					doc = (int) (appended[j] >>> 32);
+					frequency = frequencies[sortedSize + (int) appended[j++]];
+				}
+				if (merged > 0 && mergedDocs[merged - 1] == doc) {
+					mergedFrequencies[merged - 1] += frequency;
+				} else {
+					mergedDocs[merged] = doc;
+					mergedFrequencies[merged++] = frequency;
+				}
+			}
+			docs = mergedDocs;
+			frequencies = mergedFrequencies;
+			size = merged;
+			sortedSize = merged;
+		}
+
+	}
+
+	public static final class ScoredDocs {
+
+		private final int[] docs;
+		private final double[] scores;
+		private final int matched;
+
+		ScoredDocs(int[] docs, double[] scores, int matched) {
+			this.docs = docs;
+			this.scores = scores;
+			this.matched = matched;
+		}
+
+		public int size() {
+			return docs.length;
+		}
+
+		public int doc(int index) {
+			return docs[index];
+		}
+
+		public double score(int index) {
+			return scores[index];
+		}
+
+		public int matched() {
+			return matched;
+		}
+
+	}
+
+}
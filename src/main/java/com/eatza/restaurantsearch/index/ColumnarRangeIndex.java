@@ -0,0 +1,250 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+
+/**
+ * Budget and rating columns kept sorted in primitive arrays, each with the
+ * permutation of document ordinals that sorts it. Budgets ascend and ratings
+ * descend, so "budget at most" and "rating at least" are both a prefix of the
+ * column found by binary search, and a page is a plain slice of that prefix.
+ * Equal values keep their documents in ordinal order. Single documents are
+ * inserted in place; a rebuild or a bulk import adds its documents with
+ * {@link #addAll}, which sorts them once and merges them into the columns.
+ * The prefix bitmaps used for filtering are built once per prefix length and
+ * shared until the next write, so callers must not modify them.
+ */
+public final class ColumnarRangeIndex {
+
+	private int[] budgets = new int[16];
+	private int[] budgetDocs = new int[16];
+	private double[] ratings = new double[16];
+	private int[] ratingDocs = new int[16];
+	private int[] budgetByDoc = new int[16];
+	private double[] ratingByDoc = new double[16];
+	private int size;
+
+	private static final int MAX_CACHED_PREFIXES = 64;
+
+	// Keyed by prefix length; read concurrently by searches, cleared by writes
+	private final Map<Integer, RoaringBitmap> budgetPrefixes = new ConcurrentHashMap<>();
+	private final Map<Integer, RoaringBitmap> ratingPrefixes = new ConcurrentHashMap<>();
+
+	public void add(int doc, int budget, double rating) {
+		if (size == budgets.length) {
+			grow(size << 1);
+		}
+		setByDoc(doc, budget, rating);
+
+		int at = countBudgetAtMost(budget);
+		System.arraycopy(budgets, at, budgets, at + 1, size - at);
+		System.arraycopy(budgetDocs, at, budgetDocs, at + 1, size - at);
+		budgets[at] = budget;
+		budgetDocs[at] = doc;
+
+		at = countRatingAtLeast(rating);
+		System.arraycopy(ratings, at, ratings, at + 1, size - at);
+		System.arraycopy(ratingDocs, at, ratingDocs, at + 1, size - at);
+		ratings[at] = rating;
+		ratingDocs[at] = doc;
+		size++;
+		budgetPrefixes.clear();
+		ratingPrefixes.clear();
+	}
+
+	/**
+	 * Adds {@code count} documents, each with a higher ordinal than any already
+	 * present, in O((n + count) log count) rather than one shifted insert each.
+	 */
+	public void addAll(int[] docs, int[] budgetValues, double[] ratingValues, int count) {
+		if (count == 0) {
+			return;
+		}
+		for (int i = 0; i < count; i++) {
+			setByDoc(docs[i], budgetValues[i], ratingValues[i]);
+		}
+		Integer[] order = new Integer[count];
+		for (int i = 0; i < count; i++) {
+			order[i] = i;
+		}
+		// Stable, so documents with equal values stay in ordinal order
+		Arrays.sort(order, (a, b) -> Integer.compare(budgetValues[a], budgetValues[b]));
+		int[] newBudgets = new int[count];
+		int[] newBudgetDocs = new int[count];
+		for (int i = 0; i < count; i++) {
+			newBudgets[i] = budgetValues[order[i]];
+			newBudgetDocs[i] = docs[order[i]];
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(ratingValues[b], ratingValues[a]));
+		double[] newRatings = new double[count];
+		int[] newRatingDocs = new int[count];
+		for (int i = 0; i < count; i++) {
+			newRatings[i] = ratingValues[order[i]];
+			newRatingDocs[i] = docs[order[i]];
+		}
+
+		int total = size + count;
+		int[] mergedBudgets = new int[Math.max(16, total)];
+		int[] mergedBudgetDocs = new int[mergedBudgets.length];
+		// Existing documents first on ties, as their ordinals are lower
+		for (int i = 0, j = 0, k = 0; k < total; k++) {
+			if (j == count || (i < size && budgets[i] <= newBudgets[j])) {
+				mergedBudgets[k] = budgets[i];
+				mergedBudgetDocs[k] = budgetDocs[i++];
+			} else {
+				mergedBudgets[k] = newBudgets[j];
+				mergedBudgetDocs[k] = newBudgetDocs[j++];
+			}
+		}
+		double[] mergedRatings = new double[mergedBudgets.length];
+		int[] mergedRatingDocs = new int[mergedBudgets.length];
+		for (int i = 0, j = 0, k = 0; k < total; k++) {
+			if (j == count || (i < size && ratings[i] >= newRatings[j])) {
+				mergedRatings[k] = ratings[i];
+				mergedRatingDocs[k] = ratingDocs[i++];
+			} else {
+				mergedRatings[k] = newRatings[j];
+				mergedRatingDocs[k] = newRatingDocs[j++];
+			}
+		}
+		budgets = mergedBudgets;
+		budgetDocs = mergedBudgetDocs;
+		ratings = mergedRatings;
+		ratingDocs = mergedRatingDocs;
+		size = total;
+		budgetPrefixes.clear();
+		ratingPrefixes.clear();
+	}
+
+	private void grow(int capacity) {
+		budgets = Arrays.copyOf(budgets, capacity);
+		budgetDocs = Arrays.copyOf(budgetDocs, capacity);
+		ratings = Arrays.copyOf(ratings, capacity);
+		ratingDocs = Arrays.copyOf(ratingDocs, capacity);
+	}
+
+	private void setByDoc(int doc, int budget, double rating) {
+		if (doc >= budgetByDoc.length) {
+			int capacity = Math.max(doc + 1, budgetByDoc.length << 1);
+			budgetByDoc = Arrays.copyOf(budgetByDoc, capacity);
+			ratingByDoc = Arrays.copyOf(ratingByDoc, capacity);
+		}
+		budgetByDoc[doc] = budget;
+		ratingByDoc[doc] = rating;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int countBudgetAtMost(int budget) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (budgets[mid] <= budget) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	public int countRatingAtLeast(double rating) {
+		int low = 0;
+		int high = size;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (ratings[mid] >= rating) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+
+	/** Documents with budget at most {@code budget}, cheapest first, skipping {@code offset} of them. */
+	public IntList budgetAtMost(int budget, long offset, int limit) {
+		return slice(budgetDocs, countBudgetAtMost(budget), offset, limit);
+	}
+
+	/** Documents rated at least {@code rating}, best rated first, skipping {@code offset} of them. */
+	public IntList ratingAtLeast(double rating, long offset, int limit) {
+		return slice(ratingDocs, countRatingAtLeast(rating), offset, limit);
+	}
+
+	/** Shared bitmap of the documents with budget at most {@code budget}; read only. */
+	public RoaringBitmap budgetAtMostBitmap(int budget) {
+		return prefix(budgetPrefixes, budgetDocs, countBudgetAtMost(budget));
+	}
+
+	/** Shared bitmap of the documents rated at least {@code rating}; read only. */
+	public RoaringBitmap ratingAtLeastBitmap(double rating) {
+		return prefix(ratingPrefixes, ratingDocs, countRatingAtLeast(rating));
+	}
+
+	/** For each of {@code bands}, how many of {@code docs} have a budget at most that band. */
+	public int[] countBudgetAtMost(RoaringBitmap docs, int[] bands) {
+		int[] counts = new int[bands.length];
+		IntIterator iterator = docs.getIntIterator();
+		while (iterator.hasNext()) {
+			int budget = budgetByDoc[iterator.next()];
+			for (int i = 0; i < bands.length; i++) {
+				if (budget <= bands[i]) {
+					counts[i]++;
+				}
+			}
+		}
+		return counts;
+	}
+
+	/** For each of {@code bands}, how many of {@code docs} are rated at least that band. */
+	public int[] countRatingAtLeast(RoaringBitmap docs, double[] bands) {
+		int[] counts = new int[bands.length];
+		IntIterator iterator = docs.getIntIterator();
+		while (iterator.hasNext()) {
+			double rating = ratingByDoc[iterator.next()];
+			for (int i = 0; i < bands.length; i++) {
+				if (rating >= bands[i]) {
+					counts[i]++;
+				}
+			}
+		}
+		return counts;
+	}
+
+	private static RoaringBitmap prefix(Map<Integer, RoaringBitmap> cache, int[] docs, int count) {
+		RoaringBitmap cached = cache.get(count);
+		if (cached != null) {
+			return cached;
+		}
+		RoaringBitmap bitmap = new RoaringBitmap();
+		bitmap.addN(docs, 0, count);
+		bitmap.runOptimize();
+		// Queries use a handful of band boundaries; anything past that starts the cache over
+		if (cache.size() >= MAX_CACHED_PREFIXES) {
+			cache.clear();
+		}
+		cache.put(count, bitmap);
+		return bitmap;
+	}
+
+	private static IntList slice(int[] docs, int count, long offset, int limit) {
+		if (offset >= count) {
+			return new IntList(0);
+		}
+		int end = (int) Math.min(count, offset + limit);
+		IntList page = new IntList(end - (int) offset);
+		for (int i = (int) offset; i < end; i++) {
+			page.add(docs[i]);
+		}
+		return page;
+	}
+
+}
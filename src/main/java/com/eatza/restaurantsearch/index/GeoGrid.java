@@ -0,0 +1,185 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.function.IntPredicate;
+
+/**
+ * Uniform latitude/longitude grid of document ordinals. Nearest-neighbour
+ * queries visit cells in square rings around the query point and stop once
+ * no unvisited ring can hold anything closer than the k-th hit found so far
+ * or than the search radius. Columns wrap at the antimeridian, so a ring
+ * around a point near ±180 reaches the cells on the other side. Rings are
+ * clipped to the rows that hold documents, and once the walk has probed more
+ * cells than are populated the query falls back to a scan of every populated
+ * cell, so a point far from the data or a filter that accepts nothing costs
+ * at most one pass.
+ */
+public final class GeoGrid {
+
+	private static final double EARTH_RADIUS_KM = 6371.0088;
+
+	private final double cellDegrees;
+	// Whole columns around the globe, each at least cellDegrees wide
+	private final int columns;
+	private final double columnDegrees;
+	private final Map<Long, IntList> cells = new HashMap<>();
+	private double[] latitudes = new double[16];
+	private double[] longitudes = new double[16];
+	private int minRow = Integer.MAX_VALUE;
+	private int maxRow = Integer.MIN_VALUE;
+
+	public GeoGrid(double cellDegrees) {
+		if (cellDegrees <= 0) {
+			throw new IllegalArgumentException("Cell size must be positive: " + cellDegrees);
+		}
+		this.cellDegrees = cellDegrees;
+		this.columns = Math.max(1, (int) Math.floor(360 / cellDegrees));
+		this.columnDegrees = 360.0 / columns;
+	}
+
+	public void add(int doc, double latitude, double longitude) {
+		if (doc >= latitudes.length) {
+			int capacity = Math.max(doc + 1, latitudes.length << 1);
+			latitudes = Arrays.copyOf(latitudes, capacity);
+			longitudes = Arrays.copyOf(longitudes, capacity);
+		}
+		latitudes[doc] = latitude;
+		longitudes[doc] = longitude;
+		int row = row(latitude);
+		int column = column(longitude);
+		minRow = Math.min(minRow, row);
+		maxRow = Math.max(maxRow, row);
+		cells.computeIfAbsent(key(row, column), k -> new IntList()).add(doc);
+	}
+
+	public double distanceKm(int doc, double latitude, double longitude) {
+		return distanceKm(latitudes[doc], longitudes[doc], latitude, longitude);
+	}
+
+	/**
+	 * Up to {@code limit} documents accepted by {@code filter} within
+	 * {@code radiusKm} of the point, nearest first. A null filter accepts all.
+	 */
+	public IntList nearest(double latitude, double longitude, int limit, double radiusKm, IntPredicate filter) {
+		if (cells.isEmpty() || limit <= 0) {
+			return new IntList(0);
+		}
+		// max-heap on distance so the current k-th hit is at the head
+		PriorityQueue<double[]> hits = new PriorityQueue<>((a, b) -> Double.compare(b[0], a[0]));
+		int row = row(latitude);
+		int column = column(longitude);
+		// Rings short of the populated rows are empty; past half the columns a ring only adds rows
+		int firstRing = Math.max(minRow - row, row - maxRow);
+		int lastRing = Math.max(Math.max(row - minRow, maxRow - row), columns / 2);
+		long probed = 0;
+		for (int ring = Math.max(firstRing, 0); ring <= lastRing; ring++) {
+			double bound = ringLowerBoundKm(ring, latitude);
+			if (bound > radiusKm || (hits.size() == limit && bound > hits.peek()[0])) {
+				break;
+			}
+			if (probed > cells.size()) {
+				hits.clear();
+				for (IntList docs : cells.values()) {
+					collect(docs, latitude, longitude, limit, radiusKm, filter, hits);
+				}
+				break;
+			}
+			for (int r = Math.max(row - ring, minRow); r <= Math.min(row + ring, maxRow); r++) {
+				if (r == row - ring || r == row + ring) {
+					// A ring wider than the globe covers every column once
+					int from = 2 * ring + 1 >= columns ? 0 : column - ring;
+					int to = 2 * ring + 1 >= columns ? columns - 1 : column + ring;
+					for (int c = from; c <= to; c++) {
+						probed += probe(r, c, latitude, longitude, limit, radiusKm, filter, hits);
+					}
+				} else if (2 * ring <= columns) {
+					// Further round than half the globe, the side columns were nearer on the other side and are done
+					probed += probe(r, column - ring, latitude, longitude, limit, radiusKm, filter, hits);
+					if (2 * ring < columns && ring > 0) {
+						probed += probe(r, column + ring, latitude, longitude, limit, radiusKm, filter, hits);
+					}
+				}
+			}
+		}
+		double[][] sorted = hits.toArray(new double[0][]);
+		Arrays.sort(sorted, (a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+		IntList nearest = new IntList(sorted.length);
+		for (double[] hit : sorted) {
+			nearest.add((int) hit[1]);
+		}
+		return nearest;
+	}
+
+	private int probe(int row, int column, double latitude, double longitude, int limit, double radiusKm,
+			IntPredicate filter, PriorityQueue<double[]> hits) {
+		IntList docs = cells.get(key(row, Math.floorMod(column, columns)));
+		if (docs != null) {
+			collect(docs, latitude, longitude, limit, radiusKm, filter, hits);
+		}
+		return 1;
+	}
+
+	private void collect(IntList docs, double latitude, double longitude, int limit, double radiusKm,
+			IntPredicate filter, PriorityQueue<double[]> hits) {
+		for (int i = 0; i < docs.size(); i++) {
+			int doc = docs.get(i);
+			if (filter != null && !filter.test(doc)) {
+				continue;
+			}
+			double distance = distanceKm(doc, latitude, longitude);
+			if (distance > radiusKm) {
+				continue;
+			}
+			if (hits.size() < limit) {
+				hits.add(new double[] {distance, doc});
+			} else if (distance < hits.peek()[0]) {
+				hits.poll();
+				hits.add(new double[] {distance, doc});
+			}
+		}
+	}
+
+	// Anything in ring r is at least r - 1 whole cells away along one axis: rows of latitude, or
+	// columns of longitude measured the short way round, at the ring's most poleward latitude.
+	// Past half the globe only the rows are left, so the bound is the nearer of what each axis allows.
+	private double ringLowerBoundKm(int ring, double latitude) {
+		if (ring <= 1) {
+			return 0;
+		}
+		double rowKm = EARTH_RADIUS_KM * Math.toRadians(Math.min((ring - 1) * cellDegrees, 180));
+		double degrees = (ring - 1) * columnDegrees;
+		if (degrees >= 180) {
+			return rowKm;
+		}
+		double widestLatitude = Math.min(90, Math.abs(latitude) + ring * cellDegrees);
+		double sin = Math.cos(Math.toRadians(widestLatitude)) * Math.sin(Math.toRadians(degrees / 2));
+		return Math.min(rowKm, 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, sin)));
+	}
+
+	private int row(double latitude) {
+		return (int) Math.floor(latitude / cellDegrees);
+	}
+
+	// Longitudes are taken into [-180, 180) first, so 180 and -180 share a column
+	private int column(double longitude) {
+		double wrapped = longitude - 360 * Math.floor((longitude + 180) / 360);
+		return Math.min(columns - 1, (int) Math.floor((wrapped + 180) / columnDegrees));
+	}
+
+	private static long key(int row, int column) {
+		return ((long) row << 32) | (column & 0xffffffffL);
+	}
+
+	/** Great-circle distance by the haversine formula. */
+	public static double distanceKm(double latitude1, double longitude1, double latitude2, double longitude2) {
+		double dLat = Math.toRadians(latitude2 - latitude1);
+		double dLng = Math.toRadians(longitude2 - longitude1);
+		double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+				+ Math.cos(Math.toRadians(latitude1)) * Math.cos(Math.toRadians(latitude2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+		return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of primitive ints, used for posting lists and result sets so
+ * the indexes never box document ordinals.
+ */
+public final class IntList {
+
+	private int[] values;
+	private int size;
+
+	public IntList() {
+		this(4);
+	}
+
+	public IntList(int capacity) {
+		this.values = new int[Math.max(capacity, 1)];
+	}
+
+	public void add(int value) {
+		if (size == values.length) {
+			values = Arrays.copyOf(values, size << 1);
+		}
+		values[size++] = value;
+	}
+
+	public int get(int index) {
+		if (index >= size) {
+			throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+		}
+		return values[index];
+	}
+
+	public int last() {
+		return values[size - 1];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	public int[] toArray() {
+		return Arrays.copyOf(values, size);
+	}
+
+}
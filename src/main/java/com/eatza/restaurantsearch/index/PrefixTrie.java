@@ -0,0 +1,132 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Compact prefix trie for top-k completion. Edges are kept in sorted char
+ * arrays and every node remembers the best score in its subtree, so a lookup
+ * walks the prefix and then expands nodes best-first, stopping as soon as k
+ * terms have been emitted.
+ */
+public class PrefixTrie {
+
+	private static final char[] NO_LABELS = new char[0];
+	private static final Node[] NO_CHILDREN = new Node[0];
+	private static final int[] NO_TERMS = new int[0];
+
+	private final Node root = new Node();
+	private double[] scores = new double[0];
+
+	private static final class Node {
+		char[] labels = NO_LABELS;
+		Node[] children = NO_CHILDREN;
+		int[] terms = NO_TERMS;
+		double best = Double.NEGATIVE_INFINITY;
+
+		Node child(char label) {
+			int i = Arrays.binarySearch(labels, label);
+			return i >= 0 ? children[i] : null;
+		}
+
+		Node addChild(char label) {
+			int i = -(Arrays.binarySearch(labels, label) + 1);
+			char[] newLabels = new char[labels.length + 1];
+			Node[] newChildren = new Node[children.length + 1];
+			System.arraycopy(labels, 0, newLabels, 0, i);
+			System.arraycopy(children, 0, newChildren, 0, i);
+			newLabels[i] = label;
+			newChildren[i] = new Node();
+			System.arraycopy(labels, i, newLabels, i + 1, labels.length - i);
+			System.arraycopy(children, i, newChildren, i + 1, children.length - i);
+			labels = newLabels;
+			children = newChildren;
+			return newChildren[i];
+		}
+
+		void addTerm(int term) {
+			for (int existing : terms) {
+				if (existing == term) {
+					return;
+				}
+			}
+			terms = Arrays.copyOf(terms, terms.length + 1);
+			terms[terms.length - 1] = term;
+		}
+	}
+
+	private static final class Candidate {
+		final double score;
+		final Node node;
+		final int term;
+
+		Candidate(double score, Node node, int term) {
+			this.score = score;
+			this.node = node;
+			this.term = term;
+		}
+	}
+
+	/**
+	 * Registers key as a completion for term. A term may be reachable through
+	 * several keys and keeps the highest score it was ever added with.
+	 */
+	public void add(String key, int term, double score) {
+		if (term >= scores.length) {
+			int previous = scores.length;
+			scores = Arrays.copyOf(scores, Math.max(term + 1, previous << 1));
+			Arrays.fill(scores, previous, scores.length, Double.NEGATIVE_INFINITY);
+		}
+		scores[term] = Math.max(scores[term], score);
+		double termScore = scores[term];
+		Node node = root;
+		node.best = Math.max(node.best, termScore);
+		for (int i = 0; i < key.length(); i++) {
+			Node next = node.child(key.charAt(i));
+			node = next != null ? next : node.addChild(key.charAt(i));
+			node.best = Math.max(node.best, termScore);
+		}
+		node.addTerm(term);
+	}
+
+	/**
+	 * Returns up to limit distinct terms completing the prefix, highest score
+	 * first.
+	 */
+	public IntList complete(String prefix, int limit) {
+		IntList result = new IntList(Math.max(limit, 1));
+		Node node = root;
+		for (int i = 0; i < prefix.length() && node != null; i++) {
+			node = node.child(prefix.charAt(i));
+		}
+		if (node == null || limit <= 0) {
+			return result;
+		}
+		PriorityQueue<Candidate> queue = new PriorityQueue<>((a, b) -> Double.compare(b.score, a.score));
+		queue.add(new Candidate(node.best, node, -1));
+		Set<Integer> emitted = new HashSet<>();
+		while (!queue.isEmpty() && result.size() < limit) {
+			Candidate candidate = queue.poll();
+			if (candidate.node == null) {
+				if (emitted.add(candidate.term)) {
+					result.add(candidate.term);
+				}
+				continue;
+			}
+			for (int term : candidate.node.terms) {
+				queue.add(new Candidate(scores[term], null, term));
+			}
+			for (Node child : candidate.node.children) {
+				queue.add(new Candidate(child.best, child, -1));
+			}
+		}
+		return result;
+	}
+
+	public double score(int term) {
+		return scores[term];
+	}
+
+}
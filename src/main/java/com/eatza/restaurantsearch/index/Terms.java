@@ -0,0 +1,32 @@
+package com.eatza.restaurantsearch.index;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public final class Terms {
+
+	private static final String[] NO_TOKENS = new String[0];
+	private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+	private Terms() {
+	}
+
+	// Lower-cases and collapses whitespace so "MG  Road " and "mg road" are the same term
+	public static String normalize(String text) {
+		return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+
+	// Lower-cases and drops accents and other combining marks, and splits ligatures, so "Café" and "cafe" are the same text
+	public static String fold(String text) {
+		return MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("").toLowerCase(Locale.ROOT);
+	}
+
+	// Lower-cased runs of letters and digits, so "Paneer-Tikka, spicy!" is [paneer, tikka, spicy]
+	public static String[] tokens(String text) {
+		String normalized = NON_WORD.matcher(text == null ? "" : text.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+		return normalized.isEmpty() ? NO_TOKENS : normalized.split(" ");
+	}
+
+}
@@ -0,0 +1,132 @@
+package com.eatza.restaurantsearch.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In-memory trigram inverted index answering case-insensitive substring
+ * queries. Documents are identified by ordinals that must be added in
+ * increasing order, which keeps every posting list sorted.
+ */
+public class TrigramIndex {
+
+	private static final int GRAM = 3;
+
+	private final Map<String, IntList> postings = new HashMap<>();
+	private final List<String> texts = new ArrayList<>();
+
+	public void add(int doc, String text) {
+		if (doc < texts.size()) {
+			throw new IllegalArgumentException("Documents must be added in increasing order, got " + doc);
+		}
+		while (texts.size() < doc) {
+			texts.add(null);
+		}
+		String normalized = normalize(text);
+		texts.add(normalized);
+		for (int i = 0; i + GRAM <= normalized.length(); i++) {
+			IntList posting = postings.computeIfAbsent(normalized.substring(i, i + GRAM), gram -> new IntList());
+			if (posting.isEmpty() || posting.last() != doc) {
+				posting.add(doc);
+			}
+		}
+	}
+
+	/**
+	 * Returns the ordinals, in increasing order, of every document whose text
+	 * contains the query.
+	 */
+	public IntList search(String query) {
+		String normalized = normalize(query);
+		if (normalized.length() < GRAM) {
+			return scan(normalized);
+		}
+		Set<String> grams = new LinkedHashSet<>();
+		for (int i = 0; i + GRAM <= normalized.length(); i++) {
+			grams.add(normalized.substring(i, i + GRAM));
+		}
+		IntList[] lists = new IntList[grams.size()];
+		int n = 0;
+		for (String gram : grams) {
+			IntList posting = postings.get(gram);
+			if (posting == null) {
+				return new IntList();
+			}
+			lists[n++] = posting;
+		}
+		Arrays.sort(lists, Comparator.comparingInt(IntList::size));
+		IntList candidates = lists[0];
+		for (int i = 1; i < lists.length && !candidates.isEmpty(); i++) {
+			candidates = intersect(candidates, lists[i]);
+		}
+		if (normalized.length() == GRAM) {
+			return candidates;
+		}
+		IntList result = new IntList(candidates.size());
+		for (int i = 0; i < candidates.size(); i++) {
+			int doc = candidates.get(i);
+			if (texts.get(doc).contains(normalized)) {
+				result.add(doc);
+			}
+		}
+		return result;
+	}
+
+	public boolean containsGram(String gram) {
+		return postings.containsKey(gram);
+	}
+
+	private IntList scan(String normalized) {
+		IntList result = new IntList();
+		for (int doc = 0; doc < texts.size(); doc++) {
+			String text = texts.get(doc);
+			if (text != null && text.contains(normalized)) {
+				result.add(doc);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Intersects two sorted lists, galloping through the longer one so a
+	 * rare gram against a common one costs O(small * log(large)).
+	 */
+	static IntList intersect(IntList small, IntList large) {
+		IntList result = new IntList(small.size());
+		int from = 0;
+		for (int i = 0; i < small.size() && from < large.size(); i++) {
+			int target = small.get(i);
+			int bound = 1;
+			while (from + bound < large.size() && large.get(from + bound) < target) {
+				bound <<= 1;
+			}
+			int lo = from;
+			int hi = Math.min(from + bound, large.size() - 1);
+			while (lo < hi) {
+				int mid = (lo + hi) >>> 1;
+				if (large.get(mid) < target) {
+					lo = mid + 1;
+				} else {
+					hi = mid;
+				}
+			}
+			if (large.get(lo) == target) {
+				result.add(target);
+			}
+			from = lo;
+		}
+		return result;
+	}
+
+	public static String normalize(String text) {
+		return text == null ? "" : text.toLowerCase(Locale.ROOT);
+	}
+
+}
@@ -1,12 +1,15 @@
 package com.eatza.restaurantsearch.model;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
+import javax.persistence.SequenceGenerator;
 
+import org.hibernate.annotations.BatchSize;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
@@ -15,16 +18,18 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
+@BatchSize(size = 50)
 @Getter @Setter @NoArgsConstructor
 public class Menu {
 
 	@Id
-	@GeneratedValue (strategy = GenerationType.IDENTITY)
+	@GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "menu_seq")
+	@SequenceGenerator(name = "menu_seq", sequenceName = "menu_seq", initialValue = 1000, allocationSize = 50)
 	private Long id;
 	private String activeFrom;
 	private String activeTill;
 
-	@OneToOne
+	@OneToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "restaurant_id", nullable = false)
 	@OnDelete(action = OnDeleteAction.CASCADE)
 	private Restaurant restaurant;
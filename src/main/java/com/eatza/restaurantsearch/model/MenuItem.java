@@ -1,11 +1,13 @@
 package com.eatza.restaurantsearch.model;
 
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
 import org.hibernate.annotations.OnDelete;
@@ -21,13 +23,14 @@ import lombok.Setter;
 public class MenuItem {
 	
 	@Id
-	@GeneratedValue (strategy = GenerationType.IDENTITY)
+	@GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "menu_item_seq")
+	@SequenceGenerator(name = "menu_item_seq", sequenceName = "menu_item_seq", initialValue = 1000, allocationSize = 50)
 	private Long id;
 	private String name;
 	private String description;
 	private int price;
 	
-	@ManyToOne
+	@ManyToOne(fetch = FetchType.LAZY)
 	@JoinColumn(name = "menu_id", nullable = false)
 	@OnDelete(action = OnDeleteAction.CASCADE)
 	Menu menu;
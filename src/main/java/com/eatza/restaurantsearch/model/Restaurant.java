@@ -4,25 +4,32 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
 
+import org.hibernate.annotations.BatchSize;
+
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
 @Table(name= "restaurants")
+@BatchSize(size = 50)
 @Getter @Setter @NoArgsConstructor
 public class Restaurant {
 	
 	@Id
-	@GeneratedValue (strategy = GenerationType.IDENTITY)
+	@GeneratedValue (strategy = GenerationType.SEQUENCE, generator = "restaurant_seq")
+	@SequenceGenerator(name = "restaurant_seq", sequenceName = "restaurant_seq", initialValue = 1000, allocationSize = 50)
 	private Long id;
 	private String name;
 	private String location;
 	private String cuisine;
 	private int budget;
 	private double rating;
+	private Double latitude;
+	private Double longitude;
 
 	public Restaurant(String name, String location, String cuisine, int budget, double rating) {
 		super();
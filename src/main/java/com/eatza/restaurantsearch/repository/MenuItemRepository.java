@@ -1,18 +1,50 @@
 package com.eatza.restaurantsearch.repository;
 
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import com.eatza.restaurantsearch.dto.MenuItemDto;
 import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.model.Restaurant;
 
 public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
 	
-	Page<MenuItem> findByNameContaining(String name, Pageable pageable);
+	// Semi-join: each restaurant appears once however many of its items match. Callers only read the page, so no count query
+	@Query("SELECT r FROM Restaurant r WHERE EXISTS (SELECT i FROM MenuItem i JOIN i.menu m "
+			+ "WHERE m.restaurant = r AND i.name LIKE CONCAT('%', :name, '%')) ORDER BY r.id")
+	List<Restaurant> findRestaurantsByItemNameContaining(@Param("name") String name, Pageable pageable);
 	
 	Optional<MenuItem> findById(Long id);
 	Page<MenuItem> findByMenu_id(Long id, Pageable pageable);
 
+	// Flat projections: only the selected columns are read, no entities enter the persistence context
+	@Query("SELECT new com.eatza.restaurantsearch.dto.MenuItemDto(i.id, i.name, i.description, i.price, r.id, r.name) "
+			+ "FROM MenuItem i JOIN i.menu m JOIN m.restaurant r WHERE i.id = :id")
+	Optional<MenuItemDto> findDtoById(@Param("id") Long id);
+
+	@Query(value = "SELECT new com.eatza.restaurantsearch.dto.MenuItemDto(i.id, i.name, i.description, i.price) "
+			+ "FROM MenuItem i JOIN i.menu m WHERE m.restaurant.id = :restaurantId ORDER BY i.id",
+			countQuery = "SELECT COUNT(i) FROM MenuItem i JOIN i.menu m WHERE m.restaurant.id = :restaurantId")
+	Page<MenuItemDto> findDtosByRestaurantId(@Param("restaurantId") Long restaurantId, Pageable pageable);
+
+	// Items with their menu and restaurant fetched in the same statement, no count query
+	@Query("SELECT i FROM MenuItem i JOIN FETCH i.menu m JOIN FETCH m.restaurant r WHERE r.id = :restaurantId ORDER BY i.id")
+	List<MenuItem> findWithMenuByRestaurantId(@Param("restaurantId") Long restaurantId, Pageable pageable);
+
+	@Query("SELECT i.id AS id, i.name AS name, i.description AS description, m.restaurant.id AS restaurantId FROM MenuItem i JOIN i.menu m")
+	List<ItemRestaurantView> findAllItemRestaurants();
+
+	interface ItemRestaurantView {
+		Long getId();
+		String getName();
+		String getDescription();
+		Long getRestaurantId();
+	}
+
 }
@@ -1,6 +1,11 @@
 package com.eatza.restaurantsearch.repository;
 
+import java.util.Collection;
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.eatza.restaurantsearch.model.Menu;
@@ -9,4 +14,12 @@ import com.eatza.restaurantsearch.model.Menu;
 public interface MenuRepository  extends JpaRepository<Menu, Long>{
 	
 	Menu findByRestaurant_id( Long restaurantId);
+
+	@Query("SELECT m.id AS id, m.restaurant.id AS restaurantId FROM Menu m WHERE m.id IN :ids")
+	List<MenuRestaurantView> findRestaurantIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+	interface MenuRestaurantView {
+		Long getId();
+		Long getRestaurantId();
+	}
 }
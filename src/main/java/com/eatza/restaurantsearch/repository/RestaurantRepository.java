@@ -1,11 +1,20 @@
 
 package com.eatza.restaurantsearch.repository;
 
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.eatza.restaurantsearch.model.Restaurant;
@@ -18,11 +27,118 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
 	Page<Restaurant> findByNameContaining(String name, Pageable pageable);
 	Page<Restaurant> findByRatingGreaterThanEqual(double rating, Pageable pageable);
 	Optional<Restaurant> findById(Long id);
-	Page<Restaurant> findByLocationContainingAndCuisineContaining(String location, String cuisine, Pageable pageable);
-	Page<Restaurant> findByLocationContainingOrCuisineContaining(String location, String cuisine, Pageable pageable);
 	Page<Restaurant> findByBudgetLessThanEqual(int budget, Pageable pageable);
-	Page<Restaurant> findByLocationContainingAndNameContaining(String location, String name, Pageable pageable);
-	Page<Restaurant> findByLocationContainingOrNameContaining(String location, String name, Pageable pageable);
+
+	// Restaurants matching both fields rank ahead of those matching only one, then by id
+	@Query(value = "SELECT r FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.cuisine LIKE CONCAT('%', :cuisine, '%') "
+			+ "ORDER BY CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.cuisine LIKE CONCAT('%', :cuisine, '%') THEN 0 ELSE 1 END, r.id",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.cuisine LIKE CONCAT('%', :cuisine, '%')")
+	Page<Restaurant> findRankedByLocationOrCuisine(@Param("location") String location, @Param("cuisine") String cuisine, Pageable pageable);
+
+	@Query(value = "SELECT r FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.name LIKE CONCAT('%', :name, '%') "
+			+ "ORDER BY CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.name LIKE CONCAT('%', :name, '%') THEN 0 ELSE 1 END, r.id",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.name LIKE CONCAT('%', :name, '%')")
+	Page<Restaurant> findRankedByLocationOrName(@Param("location") String location, @Param("name") String name, Pageable pageable);
+
+	// Filters left null are not applied
+	@Query(value = "SELECT r FROM Restaurant r WHERE (:location IS NULL OR LOWER(r.location) = LOWER(:location)) "
+			+ "AND (:cuisine IS NULL OR LOWER(r.cuisine) = LOWER(:cuisine)) "
+			+ "AND (:budget IS NULL OR r.budget <= :budget) AND (:rating IS NULL OR r.rating >= :rating) ORDER BY r.id",
+			countQuery = "SELECT COUNT(r) FROM Restaurant r WHERE (:location IS NULL OR LOWER(r.location) = LOWER(:location)) "
+			+ "AND (:cuisine IS NULL OR LOWER(r.cuisine) = LOWER(:cuisine)) "
+			+ "AND (:budget IS NULL OR r.budget <= :budget) AND (:rating IS NULL OR r.rating >= :rating)")
+	Page<Restaurant> search(@Param("location") String location, @Param("cuisine") String cuisine,
+			@Param("budget") Integer budget, @Param("rating") Double rating, Pageable pageable);
+
+	// Counts alone, for totals that are cached rather than counted with every page
+	long countByNameContaining(String name);
+	long countByBudgetLessThanEqual(int budget);
+	long countByRatingGreaterThanEqual(double rating);
+
+	@Query("SELECT COUNT(r) FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.cuisine LIKE CONCAT('%', :cuisine, '%')")
+	long countByLocationOrCuisine(@Param("location") String location, @Param("cuisine") String cuisine);
+
+	@Query("SELECT COUNT(r) FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.name LIKE CONCAT('%', :name, '%')")
+	long countByLocationOrName(@Param("location") String location, @Param("name") String name);
+
+	@Query("SELECT COUNT(r) FROM Restaurant r WHERE (:location IS NULL OR LOWER(r.location) = LOWER(:location)) "
+			+ "AND (:cuisine IS NULL OR LOWER(r.cuisine) = LOWER(:cuisine)) "
+			+ "AND (:budget IS NULL OR r.budget <= :budget) AND (:rating IS NULL OR r.rating >= :rating)")
+	long countSearch(@Param("location") String location, @Param("cuisine") String cuisine,
+			@Param("budget") Integer budget, @Param("rating") Double rating);
+
+	// Keyset variants: each seeks past the (sort key, id) of the previous page's last row and runs no count query.
+	// The ranked ones select the rank they order by, so a cursor carries the database's own LIKE result.
+	@Query("SELECT r FROM Restaurant r WHERE r.id > :afterId ORDER BY r.id")
+	Slice<Restaurant> findAfter(@Param("afterId") long afterId, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE r.name LIKE CONCAT('%', :name, '%') AND r.id > :afterId ORDER BY r.id")
+	Slice<Restaurant> findByNameContainingAfter(@Param("name") String name, @Param("afterId") long afterId, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE r.budget <= :budget "
+			+ "AND (r.budget > :afterBudget OR (r.budget = :afterBudget AND r.id > :afterId)) ORDER BY r.budget, r.id")
+	Slice<Restaurant> findByBudgetAtMostAfter(@Param("budget") int budget, @Param("afterBudget") int afterBudget,
+			@Param("afterId") long afterId, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE r.rating >= :rating "
+			+ "AND (r.rating < :afterRating OR (r.rating = :afterRating AND r.id > :afterId)) ORDER BY r.rating DESC, r.id")
+	Slice<Restaurant> findByRatingAtLeastAfter(@Param("rating") double rating, @Param("afterRating") double afterRating,
+			@Param("afterId") long afterId, Pageable pageable);
+
+	@Query("SELECT r AS restaurant, CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.cuisine LIKE CONCAT('%', :cuisine, '%') THEN 0 ELSE 1 END AS rank "
+			+ "FROM Restaurant r WHERE (r.location LIKE CONCAT('%', :location, '%') OR r.cuisine LIKE CONCAT('%', :cuisine, '%')) "
+			+ "AND (CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.cuisine LIKE CONCAT('%', :cuisine, '%') THEN 0 ELSE 1 END > :afterRank "
+			+ "OR (CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.cuisine LIKE CONCAT('%', :cuisine, '%') THEN 0 ELSE 1 END = :afterRank AND r.id > :afterId)) "
+			+ "ORDER BY CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.cuisine LIKE CONCAT('%', :cuisine, '%') THEN 0 ELSE 1 END, r.id")
+	Slice<RankedRestaurant> findRankedByLocationOrCuisineAfter(@Param("location") String location, @Param("cuisine") String cuisine,
+			@Param("afterRank") int afterRank, @Param("afterId") long afterId, Pageable pageable);
+
+	@Query("SELECT r AS restaurant, CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.name LIKE CONCAT('%', :name, '%') THEN 0 ELSE 1 END AS rank "
+			+ "FROM Restaurant r WHERE (r.location LIKE CONCAT('%', :location, '%') OR r.name LIKE CONCAT('%', :name, '%')) "
+			+ "AND (CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.name LIKE CONCAT('%', :name, '%') THEN 0 ELSE 1 END > :afterRank "
+			+ "OR (CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.name LIKE CONCAT('%', :name, '%') THEN 0 ELSE 1 END = :afterRank AND r.id > :afterId)) "
+			+ "ORDER BY CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.name LIKE CONCAT('%', :name, '%') THEN 0 ELSE 1 END, r.id")
+	Slice<RankedRestaurant> findRankedByLocationOrNameAfter(@Param("location") String location, @Param("name") String name,
+			@Param("afterRank") int afterRank, @Param("afterId") long afterId, Pageable pageable);
+
+	@Query("SELECT r FROM Restaurant r WHERE (:location IS NULL OR LOWER(r.location) = LOWER(:location)) "
+			+ "AND (:cuisine IS NULL OR LOWER(r.cuisine) = LOWER(:cuisine)) "
+			+ "AND (:budget IS NULL OR r.budget <= :budget) AND (:rating IS NULL OR r.rating >= :rating) AND r.id > :afterId ORDER BY r.id")
+	Slice<Restaurant> searchAfter(@Param("location") String location, @Param("cuisine") String cuisine,
+			@Param("budget") Integer budget, @Param("rating") Double rating, @Param("afterId") long afterId, Pageable pageable);
 	
 
+	interface RankedRestaurant {
+		Restaurant getRestaurant();
+		Integer getRank();
+	}
+
+	// Unpaged streams for NDJSON responses, read through a forward-only cursor one fetch at a time.
+	// MySQL Connector/J ignores the fetch size unless the URL sets useCursorFetch=true
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT r FROM Restaurant r ORDER BY r.id")
+	Stream<Restaurant> streamAll();
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT r FROM Restaurant r WHERE r.name LIKE CONCAT('%', :name, '%') ORDER BY r.id")
+	Stream<Restaurant> streamByNameContaining(@Param("name") String name);
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT r FROM Restaurant r WHERE r.budget <= :budget ORDER BY r.budget, r.id")
+	Stream<Restaurant> streamByBudgetAtMost(@Param("budget") int budget);
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT r FROM Restaurant r WHERE r.rating >= :rating ORDER BY r.rating DESC, r.id")
+	Stream<Restaurant> streamByRatingAtLeast(@Param("rating") double rating);
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT r FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.cuisine LIKE CONCAT('%', :cuisine, '%') "
+			+ "ORDER BY CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.cuisine LIKE CONCAT('%', :cuisine, '%') THEN 0 ELSE 1 END, r.id")
+	Stream<Restaurant> streamRankedByLocationOrCuisine(@Param("location") String location, @Param("cuisine") String cuisine);
+
+	@QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+	@Query("SELECT r FROM Restaurant r WHERE r.location LIKE CONCAT('%', :location, '%') OR r.name LIKE CONCAT('%', :name, '%') "
+			+ "ORDER BY CASE WHEN r.location LIKE CONCAT('%', :location, '%') AND r.name LIKE CONCAT('%', :name, '%') THEN 0 ELSE 1 END, r.id")
+	Stream<Restaurant> streamRankedByLocationOrName(@Param("location") String location, @Param("name") String name);
+
 }
@@ -0,0 +1,13 @@
+package com.eatza.restaurantsearch.service.importservice;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+import com.eatza.restaurantsearch.dto.ItemImportFormat;
+import com.eatza.restaurantsearch.dto.ItemImportResponseDto;
+
+public interface ItemImportService {
+
+	ItemImportResponseDto importItems(BufferedReader lines, ItemImportFormat format) throws IOException;
+
+}
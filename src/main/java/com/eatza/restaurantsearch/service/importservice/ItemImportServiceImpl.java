@@ -0,0 +1,348 @@
+package com.eatza.restaurantsearch.service.importservice;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.ItemImportFormat;
+import com.eatza.restaurantsearch.dto.ItemImportResponseDto;
+import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.LineErrorDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
+import com.eatza.restaurantsearch.model.Menu;
+import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.repository.MenuRepository;
+import com.eatza.restaurantsearch.repository.MenuRepository.MenuRestaurantView;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Imports menu items from a request body read one line at a time. Lines are
+ * parsed into a chunk, the chunk's menu ids are resolved with one query, and
+ * the items on known menus are inserted in one transaction. A line that
+ * cannot be parsed, names an unknown menu or cannot be saved is reported
+ * back instead of failing the upload; the errors kept are the first by line
+ * number.
+ */
+@Service
+public class ItemImportServiceImpl implements ItemImportService {
+
+	private static final Logger logger = LoggerFactory.getLogger(ItemImportServiceImpl.class);
+
+	private static final String MENU_ID = "menuid";
+	private static final String NAME = "name";
+	private static final String DESCRIPTION = "description";
+	private static final String PRICE = "price";
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MenuRepository menuRepository;
+
+	@Autowired
+	private RestaurantIndexService restaurantIndexService;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Value("${search.import.item-chunk-size:500}")
+	private int chunkSize;
+
+	@Value("${search.import.max-errors:100}")
+	private int maxErrors;
+
+	@Override
+	public ItemImportResponseDto importItems(BufferedReader lines, ItemImportFormat format) throws IOException {
+		ItemImport state = new ItemImport(new TransactionTemplate(transactionManager));
+		Map<String, Integer> columns = null;
+		long lineNumber = 0;
+		String line;
+		while ((line = lines.readLine()) != null) {
+			lineNumber++;
+			if (line.trim().isEmpty()) {
+				continue;
+			}
+			if (format == ItemImportFormat.CSV && columns == null) {
+				columns = csvColumns(line);
+				continue;
+			}
+			try {
+				ItemRequestDto item = format == ItemImportFormat.CSV ? fromCsv(line, columns) : fromJson(line);
+				validate(item);
+				state.chunk.add(new ParsedLine(lineNumber, item));
+			} catch (IllegalArgumentException e) {
+				state.fail(lineNumber, e.getMessage());
+			}
+			if (state.chunk.size() == chunkSize) {
+				importChunk(state);
+			}
+		}
+		importChunk(state);
+		logger.debug("Imported {} menu items, {} lines failed", state.imported, state.failed);
+		return new ItemImportResponseDto(state.imported, state.failed, state.errors);
+	}
+
+	private void importChunk(ItemImport state) {
+		List<LineErrorDto> chunkErrors = new ArrayList<>();
+		importChunk(state, chunkErrors);
+		state.flush(chunkErrors);
+	}
+
+	private void importChunk(ItemImport state, List<LineErrorDto> errors) {
+		if (state.chunk.isEmpty()) {
+			return;
+		}
+		Set<Long> menuIds = new HashSet<>();
+		for (ParsedLine parsed : state.chunk) {
+			menuIds.add(parsed.item.getMenuId());
+		}
+		Map<Long, Long> restaurantIds = new HashMap<>();
+		for (MenuRestaurantView menu : menuRepository.findRestaurantIdsByIdIn(menuIds)) {
+			restaurantIds.put(menu.getId(), menu.getRestaurantId());
+		}
+		List<ParsedLine> known = new ArrayList<>(state.chunk.size());
+		for (ParsedLine parsed : state.chunk) {
+			if (restaurantIds.containsKey(parsed.item.getMenuId())) {
+				known.add(parsed);
+			} else {
+				errors.add(new LineErrorDto(parsed.line, "Menu " + parsed.item.getMenuId() + " not found"));
+			}
+		}
+		state.chunk.clear();
+		if (known.isEmpty()) {
+			return;
+		}
+		logger.debug("Importing a chunk of {} menu items", known.size());
+		List<ParsedLine> saved = known;
+		try {
+			persist(state, known);
+		} catch (RuntimeException e) {
+			// One bad row rolls back the chunk, so each is retried on its own to find it
+			logger.debug("Could not save a chunk of {} menu items, retrying one at a time", known.size(), e);
+			saved = new ArrayList<>(known.size());
+			for (ParsedLine parsed : known) {
+				try {
+					persist(state, Collections.singletonList(parsed));
+					saved.add(parsed);
+				} catch (RuntimeException rowFailure) {
+					logger.debug("Could not save the menu item on line {}", parsed.line, rowFailure);
+					errors.add(new LineErrorDto(parsed.line, "Could not save item"));
+				}
+			}
+			if (saved.isEmpty()) {
+				return;
+			}
+		}
+		// Indexed only once committed, as saveMenuItem does
+		List<MenuItemDto> indexed = new ArrayList<>(saved.size());
+		for (ParsedLine parsed : saved) {
+			ItemRequestDto itemDto = parsed.item;
+			indexed.add(new MenuItemDto(parsed.itemId, itemDto.getName(), itemDto.getDescription(), itemDto.getPrice(),
+					restaurantIds.get(itemDto.getMenuId()), null));
+		}
+		restaurantIndexService.indexItems(indexed);
+		catalogVersion.bump();
+		state.imported += saved.size();
+	}
+
+	private void persist(ItemImport state, List<ParsedLine> lines) {
+		state.transaction.execute(status -> {
+			for (ParsedLine parsed : lines) {
+				ItemRequestDto itemDto = parsed.item;
+				MenuItem item = new MenuItem(itemDto.getName(), itemDto.getDescription(), itemDto.getPrice(),
+						entityManager.getReference(Menu.class, itemDto.getMenuId()));
+				entityManager.persist(item);
+				parsed.itemId = item.getId();
+			}
+			entityManager.flush();
+			entityManager.clear();
+			return null;
+		});
+	}
+
+	private ItemRequestDto fromJson(String line) {
+		ItemRequestDto item;
+		try {
+			item = objectMapper.readValue(line, ItemRequestDto.class);
+		} catch (JsonProcessingException e) {
+			throw new IllegalArgumentException("Invalid JSON: " + e.getOriginalMessage());
+		}
+		// A literal null line parses without error
+		if (item == null) {
+			throw new IllegalArgumentException("Line is not a JSON object");
+		}
+		return item;
+	}
+
+	private static ItemRequestDto fromCsv(String line, Map<String, Integer> columns) {
+		List<String> fields = csvFields(line);
+		ItemRequestDto item = new ItemRequestDto();
+		item.setMenuId(parseNumber(field(fields, columns, MENU_ID), "menuId"));
+		item.setName(field(fields, columns, NAME));
+		item.setDescription(field(fields, columns, DESCRIPTION));
+		Long price = parseNumber(field(fields, columns, PRICE), "price");
+		item.setPrice(price == null ? 0 : price.intValue());
+		return item;
+	}
+
+	private static void validate(ItemRequestDto item) {
+		if (item.getMenuId() == null) {
+			throw new IllegalArgumentException("menuId is required");
+		}
+		if (item.getName() == null || item.getName().trim().isEmpty()) {
+			throw new IllegalArgumentException("name is required");
+		}
+		if (item.getPrice() < 0) {
+			throw new IllegalArgumentException("price must not be negative");
+		}
+	}
+
+	private static Map<String, Integer> csvColumns(String header) {
+		Map<String, Integer> columns = new HashMap<>();
+		List<String> names;
+		try {
+			names = csvFields(header);
+		} catch (IllegalArgumentException e) {
+			throw new RestaurantBadRequestException("Invalid CSV header: " + e.getMessage());
+		}
+		for (int i = 0; i < names.size(); i++) {
+			columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+		}
+		if (!columns.containsKey(MENU_ID) || !columns.containsKey(NAME) || !columns.containsKey(PRICE)) {
+			throw new RestaurantBadRequestException("CSV header must name the menuId, name and price columns");
+		}
+		return columns;
+	}
+
+	private static String field(List<String> fields, Map<String, Integer> columns, String column) {
+		Integer index = columns.get(column);
+		if (index == null || index >= fields.size()) {
+			return null;
+		}
+		String value = fields.get(index).trim();
+		return value.isEmpty() ? null : value;
+	}
+
+	private static Long parseNumber(String value, String column) {
+		if (value == null) {
+			return null;
+		}
+		try {
+			return Long.valueOf(value);
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException(column + " is not a whole number: " + value);
+		}
+	}
+
+	// RFC 4180 fields on a single line: commas separate, quotes wrap, and a doubled quote is a literal one
+	static List<String> csvFields(String line) {
+		List<String> fields = new ArrayList<>();
+		StringBuilder field = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			if (quoted) {
+				if (c != '"') {
+					field.append(c);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					field.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (c == '"') {
+				quoted = true;
+			} else if (c == ',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			} else {
+				field.append(c);
+			}
+		}
+		if (quoted) {
+			throw new IllegalArgumentException("Unterminated quoted field");
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+	private final class ItemImport {
+
+		final TransactionTemplate transaction;
+		final List<ParsedLine> chunk = new ArrayList<>(chunkSize);
+		final List<LineErrorDto> errors = new ArrayList<>();
+		// Parse errors since the last chunk, held back until that chunk's own errors are known
+		final List<LineErrorDto> parseErrors = new ArrayList<>();
+		int imported;
+		int failed;
+
+		ItemImport(TransactionTemplate transaction) {
+			this.transaction = transaction;
+		}
+
+		// Every failure is counted. Parse errors arrive in line order, so any past the room left can only be dropped
+		void fail(long line, String message) {
+			failed++;
+			if (errors.size() + parseErrors.size() < maxErrors) {
+				parseErrors.add(new LineErrorDto(line, message));
+			}
+		}
+
+		// Lines before the next chunk are all done, so their errors go in by line, up to the cap that bounds the response
+		void flush(List<LineErrorDto> chunkErrors) {
+			failed += chunkErrors.size();
+			List<LineErrorDto> merged = new ArrayList<>(parseErrors);
+			merged.addAll(chunkErrors);
+			merged.sort(Comparator.comparingLong(LineErrorDto::getLine));
+			for (int i = 0; i < merged.size() && errors.size() < maxErrors; i++) {
+				errors.add(merged.get(i));
+			}
+			parseErrors.clear();
+		}
+
+	}
+
+	private static final class ParsedLine {
+
+		final long line;
+		final ItemRequestDto item;
+		// Assigned on persist, so the index can tell the item apart from one it already read
+		Long itemId;
+
+		ParsedLine(long line, ItemRequestDto item) {
+			this.line = line;
+			this.item = item;
+		}
+
+	}
+
+}
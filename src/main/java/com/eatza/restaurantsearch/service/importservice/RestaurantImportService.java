@@ -0,0 +1,12 @@
+package com.eatza.restaurantsearch.service.importservice;
+
+import java.util.Iterator;
+
+import com.eatza.restaurantsearch.dto.BulkImportResponseDto;
+import com.eatza.restaurantsearch.dto.BulkRestaurantDto;
+
+public interface RestaurantImportService {
+
+	BulkImportResponseDto importRestaurants(Iterator<BulkRestaurantDto> restaurants);
+
+}
@@ -0,0 +1,130 @@
+package com.eatza.restaurantsearch.service.importservice;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.BulkImportResponseDto;
+import com.eatza.restaurantsearch.dto.BulkRestaurantDto;
+import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
+import com.eatza.restaurantsearch.model.Menu;
+import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+
+/**
+ * Imports restaurants with their menu and items in chunks, one transaction
+ * per chunk. Entities are persisted directly and flushed once per chunk, so
+ * with pooled sequence ids Hibernate sends the inserts as JDBC batches, and
+ * the persistence context is cleared between chunks to keep memory flat.
+ */
+@Service
+public class RestaurantImportServiceImpl implements RestaurantImportService {
+
+	private static final Logger logger = LoggerFactory.getLogger(RestaurantImportServiceImpl.class);
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private RestaurantIndexService restaurantIndexService;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Value("${search.import.chunk-size:500}")
+	private int chunkSize;
+
+	@Override
+	public BulkImportResponseDto importRestaurants(Iterator<BulkRestaurantDto> restaurants) {
+		TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+		List<BulkRestaurantDto> chunk = new ArrayList<>(chunkSize);
+		int restaurantCount = 0;
+		int itemCount = 0;
+		while (true) {
+			BulkRestaurantDto next;
+			try {
+				next = restaurants.hasNext() ? restaurants.next() : null;
+			} catch (RuntimeException e) {
+				// Everything read before the bad entry is valid, so it is kept
+				itemCount += importChunk(transaction, chunk);
+				restaurantCount += chunk.size();
+				logger.debug("Could not read restaurant {} of the import", restaurantCount + 1, e);
+				throw new RestaurantBadRequestException("Could not read restaurant " + (restaurantCount + 1)
+						+ ", the " + restaurantCount + " before it were imported");
+			}
+			if (next == null) {
+				break;
+			}
+			chunk.add(next);
+			if (chunk.size() == chunkSize) {
+				itemCount += importChunk(transaction, chunk);
+				restaurantCount += chunk.size();
+				chunk.clear();
+			}
+		}
+		itemCount += importChunk(transaction, chunk);
+		restaurantCount += chunk.size();
+		logger.debug("Imported {} restaurants with {} menu items", restaurantCount, itemCount);
+		return new BulkImportResponseDto(restaurantCount, itemCount);
+	}
+
+	private int importChunk(TransactionTemplate transaction, List<BulkRestaurantDto> chunk) {
+		if (chunk.isEmpty()) {
+			return 0;
+		}
+		logger.debug("Importing a chunk of {} restaurants", chunk.size());
+		List<Restaurant> saved = new ArrayList<>(chunk.size());
+		List<MenuItem> savedItems = new ArrayList<>();
+		transaction.execute(status -> {
+			for (BulkRestaurantDto restaurantDto : chunk) {
+				Restaurant restaurant = new Restaurant(restaurantDto.getName(), restaurantDto.getLocation(),
+						restaurantDto.getCuisine(), restaurantDto.getBudget(), restaurantDto.getRating());
+				restaurant.setLatitude(restaurantDto.getLatitude());
+				restaurant.setLongitude(restaurantDto.getLongitude());
+				entityManager.persist(restaurant);
+				Menu menu = new Menu(restaurantDto.getActiveFrom(), restaurantDto.getActiveTill(), restaurant);
+				entityManager.persist(menu);
+				if (restaurantDto.getItems() != null) {
+					for (ItemRequestDto itemDto : restaurantDto.getItems()) {
+						MenuItem item = new MenuItem(itemDto.getName(), itemDto.getDescription(), itemDto.getPrice(), menu);
+						entityManager.persist(item);
+						savedItems.add(item);
+					}
+				}
+				saved.add(restaurant);
+			}
+			entityManager.flush();
+			entityManager.clear();
+			return null;
+		});
+		// Indexed only once committed, as saveRestaurant and saveMenuItem do
+		restaurantIndexService.indexAll(saved);
+		List<MenuItemDto> indexed = new ArrayList<>(savedItems.size());
+		for (MenuItem item : savedItems) {
+			indexed.add(new MenuItemDto(item.getId(), item.getName(), item.getDescription(), item.getPrice(),
+					item.getMenu().getRestaurant().getId(), null));
+		}
+		restaurantIndexService.indexItems(indexed);
+		catalogVersion.bump();
+		return savedItems.size();
+	}
+
+}
@@ -7,6 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
 import com.eatza.restaurantsearch.exception.ItemNotFoundException;
 import com.eatza.restaurantsearch.model.MenuItem;
 import com.eatza.restaurantsearch.model.Restaurant;
@@ -16,7 +17,11 @@ public interface MenuItemService {
 	
 	MenuItem saveMenuItem(ItemRequestDto itemDto);
 	List<Restaurant> findByName(String name, int pagenumber, int pagesize) throws  ItemNotFoundException ;
+	List<Restaurant> findByNameFuzzy(String name, int pagenumber, int pagesize) throws  ItemNotFoundException ;
 	Optional<MenuItem> findById(Long id);
 	Page<MenuItem> findByMenuId(Long id , Pageable pageable);
+	Optional<MenuItemDto> findDtoById(Long id);
+	Page<MenuItemDto> findDtosByRestaurantId(Long restaurantId, Pageable pageable);
+	List<MenuItem> findWithMenuByRestaurantId(Long restaurantId, Pageable pageable);
 
 }
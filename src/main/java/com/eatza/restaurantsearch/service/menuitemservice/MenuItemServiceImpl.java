@@ -1,6 +1,5 @@
 package com.eatza.restaurantsearch.service.menuitemservice;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -13,16 +12,19 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.cache.CatalogVersionKeyGenerator;
+import com.eatza.restaurantsearch.cache.NegativeCache;
 import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
 import com.eatza.restaurantsearch.exception.ItemNotFoundException;
 import com.eatza.restaurantsearch.exception.MenuNotSavedException;
-import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
 import com.eatza.restaurantsearch.model.Menu;
 import com.eatza.restaurantsearch.model.MenuItem;
 import com.eatza.restaurantsearch.model.Restaurant;
 import com.eatza.restaurantsearch.repository.MenuItemRepository;
 import com.eatza.restaurantsearch.service.menuservice.MenuService;
-import com.eatza.restaurantsearch.service.restaurantservice.RestaurantService;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
 
 @Service
 public class MenuItemServiceImpl implements MenuItemService {
@@ -37,7 +39,13 @@ public class MenuItemServiceImpl implements MenuItemService {
 	private MenuService menuService;
 
 	@Autowired
-	private RestaurantService restaurantService;
+	private RestaurantIndexService restaurantIndexService;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Autowired
+	private NegativeCache negativeCache;
 
 	@Override
 	public MenuItem saveMenuItem(ItemRequestDto itemDto) {
@@ -47,7 +55,10 @@ public class MenuItemServiceImpl implements MenuItemService {
 		if(menu.isPresent()) {
 			logger.debug("Found correponding menu, saving menu item");
 		MenuItem menuItem = new MenuItem(itemDto.getName(), itemDto.getDescription(), itemDto.getPrice(), menu.get());
-		return menuItemRepository.save(menuItem);
+		MenuItem savedItem = menuItemRepository.save(menuItem);
+		restaurantIndexService.indexItem(savedItem.getId(), savedItem.getName(), savedItem.getDescription(), menu.get().getRestaurant().getId());
+		catalogVersion.bump();
+		return savedItem;
 		}
 		else {
 			logger.debug("Crreponding menu not found");
@@ -56,41 +67,29 @@ public class MenuItemServiceImpl implements MenuItemService {
 	}
 
 	@Override
-	@Cacheable(value="menuitemsbyname")
+	@Cacheable(value="menuitemsbyname", keyGenerator = CatalogVersionKeyGenerator.NAME, sync = true)
 	public List<Restaurant> findByName(String name, int pagenumber, int pagesize) throws ItemNotFoundException   {
 		
+		if(restaurantIndexService.excludesItemName(name)) {
+			logger.debug("No menu item contains the given name, skipping repository");
+			throw new ItemNotFoundException("Items given are not present in any restaurant");
+		}
+		if(negativeCache.isKnownMiss("menuitemsbyname", name, pagenumber, pagesize)) {
+			logger.debug("Item search recently found nothing, skipping repository");
+			throw new ItemNotFoundException("Items given are not present in any restaurant");
+		}
 		logger.debug("In findByName, creating pageable"
 				+ " object for page Number:"+pagenumber+" and page size: "+ pagesize);
 		
 		Pageable pageable = PageRequest.of(pagenumber-1, pagesize);
-		logger.debug("Calling repo to find menu items");
-		Page<MenuItem> menuItems =  menuItemRepository.findByNameContaining(name, pageable);
-		if(menuItems.hasContent()) {
-		List<Restaurant> restaurantsToReturn = new ArrayList<>();
-		for(MenuItem item: menuItems) {
-		
-			
-			
-			Optional<Menu> menu = menuService.getMenuById(item.getMenu().getId());
-			if(menu.isPresent()) {
-				logger.debug("Menu is present calling restaurant service to find restaurant by id");
-				restaurantsToReturn.add(restaurantService.findById(menu.get().getRestaurant().getId()));
-			}
-			else {
-				logger.debug("No restaurants found, something went wrong");
-					throw new RestaurantBadRequestException("No restaurants found, something went wrong");
-			
-			}
-			if(restaurantsToReturn.size()>=pagesize) {
-				
-				break;
-			}
-
-		}
-		return restaurantsToReturn;
+		logger.debug("Calling repo to find restaurants serving matching menu items");
+		List<Restaurant> restaurants = menuItemRepository.findRestaurantsByItemNameContaining(name, pageable);
+		if(!restaurants.isEmpty()) {
+			return restaurants;
 		}
 		else {
 			logger.debug("Items given are not present in any restaurant");
+			negativeCache.recordMiss("menuitemsbyname", name, pagenumber, pagesize);
 			throw new ItemNotFoundException("Items given are not present in any restaurant");
 		}
 
@@ -98,16 +97,50 @@ public class MenuItemServiceImpl implements MenuItemService {
 	}
 
 	@Override
-	@Cacheable(value="menuitems")
+	public List<Restaurant> findByNameFuzzy(String name, int pagenumber, int pagesize) throws ItemNotFoundException {
+		if(!restaurantIndexService.isReady()) {
+			logger.debug("Restaurant index not ready, falling back to exact item search");
+			return findByName(name, pagenumber, pagesize);
+		}
+		logger.debug("In findByNameFuzzy, searching restaurant index");
+		List<Restaurant> restaurantsToReturn = restaurantIndexService.findByItemNameFuzzy(name, PageRequest.of(pagenumber-1, pagesize)).getContent();
+		if(restaurantsToReturn.isEmpty()) {
+			logger.debug("Items given are not present in any restaurant");
+			throw new ItemNotFoundException("Items given are not present in any restaurant");
+		}
+		return restaurantsToReturn;
+	}
+
+	@Override
+	@Cacheable(value="menuitems", unless="#result == null")
 	public Optional<MenuItem> findById(Long id) {
 		return menuItemRepository.findById(id);
 	}
 
 	@Override
-	@Cacheable(value="menuitemsbymenuid")
+	@Cacheable(value="menuitemsbymenuid", keyGenerator = CatalogVersionKeyGenerator.NAME, sync = true)
 	public Page<MenuItem> findByMenuId(Long id, Pageable pageable) {
 		logger.debug("In findByMenuId, calling repository");
 		return menuItemRepository.findByMenu_id(id, pageable);
 	}
 
+	@Override
+	@Cacheable(value="menuitemdtos", unless="#result == null")
+	public Optional<MenuItemDto> findDtoById(Long id) {
+		logger.debug("In findDtoById, calling repository");
+		return menuItemRepository.findDtoById(id);
+	}
+
+	@Override
+	public Page<MenuItemDto> findDtosByRestaurantId(Long restaurantId, Pageable pageable) {
+		logger.debug("In findDtosByRestaurantId, calling repository");
+		return menuItemRepository.findDtosByRestaurantId(restaurantId, pageable);
+	}
+
+	@Override
+	public List<MenuItem> findWithMenuByRestaurantId(Long restaurantId, Pageable pageable) {
+		logger.debug("In findWithMenuByRestaurantId, calling repository");
+		return menuItemRepository.findWithMenuByRestaurantId(restaurantId, pageable);
+	}
+
 }
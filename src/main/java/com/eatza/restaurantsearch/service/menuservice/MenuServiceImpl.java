@@ -26,14 +26,14 @@ public class MenuServiceImpl implements MenuService {
 	}
 
 	@Override
-	@Cacheable(value="menubyid")
+	@Cacheable(value="menubyid", unless="#result == null")
 	public Optional<Menu> getMenuById(Long id) {
 		logger.debug("In get menu by ID method, calling repo");
 		return menuRepository.findById(id);
 	}
 
 	@Override
-	@Cacheable(value="menusbyrestaurantis")
+	@Cacheable(value="menusbyrestaurantis", unless="#result == null")
 	public Menu getMenuByRestaurantId(Long id) {
 		logger.debug("In get menu by restaurant id method, calling repo");
 		return menuRepository.findByRestaurant_id(id);
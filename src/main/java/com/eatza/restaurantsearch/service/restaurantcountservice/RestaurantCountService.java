@@ -0,0 +1,9 @@
+package com.eatza.restaurantsearch.service.restaurantcountservice;
+
+import java.util.function.LongSupplier;
+
+public interface RestaurantCountService {
+
+	long approximateCount(String key, LongSupplier count);
+
+}
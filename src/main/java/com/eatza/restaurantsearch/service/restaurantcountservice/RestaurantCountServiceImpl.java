@@ -0,0 +1,91 @@
+package com.eatza.restaurantsearch.service.restaurantcountservice;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+/**
+ * Per-filter counts served from memory. A count is computed once on first
+ * use, and after it gets older than the refresh interval the stale value keeps
+ * being served while a single background thread recounts it. At most
+ * {@code search.totals.max-entries} filters are kept, evicting the least
+ * useful one at a time as new filters come in.
+ */
+@Service
+public class RestaurantCountServiceImpl implements RestaurantCountService {
+
+	private static final Logger logger = LoggerFactory.getLogger(RestaurantCountServiceImpl.class);
+
+	@Value("${search.totals.refresh-after-ms:60000}")
+	private long refreshAfterMillis;
+
+	@Value("${search.totals.max-entries:10000}")
+	private int maxEntries;
+
+	private Cache<String, CachedCount> counts;
+
+	private final ExecutorService refresher = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "restaurant-count-refresher");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	@PostConstruct
+	public void start() {
+		counts = Caffeine.newBuilder().maximumSize(maxEntries).build();
+	}
+
+	@Override
+	public long approximateCount(String key, LongSupplier count) {
+		CachedCount cached = counts.getIfPresent(key);
+		if (cached == null) {
+			logger.debug("No cached count for {}, counting now", key);
+			cached = new CachedCount(count.getAsLong());
+			counts.put(key, cached);
+			return cached.count;
+		}
+		CachedCount stale = cached;
+		if (System.currentTimeMillis() - stale.countedAt > refreshAfterMillis && stale.refreshing.compareAndSet(false, true)) {
+			logger.debug("Cached count for {} is stale, refreshing in background", key);
+			refresher.execute(() -> {
+				try {
+					counts.put(key, new CachedCount(count.getAsLong()));
+				} catch (RuntimeException e) {
+					logger.debug("Refreshing count for {} failed", key, e);
+					stale.refreshing.set(false);
+				}
+			});
+		}
+		return cached.count;
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		refresher.shutdownNow();
+	}
+
+	private static final class CachedCount {
+
+		private final long count;
+		private final long countedAt = System.currentTimeMillis();
+		private final AtomicBoolean refreshing = new AtomicBoolean();
+
+		CachedCount(long count) {
+			this.count = count;
+		}
+
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.eatza.restaurantsearch.service.restaurantindexservice;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+
+import com.eatza.restaurantsearch.dto.FacetsDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.NearbyRestaurantDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.ScoredRestaurantDto;
+import com.eatza.restaurantsearch.dto.SuggestionDto;
+import com.eatza.restaurantsearch.model.Restaurant;
+
+public interface RestaurantIndexService {
+
+	boolean isReady();
+	void rebuild();
+	void index(Restaurant restaurant);
+	void indexAll(List<Restaurant> restaurants);
+	void indexItem(Long itemId, String itemName, String description, Long restaurantId);
+	void indexItems(List<MenuItemDto> items);
+	boolean excludesItemName(String query);
+
+	Page<Restaurant> findByNameContaining(String name, Pageable pageable);
+	Page<Restaurant> findByBudgetAtMost(int budget, Pageable pageable);
+	Page<Restaurant> findByRatingAtLeast(double rating, Pageable pageable);
+	Page<Restaurant> search(RestaurantSearchCriteria criteria, Pageable pageable);
+	FacetsDto facets(RestaurantSearchCriteria criteria);
+	List<ScoredRestaurantDto> searchText(String query, int limit);
+	List<NearbyRestaurantDto> nearby(double latitude, double longitude, double radiusKm, int limit, RestaurantSearchCriteria criteria);
+
+	Page<Restaurant> findByNameFuzzy(String name, Pageable pageable);
+	Page<Restaurant> findByLocationAndCuisineFuzzy(String location, String cuisine, Pageable pageable);
+	Page<Restaurant> findByLocationAndNameFuzzy(String location, String name, Pageable pageable);
+	Page<Restaurant> findByItemNameFuzzy(String itemName, Pageable pageable);
+
+	List<SuggestionDto> suggest(String prefix, int limit);
+
+}
@@ -0,0 +1,769 @@
+package com.eatza.restaurantsearch.service.restaurantindexservice;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+
+import org.roaringbitmap.FastAggregation;
+import org.roaringbitmap.PeekableIntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.FacetCountDto;
+import com.eatza.restaurantsearch.dto.FacetsDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.NearbyRestaurantDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.ScoredRestaurantDto;
+import com.eatza.restaurantsearch.dto.SuggestionDto;
+import com.eatza.restaurantsearch.exception.IndexNotReadyException;
+import com.eatza.restaurantsearch.index.BitmapIndex;
+import com.eatza.restaurantsearch.index.Bm25Index;
+import com.eatza.restaurantsearch.index.Bm25Index.ScoredDocs;
+import com.eatza.restaurantsearch.index.BkTree;
+import com.eatza.restaurantsearch.index.BloomFilter;
+import com.eatza.restaurantsearch.index.ColumnarRangeIndex;
+import com.eatza.restaurantsearch.index.GeoGrid;
+import com.eatza.restaurantsearch.index.IntList;
+import com.eatza.restaurantsearch.index.PrefixTrie;
+import com.eatza.restaurantsearch.index.Terms;
+import com.eatza.restaurantsearch.index.TrigramIndex;
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.repository.MenuItemRepository;
+import com.eatza.restaurantsearch.repository.MenuItemRepository.ItemRestaurantView;
+import com.eatza.restaurantsearch.repository.RestaurantRepository;
+
+@Service
+public class RestaurantIndexServiceImpl implements RestaurantIndexService {
+
+	private static final Logger logger = LoggerFactory.getLogger(RestaurantIndexServiceImpl.class);
+
+	private static final String RESTAURANT = "restaurant";
+	private static final String LOCATION = "location";
+	private static final String CUISINE = "cuisine";
+	private static final String ITEM = "item";
+	private static final String BUDGET = "budget";
+	private static final String RATING = "rating";
+
+	// Term frequency multipliers per field for free-text ranking
+	private static final int NAME_WEIGHT = 3;
+	private static final int CUISINE_WEIGHT = 2;
+	private static final int LOCATION_WEIGHT = 2;
+	private static final int ITEM_NAME_WEIGHT = 2;
+	private static final int ITEM_DESCRIPTION_WEIGHT = 1;
+
+	private static final int GRAM_LENGTH = 3;
+	private static final Pattern LIKE_SPECIALS = Pattern.compile("[%_\\\\]");
+	// Latin letters left after folding, such as ß, æ or ø, which some collations equate with ASCII letters
+	private static final Pattern UNFOLDED_LATIN = Pattern.compile("[\\p{IsLatin}&&[^\\p{ASCII}]]");
+
+	private static final Comparator<FacetCountDto> BY_COUNT =
+			Comparator.comparingLong(FacetCountDto::getCount).reversed().thenComparing(FacetCountDto::getValue);
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	@Autowired
+	private MenuItemRepository menuItemRepository;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Value("${search.fuzzy.max-distance:2}")
+	private int maxDistance;
+
+	@Value("${search.facets.budget-bands:250,500,1000,2000}")
+	private int[] budgetBands;
+
+	@Value("${search.facets.rating-bands:4.5,4,3.5,3}")
+	private double[] ratingBands;
+
+	@Value("${search.nearby.cell-degrees:0.05}")
+	private double cellDegrees = 0.05;
+
+	@Value("${search.bloom.expected-grams:100000}")
+	private int expectedGrams = 100000;
+
+	@Value("${search.bloom.false-positive-rate:0.01}")
+	private double falsePositiveRate = 0.01;
+
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+	private List<Restaurant> restaurants = new ArrayList<>();
+	private Map<Long, Integer> ordinals = new HashMap<>();
+	private TrigramIndex nameIndex = new TrigramIndex();
+	private ColumnarRangeIndex rangeIndex = new ColumnarRangeIndex();
+	private BitmapIndex locationBitmaps = new BitmapIndex();
+	private BitmapIndex cuisineBitmaps = new BitmapIndex();
+	private GeoGrid geoGrid = new GeoGrid(cellDegrees);
+	private Bm25Index textIndex = new Bm25Index();
+	private BkTree nameTree = new BkTree();
+	private BkTree locationTree = new BkTree();
+	private BkTree cuisineTree = new BkTree();
+	private BkTree itemTree = new BkTree();
+	private BloomFilter itemGrams = new BloomFilter(expectedGrams, falsePositiveRate);
+	private PrefixTrie suggestionTrie = new PrefixTrie();
+	private Map<String, Integer> suggestionIds = new HashMap<>();
+	private List<String> suggestionTexts = new ArrayList<>();
+	private List<String> suggestionTypes = new ArrayList<>();
+
+	// Writes indexed while a rebuild reads its snapshot, replayed into the new structures so the swap keeps them
+	private List<Restaurant> pendingRestaurants;
+	private List<PendingItem> pendingItems;
+
+	private volatile boolean ready;
+
+	// Set once an item name keeps a letter the grams cannot stand in for, until the next rebuild
+	private boolean itemGramsLossy;
+
+	@EventListener(ApplicationStartedEvent.class)
+	public void onApplicationStarted() {
+		rebuild();
+	}
+
+	@Override
+	public boolean isReady() {
+		return ready;
+	}
+
+	// For lookups with no database fallback, whose empty answers would read as an empty catalog and be cached
+	private void requireReady() {
+		if (!ready) {
+			throw new IndexNotReadyException("Search index is still being built, retry later");
+		}
+	}
+
+	@Override
+	public void rebuild() {
+		logger.debug("Rebuilding restaurant index, calling repository");
+		lock.writeLock().lock();
+		try {
+			pendingRestaurants = new ArrayList<>();
+			pendingItems = new ArrayList<>();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		List<Restaurant> all;
+		List<ItemRestaurantView> items;
+		try {
+			all = restaurantRepository.findAll(Sort.by("id"));
+			items = menuItemRepository.findAllItemRestaurants();
+		} catch (RuntimeException e) {
+			lock.writeLock().lock();
+			try {
+				pendingRestaurants = null;
+				pendingItems = null;
+			} finally {
+				lock.writeLock().unlock();
+			}
+			throw e;
+		}
+		lock.writeLock().lock();
+		try {
+			restaurants = new ArrayList<>(all.size());
+			ordinals = new HashMap<>(all.size() * 2);
+			nameIndex = new TrigramIndex();
+			rangeIndex = new ColumnarRangeIndex();
+			locationBitmaps = new BitmapIndex();
+			cuisineBitmaps = new BitmapIndex();
+			geoGrid = new GeoGrid(cellDegrees);
+			textIndex = new Bm25Index();
+			nameTree = new BkTree();
+			locationTree = new BkTree();
+			cuisineTree = new BkTree();
+			itemTree = new BkTree();
+			itemGrams = new BloomFilter(Math.max(expectedGrams, gramCount(items)), falsePositiveRate);
+			itemGramsLossy = false;
+			suggestionTrie = new PrefixTrie();
+			suggestionIds = new HashMap<>();
+			suggestionTexts = new ArrayList<>();
+			suggestionTypes = new ArrayList<>();
+			addAll(all);
+			// Committed after the snapshot was read, or before it but indexed since; only the ids tell which
+			Map<Long, Restaurant> missed = new LinkedHashMap<>();
+			for (Restaurant restaurant : pendingRestaurants) {
+				if (!ordinals.containsKey(restaurant.getId())) {
+					missed.put(restaurant.getId(), restaurant);
+				}
+			}
+			addAll(new ArrayList<>(missed.values()));
+			Set<Long> pendingItemIds = new HashSet<>();
+			for (PendingItem item : pendingItems) {
+				pendingItemIds.add(item.id);
+			}
+			for (ItemRestaurantView item : items) {
+				pendingItemIds.remove(item.getId());
+				addItem(item.getName(), item.getDescription(), item.getRestaurantId());
+			}
+			int replayedItems = 0;
+			for (PendingItem item : pendingItems) {
+				if (item.id == null || pendingItemIds.remove(item.id)) {
+					addItem(item.name, item.description, item.restaurantId);
+					replayedItems++;
+				}
+			}
+			logger.debug("Replayed {} restaurants and {} menu items written during the rebuild", missed.size(), replayedItems);
+			pendingRestaurants = null;
+			pendingItems = null;
+			textIndex.compact();
+			ready = true;
+			// Responses cached or tagged while the index was empty were keyed on the version before this one
+			catalogVersion.bump();
+		} finally {
+			lock.writeLock().unlock();
+		}
+		logger.debug("Restaurant index built with {} restaurants and {} menu items", all.size(), items.size());
+	}
+
+	@Override
+	public void index(Restaurant restaurant) {
+		lock.writeLock().lock();
+		try {
+			if (restaurant.getId() == null) {
+				return;
+			}
+			if (pendingRestaurants != null) {
+				pendingRestaurants.add(restaurant);
+			}
+			if (ordinals.containsKey(restaurant.getId())) {
+				return;
+			}
+			int doc = add(restaurant);
+			rangeIndex.add(doc, restaurant.getBudget(), restaurant.getRating());
+			textIndex.compact();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@Override
+	public void indexAll(List<Restaurant> batch) {
+		lock.writeLock().lock();
+		try {
+			List<Restaurant> added = new ArrayList<>(batch.size());
+			for (Restaurant restaurant : batch) {
+				if (restaurant.getId() == null) {
+					continue;
+				}
+				if (pendingRestaurants != null) {
+					pendingRestaurants.add(restaurant);
+				}
+				if (!ordinals.containsKey(restaurant.getId())) {
+					added.add(restaurant);
+				}
+			}
+			addAll(added);
+			textIndex.compact();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// The range columns are sorted once for the whole batch instead of shifted per restaurant
+	private void addAll(List<Restaurant> batch) {
+		int[] docs = new int[batch.size()];
+		int[] budgets = new int[batch.size()];
+		double[] ratings = new double[batch.size()];
+		for (int i = 0; i < batch.size(); i++) {
+			Restaurant restaurant = batch.get(i);
+			docs[i] = add(restaurant);
+			budgets[i] = restaurant.getBudget();
+			ratings[i] = restaurant.getRating();
+		}
+		rangeIndex.addAll(docs, budgets, ratings, batch.size());
+	}
+
+	// Everything but the range columns, which the callers fill one at a time or in bulk
+	private int add(Restaurant restaurant) {
+		int doc = restaurants.size();
+		restaurants.add(restaurant);
+		ordinals.put(restaurant.getId(), doc);
+		nameIndex.add(doc, restaurant.getName());
+		locationBitmaps.add(doc, restaurant.getLocation());
+		cuisineBitmaps.add(doc, restaurant.getCuisine());
+		textIndex.add(doc, restaurant.getName(), NAME_WEIGHT);
+		textIndex.add(doc, restaurant.getCuisine(), CUISINE_WEIGHT);
+		textIndex.add(doc, restaurant.getLocation(), LOCATION_WEIGHT);
+		if (restaurant.getLatitude() != null && restaurant.getLongitude() != null) {
+			geoGrid.add(doc, restaurant.getLatitude(), restaurant.getLongitude());
+		}
+		nameTree.addText(restaurant.getName(), doc);
+		locationTree.addText(restaurant.getLocation(), doc);
+		cuisineTree.addText(restaurant.getCuisine(), doc);
+		addSuggestion(RESTAURANT, restaurant.getName(), restaurant.getRating());
+		addSuggestion(LOCATION, restaurant.getLocation(), restaurant.getRating());
+		addSuggestion(CUISINE, restaurant.getCuisine(), restaurant.getRating());
+		return doc;
+	}
+
+	@Override
+	public void indexItem(Long itemId, String itemName, String description, Long restaurantId) {
+		lock.writeLock().lock();
+		try {
+			addNewItem(itemId, itemName, description, restaurantId);
+			textIndex.compact();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// One write lock for the batch, so a bulk import does not stall readers once per item
+	@Override
+	public void indexItems(List<MenuItemDto> items) {
+		lock.writeLock().lock();
+		try {
+			for (MenuItemDto item : items) {
+				addNewItem(item.getId(), item.getName(), item.getDescription(), item.getRestaurantId());
+			}
+			textIndex.compact();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void addNewItem(Long itemId, String itemName, String description, Long restaurantId) {
+		if (pendingItems != null) {
+			pendingItems.add(new PendingItem(itemId, itemName, description, restaurantId));
+		}
+		addItem(itemName, description, restaurantId);
+	}
+
+	private void addItem(String itemName, String description, Long restaurantId) {
+		// Added whether or not the restaurant is indexed, so the filter never rules out a stored item
+		addGrams(itemName);
+		Integer doc = ordinals.get(restaurantId);
+		if (doc != null) {
+			itemTree.addText(itemName, doc);
+			textIndex.add(doc, itemName, ITEM_NAME_WEIGHT);
+			textIndex.add(doc, description, ITEM_DESCRIPTION_WEIGHT);
+			addSuggestion(ITEM, itemName, restaurants.get(doc).getRating());
+		}
+	}
+
+	@Override
+	public boolean excludesItemName(String query) {
+		// The item name search is an unescaped LIKE, so wildcards can match text the grams never saw
+		if (!ready || query == null || LIKE_SPECIALS.matcher(query).find()) {
+			return false;
+		}
+		String folded = Terms.fold(query);
+		if (folded.length() < GRAM_LENGTH || UNFOLDED_LATIN.matcher(folded).find()) {
+			return false;
+		}
+		lock.readLock().lock();
+		try {
+			if (itemGramsLossy) {
+				return false;
+			}
+			for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+				if (!itemGrams.mightContain(folded.substring(i, i + GRAM_LENGTH))) {
+					return true;
+				}
+			}
+			return false;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Folded like the query, so an item an accent-insensitive collation matches by substring has every gram of it
+	private void addGrams(String itemName) {
+		if (itemName == null) {
+			return;
+		}
+		String folded = Terms.fold(itemName);
+		if (UNFOLDED_LATIN.matcher(folded).find()) {
+			itemGramsLossy = true;
+		}
+		for (int i = 0; i + GRAM_LENGTH <= folded.length(); i++) {
+			itemGrams.add(folded.substring(i, i + GRAM_LENGTH));
+		}
+	}
+
+	private static int gramCount(List<ItemRestaurantView> items) {
+		int count = 0;
+		for (ItemRestaurantView item : items) {
+			if (item.getName() != null) {
+				count += item.getName().length();
+			}
+		}
+		return count;
+	}
+
+	// Completes on the whole value and on every later word, so "road" also suggests "mg road"
+	private void addSuggestion(String type, String text, double rating) {
+		String normalized = Terms.normalize(text);
+		if (normalized.isEmpty()) {
+			return;
+		}
+		String key = type + ':' + normalized;
+		Integer id = suggestionIds.get(key);
+		if (id == null) {
+			id = suggestionTexts.size();
+			suggestionIds.put(key, id);
+			suggestionTexts.add(text.trim());
+			suggestionTypes.add(type);
+		}
+		suggestionTrie.add(normalized, id, rating);
+		for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+			suggestionTrie.add(normalized.substring(i + 1), id, rating);
+		}
+	}
+
+	@Override
+	public Page<Restaurant> findByNameContaining(String name, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			return toPage(nameIndex.search(name), pageable);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Page<Restaurant> findByBudgetAtMost(int budget, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			IntList docs = rangeIndex.budgetAtMost(budget, pageable.getOffset(), pageable.getPageSize());
+			return toPage(docs, pageable, rangeIndex.countBudgetAtMost(budget));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Page<Restaurant> findByRatingAtLeast(double rating, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			IntList docs = rangeIndex.ratingAtLeast(rating, pageable.getOffset(), pageable.getPageSize());
+			return toPage(docs, pageable, rangeIndex.countRatingAtLeast(rating));
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Page<Restaurant> search(RestaurantSearchCriteria criteria, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			return toPage(filter(criteria, null), pageable);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Each dimension is counted under every filter but its own, so picking one option keeps its siblings visible
+	@Override
+	public FacetsDto facets(RestaurantSearchCriteria criteria) {
+		// There is no database fallback for facet counts, and empty ones would read as an empty catalog
+		if (!ready) {
+			throw new IndexNotReadyException("Search index is still being built, retry later");
+		}
+		lock.readLock().lock();
+		try {
+			Map<String, RoaringBitmap> filters = facetFilters(criteria);
+			List<FacetCountDto> cuisines = new ArrayList<>();
+			cuisineBitmaps.count(filters.get(CUISINE), (value, count) -> cuisines.add(new FacetCountDto(value, count)));
+			List<FacetCountDto> locations = new ArrayList<>();
+			locationBitmaps.count(filters.get(LOCATION), (value, count) -> locations.add(new FacetCountDto(value, count)));
+			cuisines.sort(BY_COUNT);
+			locations.sort(BY_COUNT);
+
+			int[] budgetCounts = rangeIndex.countBudgetAtMost(filters.get(BUDGET), budgetBands);
+			List<FacetCountDto> budgets = new ArrayList<>(budgetBands.length);
+			for (int i = 0; i < budgetBands.length; i++) {
+				budgets.add(new FacetCountDto(String.valueOf(budgetBands[i]), budgetCounts[i]));
+			}
+			int[] ratingCounts = rangeIndex.countRatingAtLeast(filters.get(RATING), ratingBands);
+			List<FacetCountDto> ratings = new ArrayList<>(ratingBands.length);
+			for (int i = 0; i < ratingBands.length; i++) {
+				ratings.add(new FacetCountDto(String.valueOf(ratingBands[i]), ratingCounts[i]));
+			}
+			return new FacetsDto(filters.get(null).getCardinality(), cuisines, locations, budgets, ratings);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<ScoredRestaurantDto> searchText(String query, int limit) {
+		requireReady();
+		lock.readLock().lock();
+		try {
+			ScoredDocs top = textIndex.search(query, limit);
+			List<ScoredRestaurantDto> results = new ArrayList<>(top.size());
+			for (int i = 0; i < top.size(); i++) {
+				results.add(new ScoredRestaurantDto(restaurants.get(top.doc(i)), top.score(i)));
+			}
+			return results;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<NearbyRestaurantDto> nearby(double latitude, double longitude, double radiusKm, int limit, RestaurantSearchCriteria criteria) {
+		requireReady();
+		lock.readLock().lock();
+		try {
+			IntPredicate accepted = null;
+			if (criteria.getBudget() != null || criteria.getRating() != null) {
+				accepted = filter(criteria, null)::contains;
+			}
+			IntList docs = geoGrid.nearest(latitude, longitude, limit, radiusKm, accepted);
+			List<NearbyRestaurantDto> nearby = new ArrayList<>(docs.size());
+			for (int i = 0; i < docs.size(); i++) {
+				int doc = docs.get(i);
+				nearby.add(new NearbyRestaurantDto(restaurants.get(doc), geoGrid.distanceKm(doc, latitude, longitude)));
+			}
+			return nearby;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Intersects the bitmap of every filter that is set, other than the {@code except} dimension; no filters matches every restaurant
+	private RoaringBitmap filter(RestaurantSearchCriteria criteria, String except) {
+		Map<String, RoaringBitmap> filters = filters(criteria);
+		filters.remove(except);
+		if (filters.isEmpty()) {
+			return all();
+		}
+		if (filters.size() == 1) {
+			return filters.values().iterator().next().clone();
+		}
+		return FastAggregation.and(filters.values().iterator());
+	}
+
+	/**
+	 * The intersection of every filter that is set, under the {@code null} key,
+	 * and under each dimension the intersection of all the others. Built from
+	 * running intersections from either end, so each leave-one-out set costs
+	 * one more intersection rather than a fresh pass over every filter.
+	 */
+	private Map<String, RoaringBitmap> facetFilters(RestaurantSearchCriteria criteria) {
+		Map<String, RoaringBitmap> filters = filters(criteria);
+		List<String> dimensions = new ArrayList<>(filters.keySet());
+		List<RoaringBitmap> bitmaps = new ArrayList<>(filters.values());
+		int count = bitmaps.size();
+		RoaringBitmap[] before = new RoaringBitmap[count + 1];
+		RoaringBitmap[] after = new RoaringBitmap[count + 1];
+		before[0] = all();
+		after[count] = before[0];
+		for (int i = 0; i < count; i++) {
+			before[i + 1] = RoaringBitmap.and(before[i], bitmaps.get(i));
+			after[count - i - 1] = RoaringBitmap.and(after[count - i], bitmaps.get(count - i - 1));
+		}
+		Map<String, RoaringBitmap> facetFilters = new HashMap<>();
+		for (String dimension : Arrays.asList(LOCATION, CUISINE, BUDGET, RATING)) {
+			facetFilters.put(dimension, before[count]);
+		}
+		for (int i = 0; i < count; i++) {
+			facetFilters.put(dimensions.get(i), RoaringBitmap.and(before[i], after[i + 1]));
+		}
+		facetFilters.put(null, before[count]);
+		return facetFilters;
+	}
+
+	// The bitmap of each filter that is set, keyed by dimension; shared with the indexes, so never modified
+	private Map<String, RoaringBitmap> filters(RestaurantSearchCriteria criteria) {
+		Map<String, RoaringBitmap> filters = new LinkedHashMap<>();
+		if (criteria.getLocation() != null) {
+			filters.put(LOCATION, locationBitmaps.get(criteria.getLocation()));
+		}
+		if (criteria.getCuisine() != null) {
+			filters.put(CUISINE, cuisineBitmaps.get(criteria.getCuisine()));
+		}
+		if (criteria.getBudget() != null) {
+			filters.put(BUDGET, rangeIndex.budgetAtMostBitmap(criteria.getBudget()));
+		}
+		if (criteria.getRating() != null) {
+			filters.put(RATING, rangeIndex.ratingAtLeastBitmap(criteria.getRating()));
+		}
+		return filters;
+	}
+
+	private RoaringBitmap all() {
+		RoaringBitmap all = new RoaringBitmap();
+		all.add(0L, restaurants.size());
+		return all;
+	}
+
+	@Override
+	public Page<Restaurant> findByNameFuzzy(String name, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			Map<Integer, Integer> distances = new HashMap<>();
+			IntList exact = nameIndex.search(name);
+			for (int i = 0; i < exact.size(); i++) {
+				distances.put(exact.get(i), 0);
+			}
+			nameTree.search(name, maxDistance, distances);
+			return toPage(rank(distances), pageable);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Page<Restaurant> findByLocationAndCuisineFuzzy(String location, String cuisine, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			return toPage(rank(fuzzy(locationTree, location), fuzzy(cuisineTree, cuisine)), pageable);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Page<Restaurant> findByLocationAndNameFuzzy(String location, String name, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			return toPage(rank(fuzzy(locationTree, location), fuzzy(nameTree, name)), pageable);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public Page<Restaurant> findByItemNameFuzzy(String itemName, Pageable pageable) {
+		lock.readLock().lock();
+		try {
+			return toPage(rank(fuzzy(itemTree, itemName)), pageable);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public List<SuggestionDto> suggest(String prefix, int limit) {
+		requireReady();
+		lock.readLock().lock();
+		try {
+			IntList ids = suggestionTrie.complete(Terms.normalize(prefix), limit);
+			List<SuggestionDto> suggestions = new ArrayList<>(ids.size());
+			for (int i = 0; i < ids.size(); i++) {
+				int id = ids.get(i);
+				suggestions.add(new SuggestionDto(suggestionTexts.get(id), suggestionTypes.get(id), suggestionTrie.score(id)));
+			}
+			return suggestions;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private Map<Integer, Integer> fuzzy(BkTree tree, String query) {
+		Map<Integer, Integer> distances = new HashMap<>();
+		tree.search(query, maxDistance, distances);
+		return distances;
+	}
+
+	// Orders documents by edit distance, then by ordinal, packing both into one long sort key
+	private static IntList rank(Map<Integer, Integer> distances) {
+		long[] keys = new long[distances.size()];
+		int n = 0;
+		for (Map.Entry<Integer, Integer> entry : distances.entrySet()) {
+			keys[n++] = ((long) entry.getValue() << 32) | entry.getKey();
+		}
+		return docsOf(keys);
+	}
+
+	// Documents matching both fields rank ahead of those matching one, then by summed distance
+	private static IntList rank(Map<Integer, Integer> first, Map<Integer, Integer> second) {
+		Map<Integer, Integer> union = new HashMap<>(first);
+		second.forEach((doc, distance) -> union.merge(doc, distance, Integer::sum));
+		long[] keys = new long[union.size()];
+		int n = 0;
+		for (Map.Entry<Integer, Integer> entry : union.entrySet()) {
+			int doc = entry.getKey();
+			long single = first.containsKey(doc) && second.containsKey(doc) ? 0 : 1;
+			keys[n++] = (single << 62) | ((long) entry.getValue() << 32) | doc;
+		}
+		return docsOf(keys);
+	}
+
+	private static IntList docsOf(long[] keys) {
+		Arrays.sort(keys);
+		IntList docs = new IntList(keys.length);
+		for (long key : keys) {
+			docs.add((int) key);
+		}
+		return docs;
+	}
+
+	private Page<Restaurant> toPage(IntList docs, Pageable pageable) {
+		long offset = pageable.getOffset();
+		if (offset >= docs.size()) {
+			return new PageImpl<>(Collections.emptyList(), pageable, docs.size());
+		}
+		int end = (int) Math.min(docs.size(), offset + pageable.getPageSize());
+		List<Restaurant> content = new ArrayList<>(end - (int) offset);
+		for (int i = (int) offset; i < end; i++) {
+			content.add(restaurants.get(docs.get(i)));
+		}
+		return new PageImpl<>(content, pageable, docs.size());
+	}
+
+	private Page<Restaurant> toPage(RoaringBitmap docs, Pageable pageable) {
+		int total = docs.getCardinality();
+		if (pageable.getOffset() >= total) {
+			return new PageImpl<>(Collections.emptyList(), pageable, total);
+		}
+		List<Restaurant> content = new ArrayList<>(pageable.getPageSize());
+		PeekableIntIterator iterator = docs.getIntIterator();
+		iterator.advanceIfNeeded(docs.select((int) pageable.getOffset()));
+		while (iterator.hasNext() && content.size() < pageable.getPageSize()) {
+			content.add(restaurants.get(iterator.next()));
+		}
+		return new PageImpl<>(content, pageable, total);
+	}
+
+	// Builds a page from documents that are already the requested slice of {@code total} matches
+	private Page<Restaurant> toPage(IntList page, Pageable pageable, int total) {
+		List<Restaurant> content = new ArrayList<>(page.size());
+		for (int i = 0; i < page.size(); i++) {
+			content.add(restaurants.get(page.get(i)));
+		}
+		return new PageImpl<>(content, pageable, total);
+	}
+
+	private static final class PendingItem {
+
+		final Long id;
+		final String name;
+		final String description;
+		final Long restaurantId;
+
+		PendingItem(Long id, String name, String description, Long restaurantId) {
+			this.id = id;
+			this.name = name;
+			this.description = description;
+			this.restaurantId = restaurantId;
+		}
+
+	}
+
+}
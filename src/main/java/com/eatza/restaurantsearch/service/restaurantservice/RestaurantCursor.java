@@ -0,0 +1,63 @@
+package com.eatza.restaurantsearch.service.restaurantservice;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
+
+/**
+ * Opaque next-page token holding the sort key and id of the last restaurant
+ * returned, so the next page can seek past it instead of counting an offset.
+ */
+final class RestaurantCursor {
+
+	private static final String INVALID_CURSOR_MSG = "Invalid cursor";
+
+	private final String key;
+	private final long id;
+
+	private RestaurantCursor(String key, long id) {
+		this.key = key;
+		this.id = id;
+	}
+
+	static String encode(Object key, long id) {
+		String raw = key + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	/** Null for the first page, which clients request with an empty cursor. */
+	static RestaurantCursor decode(String token) {
+		if (token == null || token.trim().isEmpty()) {
+			return null;
+		}
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token.trim()), StandardCharsets.UTF_8);
+			int separator = raw.lastIndexOf(':');
+			return new RestaurantCursor(raw.substring(0, separator), Long.parseLong(raw.substring(separator + 1)));
+		} catch (IllegalArgumentException | StringIndexOutOfBoundsException e) {
+			throw new RestaurantBadRequestException(INVALID_CURSOR_MSG);
+		}
+	}
+
+	long id() {
+		return id;
+	}
+
+	int intKey() {
+		try {
+			return Integer.parseInt(key);
+		} catch (NumberFormatException e) {
+			throw new RestaurantBadRequestException(INVALID_CURSOR_MSG);
+		}
+	}
+
+	double doubleKey() {
+		try {
+			return Double.parseDouble(key);
+		} catch (NumberFormatException e) {
+			throw new RestaurantBadRequestException(INVALID_CURSOR_MSG);
+		}
+	}
+
+}
@@ -2,8 +2,12 @@ package com.eatza.restaurantsearch.service.restaurantservice;
 
 import java.util.List;
 
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.RestaurantDetailDto;
 import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
 import com.eatza.restaurantsearch.dto.RestaurantResponseDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.TotalsMode;
 import com.eatza.restaurantsearch.model.MenuItem;
 import com.eatza.restaurantsearch.model.Restaurant;
 
@@ -17,7 +21,29 @@ public interface RestaurantService {
 	RestaurantResponseDto findByBudget(int budget, int pageNumber, int pageSize);
 	RestaurantResponseDto findByLocationAndName(String location, String name, int pageNumber, int pageSize);
 	RestaurantResponseDto findByRating(double rating,int pageNumber, int pageSize);
+	RestaurantResponseDto findByNameFuzzy(String name, int pageNumber, int pageSize);
+	RestaurantResponseDto findByLocationAndCuisineFuzzy(String location, String cuisine, int pageNumber, int pageSize);
+	RestaurantResponseDto findByLocationAndNameFuzzy(String location, String name, int pageNumber, int pageSize);
+	RestaurantResponseDto search(RestaurantSearchCriteria criteria, int pageNumber, int pageSize);
+
+	RestaurantResponseDto findAllRestaurants(int pageNumber, int pageSize, TotalsMode totals);
+	RestaurantResponseDto findByName(String name, int pageNumber, int pageSize, TotalsMode totals);
+	RestaurantResponseDto findByLocationAndCuisine(String location, String cuisine, int pageNumber, int pageSize, TotalsMode totals);
+	RestaurantResponseDto findByLocationAndName(String location, String name, int pageNumber, int pageSize, TotalsMode totals);
+	RestaurantResponseDto findByBudget(int budget, int pageNumber, int pageSize, TotalsMode totals);
+	RestaurantResponseDto findByRating(double rating, int pageNumber, int pageSize, TotalsMode totals);
+	RestaurantResponseDto search(RestaurantSearchCriteria criteria, int pageNumber, int pageSize, TotalsMode totals);
+
+	RestaurantResponseDto findAllRestaurantsAfter(String cursor, int pageSize);
+	RestaurantResponseDto findByNameAfter(String name, String cursor, int pageSize);
+	RestaurantResponseDto findByLocationAndCuisineAfter(String location, String cuisine, String cursor, int pageSize);
+	RestaurantResponseDto findByLocationAndNameAfter(String location, String name, String cursor, int pageSize);
+	RestaurantResponseDto findByBudgetAfter(int budget, String cursor, int pageSize);
+	RestaurantResponseDto findByRatingAfter(double rating, String cursor, int pageSize);
+	RestaurantResponseDto searchAfter(RestaurantSearchCriteria criteria, String cursor, int pageSize);
+
 	Restaurant findById(Long id)  ;
-	List<MenuItem> findMenuItemByRestaurantId(Long restaurantId, int pageNumber, int pageSize);
+	List<MenuItemDto> findMenuItemByRestaurantId(Long restaurantId, int pageNumber, int pageSize);
+	RestaurantDetailDto findDetailById(Long id, int pageNumber, int pageSize);
 
 }
@@ -2,6 +2,8 @@ package com.eatza.restaurantsearch.service.restaurantservice;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 
 import org.slf4j.Logger;
@@ -11,17 +13,29 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.cache.CatalogVersionKeyGenerator;
+import com.eatza.restaurantsearch.cache.NegativeCache;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.RestaurantDetailDto;
 import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
 import com.eatza.restaurantsearch.dto.RestaurantResponseDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.TotalsMode;
 import com.eatza.restaurantsearch.exception.RestaurantNotFoundException;
 import com.eatza.restaurantsearch.model.Menu;
 import com.eatza.restaurantsearch.model.MenuItem;
 import com.eatza.restaurantsearch.model.Restaurant;
 import com.eatza.restaurantsearch.repository.RestaurantRepository;
+import com.eatza.restaurantsearch.repository.RestaurantRepository.RankedRestaurant;
 import com.eatza.restaurantsearch.service.menuitemservice.MenuItemService;
 import com.eatza.restaurantsearch.service.menuservice.MenuService;
+import com.eatza.restaurantsearch.service.restaurantcountservice.RestaurantCountService;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
 
 @Service
 public class RestaurantServiceImpl implements RestaurantService {
@@ -37,9 +51,21 @@ public class RestaurantServiceImpl implements RestaurantService {
 	@Autowired 
 	MenuItemService menuItemService;
 
+	@Autowired
+	private RestaurantIndexService restaurantIndexService;
+
+	@Autowired
+	private RestaurantCountService restaurantCountService;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Autowired
+	private NegativeCache negativeCache;
+
 
 	@Override
-	@Cacheable(value="allrestaurants")
+	@Cacheable(value="allrestaurants", keyGenerator = CatalogVersionKeyGenerator.NAME, sync = true)
 	public RestaurantResponseDto findAllRestaurants(int pageNumber, int pageSize) {
 		
 		logger.debug("In find all restaurants, creating pageable"
@@ -59,37 +85,45 @@ public class RestaurantServiceImpl implements RestaurantService {
 		logger.debug("In saveRestaurant, creating object of restaurant to save");
 		Restaurant restaurant = new Restaurant(restaurantDto.getName(), restaurantDto.getLocation(),
 				restaurantDto.getCuisine(), restaurantDto.getBudget(), restaurantDto.getRating());
+		restaurant.setLatitude(restaurantDto.getLatitude());
+		restaurant.setLongitude(restaurantDto.getLongitude());
 		logger.debug("calling repository save restaurant method");
 		Restaurant savedRestaurant =restaurantRepository.save(restaurant);
 		Menu menu = new Menu(restaurantDto.getActiveFrom(), restaurantDto.getActiveTill(), savedRestaurant);
 		menuService.saveMenu(menu);
+		restaurantIndexService.index(savedRestaurant);
+		catalogVersion.bump();
 		return savedRestaurant;
 
 	}
 
 
 	@Override
-	@Cacheable(value="restaurantbyname")
 	public RestaurantResponseDto findByName(String name, int pageNumber, int pageSize) {
 		logger.debug("In findByName, creating pageable"
 				+ " object for page Number:"+pageNumber+" and page size: "+ pageSize);
 		Pageable pageable = PageRequest.of(pageNumber-1, pageSize);
-		Page<Restaurant> contentPage = restaurantRepository.findByNameContaining(name, pageable);
+		Page<Restaurant> contentPage;
+		if(restaurantIndexService.isReady()) {
+			logger.debug("Searching restaurant name index");
+			contentPage = restaurantIndexService.findByNameContaining(name, pageable);
+		}
+		else {
+			logger.debug("Restaurant index not ready, calling repository");
+			contentPage = restaurantRepository.findByNameContaining(name, pageable);
+		}
 		List<Restaurant> restaurantsToReturn = contentPage.getContent();
 		return new RestaurantResponseDto(restaurantsToReturn, contentPage.getTotalPages(), contentPage.getTotalElements());
 	}
 
 
 	@Override
-	@Cacheable(value="restaurantbylocandcuisine")
+	@Cacheable(value="restaurantbylocandcuisine", keyGenerator = CatalogVersionKeyGenerator.NAME, sync = true)
 	public RestaurantResponseDto findByLocationAndCuisine(String location, String cuisine, int pageNumber, int pageSize) {
 		logger.debug("In findByLocationAndCuisine, creating pageable"
 				+ " object for page Number:"+pageNumber+" and page size: "+ pageSize);
 		Pageable pageable = PageRequest.of(pageNumber-1, pageSize);
-		Page<Restaurant> contentPage = restaurantRepository.findByLocationContainingAndCuisineContaining(location, cuisine, pageable );
-		if(contentPage.isEmpty()) {
-			contentPage = restaurantRepository.findByLocationContainingOrCuisineContaining(location, cuisine, pageable);
-		}
+		Page<Restaurant> contentPage = restaurantRepository.findRankedByLocationOrCuisine(location, cuisine, pageable);
 
 		List<Restaurant> restaurantsToReturn = contentPage.getContent();
 		return new RestaurantResponseDto(restaurantsToReturn, contentPage.getTotalPages(), contentPage.getTotalElements());
@@ -98,15 +132,12 @@ public class RestaurantServiceImpl implements RestaurantService {
 	}
 
 	@Override
-	@Cacheable(value="restaurantbylocationandname")
+	@Cacheable(value="restaurantbylocationandname", keyGenerator = CatalogVersionKeyGenerator.NAME, sync = true)
 	public RestaurantResponseDto findByLocationAndName(String location, String name,int pageNumber, int pageSize) {
 		logger.debug("In findByLocationAndName, creating pageable"
 				+ " object for page Number:"+pageNumber+" and page size: "+ pageSize);
 		Pageable pageable = PageRequest.of(pageNumber-1, pageSize);
-		Page<Restaurant> contentPage = restaurantRepository.findByLocationContainingAndNameContaining(location, name, pageable);
-		if(contentPage.isEmpty()) {
-			contentPage = restaurantRepository.findByLocationContainingOrNameContaining(location, name, pageable);
-		}
+		Page<Restaurant> contentPage = restaurantRepository.findRankedByLocationOrName(location, name, pageable);
 
 		List<Restaurant> restaurantsToReturn = contentPage.getContent();
 		return new RestaurantResponseDto(restaurantsToReturn, contentPage.getTotalPages(), contentPage.getTotalElements());
@@ -115,12 +146,19 @@ public class RestaurantServiceImpl implements RestaurantService {
 	}
 
 	@Override
-	@Cacheable(value="restaurantbybudget")
 	public RestaurantResponseDto findByBudget(int budget,int pageNumber, int pageSize){
 		logger.debug("In findByBudget, creating pageable"
 				+ " object for page Number:"+pageNumber+" and page size: "+ pageSize);
-		Pageable pageable = PageRequest.of(pageNumber-1, pageSize);
-		Page<Restaurant> contentPage = restaurantRepository.findByBudgetLessThanEqual(budget, pageable);
+		Page<Restaurant> contentPage;
+		if(restaurantIndexService.isReady()) {
+			logger.debug("Searching restaurant budget column");
+			contentPage = restaurantIndexService.findByBudgetAtMost(budget, PageRequest.of(pageNumber-1, pageSize));
+		}
+		else {
+			logger.debug("Restaurant index not ready, calling repository");
+			Pageable pageable = PageRequest.of(pageNumber-1, pageSize, Sort.by("budget").and(Sort.by("id")));
+			contentPage = restaurantRepository.findByBudgetLessThanEqual(budget, pageable);
+		}
 		List<Restaurant> restaurantsToReturn = contentPage.getContent();
 		return new RestaurantResponseDto(restaurantsToReturn, contentPage.getTotalPages(), contentPage.getTotalElements());
 		
@@ -128,12 +166,19 @@ public class RestaurantServiceImpl implements RestaurantService {
 	}
 
 	@Override
-	@Cacheable(value="restaurantbyrating")
 	public RestaurantResponseDto findByRating(double rating, int pageNumber, int pageSize){
 		logger.debug("In findByRating, creating pageable"
 				+ " object for page Number:"+pageNumber+" and page size: "+ pageSize);
-		Pageable pageable = PageRequest.of(pageNumber-1, pageSize);
-		Page<Restaurant> contentPage = restaurantRepository.findByRatingGreaterThanEqual(rating, pageable);
+		Page<Restaurant> contentPage;
+		if(restaurantIndexService.isReady()) {
+			logger.debug("Searching restaurant rating column");
+			contentPage = restaurantIndexService.findByRatingAtLeast(rating, PageRequest.of(pageNumber-1, pageSize));
+		}
+		else {
+			logger.debug("Restaurant index not ready, calling repository");
+			Pageable pageable = PageRequest.of(pageNumber-1, pageSize, Sort.by(Sort.Direction.DESC, "rating").and(Sort.by("id")));
+			contentPage = restaurantRepository.findByRatingGreaterThanEqual(rating, pageable);
+		}
 		List<Restaurant> restaurantsToReturn = contentPage.getContent();
 		return new RestaurantResponseDto(restaurantsToReturn, contentPage.getTotalPages(), contentPage.getTotalElements());
 		
@@ -142,8 +187,258 @@ public class RestaurantServiceImpl implements RestaurantService {
 
 
 	@Override
-	@Cacheable(value="restaurantbyid")
+	public RestaurantResponseDto findByNameFuzzy(String name, int pageNumber, int pageSize) {
+		if(!restaurantIndexService.isReady()) {
+			logger.debug("Restaurant index not ready, falling back to exact name search");
+			return findByName(name, pageNumber, pageSize);
+		}
+		logger.debug("In findByNameFuzzy, searching restaurant index");
+		Page<Restaurant> contentPage = restaurantIndexService.findByNameFuzzy(name, PageRequest.of(pageNumber-1, pageSize));
+		return new RestaurantResponseDto(contentPage.getContent(), contentPage.getTotalPages(), contentPage.getTotalElements());
+	}
+
+	@Override
+	public RestaurantResponseDto findByLocationAndCuisineFuzzy(String location, String cuisine, int pageNumber, int pageSize) {
+		if(!restaurantIndexService.isReady()) {
+			logger.debug("Restaurant index not ready, falling back to exact location and cuisine search");
+			return findByLocationAndCuisine(location, cuisine, pageNumber, pageSize);
+		}
+		logger.debug("In findByLocationAndCuisineFuzzy, searching restaurant index");
+		Page<Restaurant> contentPage = restaurantIndexService.findByLocationAndCuisineFuzzy(location, cuisine, PageRequest.of(pageNumber-1, pageSize));
+		return new RestaurantResponseDto(contentPage.getContent(), contentPage.getTotalPages(), contentPage.getTotalElements());
+	}
+
+	@Override
+	public RestaurantResponseDto findByLocationAndNameFuzzy(String location, String name, int pageNumber, int pageSize) {
+		if(!restaurantIndexService.isReady()) {
+			logger.debug("Restaurant index not ready, falling back to exact location and name search");
+			return findByLocationAndName(location, name, pageNumber, pageSize);
+		}
+		logger.debug("In findByLocationAndNameFuzzy, searching restaurant index");
+		Page<Restaurant> contentPage = restaurantIndexService.findByLocationAndNameFuzzy(location, name, PageRequest.of(pageNumber-1, pageSize));
+		return new RestaurantResponseDto(contentPage.getContent(), contentPage.getTotalPages(), contentPage.getTotalElements());
+	}
+
+
+	@Override
+	public RestaurantResponseDto search(RestaurantSearchCriteria criteria, int pageNumber, int pageSize) {
+		logger.debug("In search, creating pageable"
+				+ " object for page Number:"+pageNumber+" and page size: "+ pageSize);
+		Pageable pageable = PageRequest.of(pageNumber-1, pageSize);
+		Page<Restaurant> contentPage;
+		if(restaurantIndexService.isReady()) {
+			logger.debug("Evaluating filters against restaurant bitmaps");
+			contentPage = restaurantIndexService.search(criteria, pageable);
+		}
+		else {
+			logger.debug("Restaurant index not ready, calling repository");
+			contentPage = restaurantRepository.search(criteria.getLocation(), criteria.getCuisine(),
+					criteria.getBudget(), criteria.getRating(), pageable);
+		}
+		return new RestaurantResponseDto(contentPage.getContent(), contentPage.getTotalPages(), contentPage.getTotalElements());
+	}
+
+
+	@Override
+	public RestaurantResponseDto findAllRestaurants(int pageNumber, int pageSize, TotalsMode totals) {
+		if(totals == TotalsMode.EXACT) {
+			return findAllRestaurants(pageNumber, pageSize);
+		}
+		logger.debug("In findAllRestaurants, reading a slice without counting, totals: "+ totals);
+		Slice<Restaurant> slice = restaurantRepository.findAfter(0, PageRequest.of(pageNumber-1, pageSize));
+		return withTotals(totals, slice, "all", restaurantRepository::count);
+	}
+
+	@Override
+	public RestaurantResponseDto findByName(String name, int pageNumber, int pageSize, TotalsMode totals) {
+		if(totals == TotalsMode.EXACT || restaurantIndexService.isReady()) {
+			return withoutTotals(findByName(name, pageNumber, pageSize), totals, pageNumber);
+		}
+		logger.debug("In findByName, reading a slice without counting, totals: "+ totals);
+		Slice<Restaurant> slice = restaurantRepository.findByNameContainingAfter(name, 0, PageRequest.of(pageNumber-1, pageSize));
+		return withTotals(totals, slice, "name:" + name, () -> restaurantRepository.countByNameContaining(name));
+	}
+
+	@Override
+	public RestaurantResponseDto findByLocationAndCuisine(String location, String cuisine, int pageNumber, int pageSize, TotalsMode totals) {
+		if(totals == TotalsMode.EXACT) {
+			return findByLocationAndCuisine(location, cuisine, pageNumber, pageSize);
+		}
+		logger.debug("In findByLocationAndCuisine, reading a slice without counting, totals: "+ totals);
+		Slice<Restaurant> slice = restaurantRepository.findRankedByLocationOrCuisineAfter(location, cuisine, -1, 0,
+				PageRequest.of(pageNumber-1, pageSize)).map(RankedRestaurant::getRestaurant);
+		return withTotals(totals, slice, "location:" + location + "/cuisine:" + cuisine,
+				() -> restaurantRepository.countByLocationOrCuisine(location, cuisine));
+	}
+
+	@Override
+	public RestaurantResponseDto findByLocationAndName(String location, String name, int pageNumber, int pageSize, TotalsMode totals) {
+		if(totals == TotalsMode.EXACT) {
+			return findByLocationAndName(location, name, pageNumber, pageSize);
+		}
+		logger.debug("In findByLocationAndName, reading a slice without counting, totals: "+ totals);
+		Slice<Restaurant> slice = restaurantRepository.findRankedByLocationOrNameAfter(location, name, -1, 0,
+				PageRequest.of(pageNumber-1, pageSize)).map(RankedRestaurant::getRestaurant);
+		return withTotals(totals, slice, "location:" + location + "/name:" + name,
+				() -> restaurantRepository.countByLocationOrName(location, name));
+	}
+
+	@Override
+	public RestaurantResponseDto findByBudget(int budget, int pageNumber, int pageSize, TotalsMode totals) {
+		if(totals == TotalsMode.EXACT || restaurantIndexService.isReady()) {
+			return withoutTotals(findByBudget(budget, pageNumber, pageSize), totals, pageNumber);
+		}
+		logger.debug("In findByBudget, reading a slice without counting, totals: "+ totals);
+		Slice<Restaurant> slice = restaurantRepository.findByBudgetAtMostAfter(budget, Integer.MIN_VALUE, 0,
+				PageRequest.of(pageNumber-1, pageSize));
+		return withTotals(totals, slice, "budget:" + budget, () -> restaurantRepository.countByBudgetLessThanEqual(budget));
+	}
+
+	@Override
+	public RestaurantResponseDto findByRating(double rating, int pageNumber, int pageSize, TotalsMode totals) {
+		if(totals == TotalsMode.EXACT || restaurantIndexService.isReady()) {
+			return withoutTotals(findByRating(rating, pageNumber, pageSize), totals, pageNumber);
+		}
+		logger.debug("In findByRating, reading a slice without counting, totals: "+ totals);
+		Slice<Restaurant> slice = restaurantRepository.findByRatingAtLeastAfter(rating, Double.MAX_VALUE, 0,
+				PageRequest.of(pageNumber-1, pageSize));
+		return withTotals(totals, slice, "rating:" + rating, () -> restaurantRepository.countByRatingGreaterThanEqual(rating));
+	}
+
+	@Override
+	public RestaurantResponseDto search(RestaurantSearchCriteria criteria, int pageNumber, int pageSize, TotalsMode totals) {
+		if(totals == TotalsMode.EXACT || restaurantIndexService.isReady()) {
+			return withoutTotals(search(criteria, pageNumber, pageSize), totals, pageNumber);
+		}
+		logger.debug("In search, reading a slice without counting, totals: "+ totals);
+		Slice<Restaurant> slice = restaurantRepository.searchAfter(criteria.getLocation(), criteria.getCuisine(),
+				criteria.getBudget(), criteria.getRating(), 0, PageRequest.of(pageNumber-1, pageSize));
+		return withTotals(totals, slice, "search:" + criteria.getLocation() + "/" + criteria.getCuisine()
+				+ "/" + criteria.getBudget() + "/" + criteria.getRating(),
+				() -> restaurantRepository.countSearch(criteria.getLocation(), criteria.getCuisine(),
+						criteria.getBudget(), criteria.getRating()));
+	}
+
+	// The index counts for free, so its exact totals are kept for approximate and only dropped for none
+	private static RestaurantResponseDto withoutTotals(RestaurantResponseDto response, TotalsMode totals, int pageNumber) {
+		if(totals != TotalsMode.EXACT) {
+			response.setHasNext(pageNumber < response.getTotalPages());
+		}
+		if(totals == TotalsMode.NONE) {
+			response.setTotalPages(null);
+			response.setTotalElements(null);
+		}
+		return response;
+	}
+
+	private RestaurantResponseDto withTotals(TotalsMode totals, Slice<Restaurant> slice, String countKey, LongSupplier count) {
+		RestaurantResponseDto response = new RestaurantResponseDto(slice.getContent(), slice.hasNext());
+		if(totals != TotalsMode.APPROXIMATE) {
+			return response;
+		}
+		// A stale count can never be allowed to contradict the page just read
+		long seen = slice.getPageable().getOffset() + slice.getNumberOfElements();
+		long total;
+		if(!slice.hasNext() && slice.hasContent()) {
+			total = seen;
+		}
+		else {
+			total = Math.max(restaurantCountService.approximateCount(countKey, count), slice.hasNext() ? seen + 1 : seen);
+		}
+		response.setTotalElements(total);
+		response.setTotalPages((int) ((total + slice.getSize() - 1) / slice.getSize()));
+		return response;
+	}
+
+
+	@Override
+	public RestaurantResponseDto findAllRestaurantsAfter(String cursor, int pageSize) {
+		logger.debug("In findAllRestaurantsAfter, seeking past cursor with page size: "+ pageSize);
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+		Slice<Restaurant> slice = restaurantRepository.findAfter(after == null ? 0 : after.id(), PageRequest.of(0, pageSize));
+		return toResponse(slice, restaurant -> "");
+	}
+
+	@Override
+	public RestaurantResponseDto findByNameAfter(String name, String cursor, int pageSize) {
+		logger.debug("In findByNameAfter, seeking past cursor with page size: "+ pageSize);
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+		Slice<Restaurant> slice = restaurantRepository.findByNameContainingAfter(name, after == null ? 0 : after.id(), PageRequest.of(0, pageSize));
+		return toResponse(slice, restaurant -> "");
+	}
+
+	@Override
+	public RestaurantResponseDto findByLocationAndCuisineAfter(String location, String cuisine, String cursor, int pageSize) {
+		logger.debug("In findByLocationAndCuisineAfter, seeking past cursor with page size: "+ pageSize);
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+		Slice<RankedRestaurant> slice = restaurantRepository.findRankedByLocationOrCuisineAfter(location, cuisine,
+				after == null ? -1 : after.intKey(), after == null ? 0 : after.id(), PageRequest.of(0, pageSize));
+		return toRankedResponse(slice);
+	}
+
+	@Override
+	public RestaurantResponseDto findByLocationAndNameAfter(String location, String name, String cursor, int pageSize) {
+		logger.debug("In findByLocationAndNameAfter, seeking past cursor with page size: "+ pageSize);
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+		Slice<RankedRestaurant> slice = restaurantRepository.findRankedByLocationOrNameAfter(location, name,
+				after == null ? -1 : after.intKey(), after == null ? 0 : after.id(), PageRequest.of(0, pageSize));
+		return toRankedResponse(slice);
+	}
+
+	@Override
+	public RestaurantResponseDto findByBudgetAfter(int budget, String cursor, int pageSize) {
+		logger.debug("In findByBudgetAfter, seeking past cursor with page size: "+ pageSize);
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+		Slice<Restaurant> slice = restaurantRepository.findByBudgetAtMostAfter(budget,
+				after == null ? Integer.MIN_VALUE : after.intKey(), after == null ? 0 : after.id(), PageRequest.of(0, pageSize));
+		return toResponse(slice, Restaurant::getBudget);
+	}
+
+	@Override
+	public RestaurantResponseDto findByRatingAfter(double rating, String cursor, int pageSize) {
+		logger.debug("In findByRatingAfter, seeking past cursor with page size: "+ pageSize);
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+		Slice<Restaurant> slice = restaurantRepository.findByRatingAtLeastAfter(rating,
+				after == null ? Double.MAX_VALUE : after.doubleKey(), after == null ? 0 : after.id(), PageRequest.of(0, pageSize));
+		return toResponse(slice, Restaurant::getRating);
+	}
+
+	@Override
+	public RestaurantResponseDto searchAfter(RestaurantSearchCriteria criteria, String cursor, int pageSize) {
+		logger.debug("In searchAfter, seeking past cursor with page size: "+ pageSize);
+		RestaurantCursor after = RestaurantCursor.decode(cursor);
+		Slice<Restaurant> slice = restaurantRepository.searchAfter(criteria.getLocation(), criteria.getCuisine(),
+				criteria.getBudget(), criteria.getRating(), after == null ? 0 : after.id(), PageRequest.of(0, pageSize));
+		return toResponse(slice, restaurant -> "");
+	}
+
+	private static RestaurantResponseDto toResponse(Slice<Restaurant> slice, Function<Restaurant, Object> sortKey) {
+		String nextCursor = null;
+		if (slice.hasNext()) {
+			Restaurant last = slice.getContent().get(slice.getNumberOfElements() - 1);
+			nextCursor = RestaurantCursor.encode(sortKey.apply(last), last.getId());
+		}
+		return new RestaurantResponseDto(slice.getContent(), nextCursor);
+	}
+
+	// The rank comes from the query itself, so it agrees with the database's collation and LIKE wildcards
+	private static RestaurantResponseDto toRankedResponse(Slice<RankedRestaurant> slice) {
+		String nextCursor = null;
+		if (slice.hasNext()) {
+			RankedRestaurant last = slice.getContent().get(slice.getNumberOfElements() - 1);
+			nextCursor = RestaurantCursor.encode(last.getRank(), last.getRestaurant().getId());
+		}
+		return new RestaurantResponseDto(slice.map(RankedRestaurant::getRestaurant).getContent(), nextCursor);
+	}
+
+
+	@Override
+	@Cacheable(value="restaurantbyid", sync = true)
 	public Restaurant findById(Long id) {
+		if(negativeCache.isKnownMiss("restaurantbyid", id)) {
+			logger.debug("Restaurant id recently found nothing, skipping repository");
+			throw new RestaurantNotFoundException("No restaurant found for given Id");
+		}
 		logger.debug("In find by id method, calling repository");
 		Optional<Restaurant> optionalRestaurant= restaurantRepository.findById(id);
 		if(optionalRestaurant.isPresent()) {
@@ -151,6 +446,7 @@ public class RestaurantServiceImpl implements RestaurantService {
 		}
 		else {
 			logger.debug("No restaurant found for given Id");
+			negativeCache.recordMiss("restaurantbyid", id);
 			throw new RestaurantNotFoundException("No restaurant found for given Id");
 		}
 
@@ -158,15 +454,39 @@ public class RestaurantServiceImpl implements RestaurantService {
 
 
 	@Override
-	public List<MenuItem> findMenuItemByRestaurantId(Long restaurantId , int pageNumber, int pageSize) {
+	public List<MenuItemDto> findMenuItemByRestaurantId(Long restaurantId , int pageNumber, int pageSize) {
 		Pageable pageable = PageRequest.of(pageNumber-1, pageSize);
-		Menu menu = menuService.getMenuByRestaurantId(restaurantId);
-		Page<MenuItem> menuItemsToReturn = menuItemService.findByMenuId(menu.getId(),pageable);
+		Page<MenuItemDto> menuItemsToReturn = menuItemService.findDtosByRestaurantId(restaurantId, pageable);
 		if(menuItemsToReturn.hasContent()) {
-			return menuItemsToReturn.get().collect(Collectors.toList());
+			return menuItemsToReturn.getContent();
 		}
 		else {
 			throw new RestaurantNotFoundException("No items found for given restaurant ");
 		}
 	}
+
+
+	@Override
+	public RestaurantDetailDto findDetailById(Long id, int pageNumber, int pageSize) {
+		logger.debug("In findDetailById, loading items with their menu and restaurant");
+		List<MenuItem> items = menuItemService.findWithMenuByRestaurantId(id, PageRequest.of(pageNumber-1, pageSize));
+		Menu menu;
+		Restaurant restaurant;
+		if(!items.isEmpty()) {
+			menu = items.get(0).getMenu();
+			restaurant = menu.getRestaurant();
+		}
+		else {
+			// No menu, no items, or a page past the last item: the join returned nothing to read these from.
+			// The menu's restaurant is a lazy reference here, so the restaurant is loaded on its own.
+			logger.debug("No items on this page, calling restaurant and menu lookups");
+			restaurant = findById(id);
+			menu = menuService.getMenuByRestaurantId(id);
+		}
+		List<MenuItemDto> itemDtos = items.stream()
+				.map(item -> new MenuItemDto(item.getId(), item.getName(), item.getDescription(), item.getPrice()))
+				.collect(Collectors.toList());
+		return new RestaurantDetailDto(restaurant, menu != null ? menu.getActiveFrom() : null,
+				menu != null ? menu.getActiveTill() : null, itemDtos);
+	}
 }
@@ -0,0 +1,21 @@
+package com.eatza.restaurantsearch.service.restaurantstreamservice;
+
+import java.util.function.Consumer;
+
+import com.eatza.restaurantsearch.model.Restaurant;
+
+public interface RestaurantStreamService {
+
+	long streamAll(Consumer<Restaurant> action);
+
+	long streamByName(String name, Consumer<Restaurant> action);
+
+	long streamByBudget(int budget, Consumer<Restaurant> action);
+
+	long streamByRating(double rating, Consumer<Restaurant> action);
+
+	long streamByLocationAndCuisine(String location, String cuisine, Consumer<Restaurant> action);
+
+	long streamByLocationAndName(String location, String name, Consumer<Restaurant> action);
+
+}
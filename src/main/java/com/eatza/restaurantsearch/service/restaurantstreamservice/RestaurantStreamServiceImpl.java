@@ -0,0 +1,93 @@
+package com.eatza.restaurantsearch.service.restaurantstreamservice;
+
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.repository.RestaurantRepository;
+
+/**
+ * Hands every restaurant matching a listing query to the caller one row at a
+ * time, without paging. Rows come from a database cursor inside a read-only
+ * transaction and are detached once handed over, so neither the result list
+ * nor the persistence context grows with the size of the result.
+ */
+@Service
+public class RestaurantStreamServiceImpl implements RestaurantStreamService {
+
+	private static final Logger logger = LoggerFactory.getLogger(RestaurantStreamServiceImpl.class);
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	@Transactional(readOnly = true)
+	public long streamAll(Consumer<Restaurant> action) {
+		logger.debug("Streaming all restaurants");
+		return forEach(restaurantRepository.streamAll(), action);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long streamByName(String name, Consumer<Restaurant> action) {
+		logger.debug("Streaming restaurants by name");
+		return forEach(restaurantRepository.streamByNameContaining(name), action);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long streamByBudget(int budget, Consumer<Restaurant> action) {
+		logger.debug("Streaming restaurants by budget");
+		return forEach(restaurantRepository.streamByBudgetAtMost(budget), action);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long streamByRating(double rating, Consumer<Restaurant> action) {
+		logger.debug("Streaming restaurants by rating");
+		return forEach(restaurantRepository.streamByRatingAtLeast(rating), action);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long streamByLocationAndCuisine(String location, String cuisine, Consumer<Restaurant> action) {
+		logger.debug("Streaming restaurants by location and cuisine");
+		return forEach(restaurantRepository.streamRankedByLocationOrCuisine(location, cuisine), action);
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public long streamByLocationAndName(String location, String name, Consumer<Restaurant> action) {
+		logger.debug("Streaming restaurants by location and name");
+		return forEach(restaurantRepository.streamRankedByLocationOrName(location, name), action);
+	}
+
+	private long forEach(Stream<Restaurant> restaurants, Consumer<Restaurant> action) {
+		long count = 0;
+		try (Stream<Restaurant> rows = restaurants) {
+			Iterator<Restaurant> iterator = rows.iterator();
+			while (iterator.hasNext()) {
+				Restaurant restaurant = iterator.next();
+				action.accept(restaurant);
+				entityManager.detach(restaurant);
+				count++;
+			}
+		}
+		logger.debug("Streamed {} restaurants", count);
+		return count;
+	}
+
+}
@@ -0,0 +1,17 @@
+package com.eatza.restaurantsearch.service.writebehindservice;
+
+import java.util.Optional;
+
+import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
+import com.eatza.restaurantsearch.dto.WriteStatusDto;
+
+public interface WriteBehindService {
+
+	WriteStatusDto submitRestaurant(RestaurantRequestDto restaurantDto);
+
+	WriteStatusDto submitMenuItem(ItemRequestDto itemDto);
+
+	Optional<WriteStatusDto> getStatus(String id);
+
+}
@@ -0,0 +1,346 @@
+package com.eatza.restaurantsearch.service.writebehindservice;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
+import com.eatza.restaurantsearch.dto.WriteState;
+import com.eatza.restaurantsearch.dto.WriteStatusDto;
+import com.eatza.restaurantsearch.exception.WriteQueueFullException;
+import com.eatza.restaurantsearch.model.Menu;
+import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.repository.MenuRepository;
+import com.eatza.restaurantsearch.repository.MenuRepository.MenuRestaurantView;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+
+/**
+ * Accepts restaurant and menu item writes into a bounded queue and commits
+ * them from a single writer thread, as many as are waiting up to a batch per
+ * transaction. When the queue stays full for the offer timeout the write is
+ * refused rather than queued, so bursts push back on the client instead of
+ * growing memory. The outcome of each write is kept for a while under its
+ * tracking id.
+ */
+@Service
+public class WriteBehindServiceImpl implements WriteBehindService {
+
+	private static final Logger logger = LoggerFactory.getLogger(WriteBehindServiceImpl.class);
+
+	public static final String STATUS_CACHE_NAME = "writestatus";
+
+	private static final long POLL_MILLIS = 200;
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private MenuRepository menuRepository;
+
+	@Autowired
+	private RestaurantIndexService restaurantIndexService;
+
+	@Autowired
+	private CatalogVersion catalogVersion;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Value("${search.write-behind.queue-capacity:1000}")
+	private int queueCapacity;
+
+	@Value("${search.write-behind.batch-size:100}")
+	private int batchSize;
+
+	@Value("${search.write-behind.offer-timeout-ms:50}")
+	private long offerTimeoutMillis;
+
+	@Value("${search.write-behind.shutdown-timeout-ms:10000}")
+	private long shutdownTimeoutMillis;
+
+	private BlockingQueue<PendingWrite> queue;
+
+	private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "write-behind-writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private volatile boolean running;
+
+	@PostConstruct
+	public void start() {
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		running = true;
+		writer.execute(this::drain);
+	}
+
+	// Stops taking writes, then lets the writer commit what was already acknowledged
+	@PreDestroy
+	public void shutdown() {
+		running = false;
+		writer.shutdown();
+		try {
+			if (!writer.awaitTermination(shutdownTimeoutMillis, TimeUnit.MILLISECONDS)) {
+				logger.warn("Write-behind queue not drained in {} ms, {} queued writes are lost", shutdownTimeoutMillis, queue.size());
+				writer.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			writer.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	@Override
+	public WriteStatusDto submitRestaurant(RestaurantRequestDto restaurantDto) {
+		return submit(new PendingWrite(UUID.randomUUID().toString(), restaurantDto, null));
+	}
+
+	@Override
+	public WriteStatusDto submitMenuItem(ItemRequestDto itemDto) {
+		return submit(new PendingWrite(UUID.randomUUID().toString(), null, itemDto));
+	}
+
+	@Override
+	public Optional<WriteStatusDto> getStatus(String id) {
+		return Optional.ofNullable(statuses().get(id, WriteStatusDto.class));
+	}
+
+	private WriteStatusDto submit(PendingWrite write) {
+		if (!running) {
+			throw new WriteQueueFullException("Writes are not accepted while the service shuts down");
+		}
+		WriteStatusDto queued = new WriteStatusDto(write.id, WriteState.QUEUED, null, null);
+		// Recorded first, so the writer can never finish before the status exists
+		statuses().put(write.id, queued);
+		boolean accepted;
+		try {
+			accepted = queue.offer(write, offerTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			accepted = false;
+		}
+		if (!accepted) {
+			statuses().evict(write.id);
+			logger.debug("Write-behind queue full, refusing write");
+			throw new WriteQueueFullException("Too many pending writes, retry later");
+		}
+		// The writer may have seen the queue empty and exited between the check above and the offer
+		if (!running && queue.remove(write)) {
+			statuses().evict(write.id);
+			throw new WriteQueueFullException("Writes are not accepted while the service shuts down");
+		}
+		logger.debug("Queued write {}", write.id);
+		return queued;
+	}
+
+	private void drain() {
+		List<PendingWrite> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingWrite first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				queue.drainTo(batch, batchSize - 1);
+				write(batch);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException e) {
+				// Keeps the only writer alive; the writes in hand not yet committed are reported failed
+				logger.error("Write-behind batch of {} failed", batch.size(), e);
+				for (PendingWrite write : batch) {
+					if (getStatus(write.id).map(status -> status.getState() == WriteState.QUEUED).orElse(true)) {
+						fail(write, "Could not save");
+					}
+				}
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void write(List<PendingWrite> batch) {
+		Map<Long, Long> restaurantIds = restaurantIdsByMenu(batch);
+		List<PendingWrite> writable = new ArrayList<>(batch.size());
+		for (PendingWrite write : batch) {
+			if (write.item != null && !restaurantIds.containsKey(write.item.getMenuId())) {
+				fail(write, "Menu " + write.item.getMenuId() + " not found");
+			} else {
+				writable.add(write);
+			}
+		}
+		if (writable.isEmpty()) {
+			return;
+		}
+		logger.debug("Writing a batch of {} queued writes", writable.size());
+		List<Object> saved;
+		try {
+			saved = persist(writable);
+		} catch (RuntimeException e) {
+			if (writable.size() == 1) {
+				logger.debug("Queued write {} failed", writable.get(0).id, e);
+				fail(writable.get(0), "Could not save");
+				return;
+			}
+			// One bad write rolls back the batch, so each is retried on its own to find it
+			logger.debug("Batch of {} queued writes failed, retrying one at a time", writable.size(), e);
+			for (PendingWrite write : writable) {
+				List<PendingWrite> single = Collections.singletonList(write);
+				try {
+					saved = persist(single);
+				} catch (RuntimeException singleFailure) {
+					logger.debug("Queued write {} failed", write.id, singleFailure);
+					fail(write, "Could not save");
+					continue;
+				}
+				publish(single, saved, restaurantIds);
+			}
+			return;
+		}
+		publish(writable, saved, restaurantIds);
+	}
+
+	private Map<Long, Long> restaurantIdsByMenu(List<PendingWrite> batch) {
+		Set<Long> menuIds = new HashSet<>();
+		for (PendingWrite write : batch) {
+			if (write.item != null && write.item.getMenuId() != null) {
+				menuIds.add(write.item.getMenuId());
+			}
+		}
+		Map<Long, Long> restaurantIds = new HashMap<>();
+		if (!menuIds.isEmpty()) {
+			for (MenuRestaurantView menu : menuRepository.findRestaurantIdsByIdIn(menuIds)) {
+				restaurantIds.put(menu.getId(), menu.getRestaurantId());
+			}
+		}
+		return restaurantIds;
+	}
+
+	private List<Object> persist(List<PendingWrite> writes) {
+		List<Object> saved = new ArrayList<>(writes.size());
+		new TransactionTemplate(transactionManager).execute(status -> {
+			for (PendingWrite write : writes) {
+				if (write.restaurant != null) {
+					RestaurantRequestDto restaurantDto = write.restaurant;
+					Restaurant restaurant = new Restaurant(restaurantDto.getName(), restaurantDto.getLocation(),
+							restaurantDto.getCuisine(), restaurantDto.getBudget(), restaurantDto.getRating());
+					restaurant.setLatitude(restaurantDto.getLatitude());
+					restaurant.setLongitude(restaurantDto.getLongitude());
+					entityManager.persist(restaurant);
+					entityManager.persist(new Menu(restaurantDto.getActiveFrom(), restaurantDto.getActiveTill(), restaurant));
+					saved.add(restaurant);
+				} else {
+					ItemRequestDto itemDto = write.item;
+					MenuItem item = new MenuItem(itemDto.getName(), itemDto.getDescription(), itemDto.getPrice(),
+							entityManager.getReference(Menu.class, itemDto.getMenuId()));
+					entityManager.persist(item);
+					saved.add(item);
+				}
+			}
+			entityManager.flush();
+			entityManager.clear();
+			return null;
+		});
+		return saved;
+	}
+
+	private void publish(List<PendingWrite> writes, List<Object> saved, Map<Long, Long> restaurantIds) {
+		// Indexed only once committed, as saveRestaurant and saveMenuItem do
+		try {
+			List<Restaurant> restaurants = new ArrayList<>();
+			List<MenuItemDto> items = new ArrayList<>();
+			for (int i = 0; i < writes.size(); i++) {
+				PendingWrite write = writes.get(i);
+				Long entityId;
+				if (write.restaurant != null) {
+					Restaurant restaurant = (Restaurant) saved.get(i);
+					restaurants.add(restaurant);
+					entityId = restaurant.getId();
+				} else {
+					MenuItem item = (MenuItem) saved.get(i);
+					items.add(new MenuItemDto(item.getId(), item.getName(), item.getDescription(), item.getPrice(),
+							restaurantIds.get(write.item.getMenuId()), null));
+					entityId = item.getId();
+				}
+				// Committed whatever the index does, so the write is saved and the next rebuild picks it up
+				statuses().put(write.id, new WriteStatusDto(write.id, WriteState.SAVED, entityId, null));
+			}
+			// Restaurants first, so items on a restaurant written in the same batch find it
+			if (!restaurants.isEmpty()) {
+				try {
+					restaurantIndexService.indexAll(restaurants);
+				} catch (RuntimeException e) {
+					logger.error("Could not index {} saved restaurants", restaurants.size(), e);
+				}
+			}
+			if (!items.isEmpty()) {
+				try {
+					restaurantIndexService.indexItems(items);
+				} catch (RuntimeException e) {
+					logger.error("Could not index {} saved menu items", items.size(), e);
+				}
+			}
+		} finally {
+			catalogVersion.bump();
+		}
+	}
+
+	private void fail(PendingWrite write, String message) {
+		statuses().put(write.id, new WriteStatusDto(write.id, WriteState.FAILED, null, message));
+	}
+
+	private Cache statuses() {
+		return cacheManager.getCache(STATUS_CACHE_NAME);
+	}
+
+	private static final class PendingWrite {
+
+		final String id;
+		final RestaurantRequestDto restaurant;
+		final ItemRequestDto item;
+
+		PendingWrite(String id, RestaurantRequestDto restaurant, ItemRequestDto item) {
+			this.id = id;
+			this.restaurant = restaurant;
+			this.item = item;
+		}
+
+	}
+
+}
@@ -1,7 +1,7 @@
-INSERT INTO restaurants(budget,cuisine,location,name,rating) VALUES(966,'Soprole','rr nagar','Dominos',4.5);
-INSERT INTO restaurants(budget,cuisine,location,name,rating) VALUES(967,'italian','mg road','Aura',4.1);
-INSERT INTO restaurants(budget,cuisine,location,name,rating) VALUES(968,'indian','kormangala','Re',4.9);
-INSERT INTO menu(active_from,active_till,restaurant_id) VALUES ('2019-08-24 13:35:43','2021-08-24 13:35:43',1);
-INSERT INTO menu(active_from,active_till,restaurant_id) VALUES ('2020-08-24 17:05:45','2021-08-24 13:35:43',2);
+INSERT INTO restaurants(id,budget,cuisine,location,name,rating,latitude,longitude) VALUES(1,966,'Soprole','rr nagar','Dominos',4.5,12.9255,77.5468);
+INSERT INTO restaurants(id,budget,cuisine,location,name,rating,latitude,longitude) VALUES(2,967,'italian','mg road','Aura',4.1,12.9756,77.605);
+INSERT INTO restaurants(id,budget,cuisine,location,name,rating,latitude,longitude) VALUES(3,968,'indian','kormangala','Re',4.9,12.9352,77.6245);
+INSERT INTO menu(id,active_from,active_till,restaurant_id) VALUES (1,'2019-08-24 13:35:43','2021-08-24 13:35:43',1);
+INSERT INTO menu(id,active_from,active_till,restaurant_id) VALUES (2,'2020-08-24 17:05:45','2021-08-24 13:35:43',2);
 INSERT INTO menu_items(id,description,NAME,price,menu_id) VALUES (101,'Beans','Rajma',120,1);
 INSERT INTO menu_items(id,description,NAME,price,menu_id) VALUES (102,'Chole','whiteChole',110,2);
\ No newline at end of file
@@ -0,0 +1,16 @@
+-- Run once against an existing MySQL database before deploying the sequence-generated ids.
+-- MySQL has no sequences, so Hibernate keeps each one as a single-row table whose next_val starts at 1000.
+-- Ids are handed out in blocks of 50 ending at next_val, so next_val is set to at least MAX(id) + 50.
+-- Safe to run again: a table that is already ahead is left alone.
+
+CREATE TABLE IF NOT EXISTS restaurant_seq (next_val BIGINT);
+INSERT INTO restaurant_seq (next_val) SELECT 1000 FROM DUAL WHERE NOT EXISTS (SELECT * FROM restaurant_seq);
+UPDATE restaurant_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM restaurants));
+
+CREATE TABLE IF NOT EXISTS menu_seq (next_val BIGINT);
+INSERT INTO menu_seq (next_val) SELECT 1000 FROM DUAL WHERE NOT EXISTS (SELECT * FROM menu_seq);
+UPDATE menu_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM menu));
+
+CREATE TABLE IF NOT EXISTS menu_item_seq (next_val BIGINT);
+INSERT INTO menu_item_seq (next_val) SELECT 1000 FROM DUAL WHERE NOT EXISTS (SELECT * FROM menu_item_seq);
+UPDATE menu_item_seq SET next_val = GREATEST(next_val, (SELECT COALESCE(MAX(id), 0) + 50 FROM menu_items));
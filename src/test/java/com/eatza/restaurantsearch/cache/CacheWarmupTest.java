@@ -0,0 +1,93 @@
+package com.eatza.restaurantsearch.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.eatza.restaurantsearch.dto.TotalsMode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+public class CacheWarmupTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	CacheWarmup cacheWarmup;
+	PopularQueryRecorder recorder;
+	Lookup lookup;
+
+	@Before
+	public void setup() {
+		recorder = new PopularQueryRecorder();
+		lookup = new Lookup();
+		ApplicationContext applicationContext = mock(ApplicationContext.class);
+		when(applicationContext.getBean(Lookup.class)).thenReturn(lookup);
+		cacheWarmup = new CacheWarmup();
+		ReflectionTestUtils.setField(cacheWarmup, "applicationContext", applicationContext);
+		ReflectionTestUtils.setField(cacheWarmup, "popularQueryRecorder", recorder);
+		ReflectionTestUtils.setField(cacheWarmup, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(cacheWarmup, "enabled", true);
+		ReflectionTestUtils.setField(cacheWarmup, "file", new File(folder.getRoot(), "popular-queries.json").getPath());
+		ReflectionTestUtils.setField(cacheWarmup, "top", 10);
+		ReflectionTestUtils.setField(cacheWarmup, "parallelism", 2);
+		ReflectionTestUtils.setField(cacheWarmup, "timeoutMillis", 5000L);
+		ReflectionTestUtils.setField(cacheWarmup, "persistIntervalMillis", 60000L);
+	}
+
+	@Test
+	public void persistedQueriesReplayedOnStart() {
+		recorder.record(Lookup.class.getName(), "find", new Object[] {"mg road", 1, TotalsMode.NONE});
+		recorder.record(Lookup.class.getName(), "missing", new Object[] {"mg road"});
+		cacheWarmup.persist();
+
+		assertEquals(Status.OUT_OF_SERVICE, cacheWarmup.health().getStatus());
+		cacheWarmup.run(new DefaultApplicationArguments());
+		cacheWarmup.shutdown();
+
+		assertEquals(Collections.singletonList("mg road:1:NONE"), lookup.calls);
+		assertEquals(Status.UP, cacheWarmup.health().getStatus());
+	}
+
+	@Test
+	public void coldStartWithoutFile() {
+		assertTrue(cacheWarmup.load().isEmpty());
+		cacheWarmup.run(new DefaultApplicationArguments());
+		cacheWarmup.shutdown();
+		assertTrue(lookup.calls.isEmpty());
+		assertEquals(Status.UP, cacheWarmup.health().getStatus());
+	}
+
+	public static class Lookup {
+
+		final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+
+		@Cacheable("restaurantbylocandcuisine")
+		public String find(String location, int page, TotalsMode totals) {
+			calls.add(location + ":" + page + ":" + totals);
+			return location;
+		}
+
+		public String missing(String location) {
+			calls.add(location);
+			return location;
+		}
+
+	}
+
+}
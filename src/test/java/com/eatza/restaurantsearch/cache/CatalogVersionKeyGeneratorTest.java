@@ -0,0 +1,39 @@
+package com.eatza.restaurantsearch.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class CatalogVersionKeyGeneratorTest {
+
+	CatalogVersion catalogVersion;
+	CatalogVersionKeyGenerator keyGenerator;
+
+	@Before
+	public void setup() {
+		catalogVersion = new CatalogVersion();
+		keyGenerator = new CatalogVersionKeyGenerator();
+		ReflectionTestUtils.setField(keyGenerator, "catalogVersion", catalogVersion);
+	}
+
+	@Test
+	public void sameVersionSameKey() {
+		assertEquals(keyGenerator.generate(this, null, "rr", 1, 10), keyGenerator.generate(this, null, "rr", 1, 10));
+	}
+
+	@Test
+	public void bumpChangesKey() {
+		Object before = keyGenerator.generate(this, null, "rr", 1, 10);
+		catalogVersion.bump();
+		assertNotEquals(before, keyGenerator.generate(this, null, "rr", 1, 10));
+	}
+
+	@Test
+	public void paramsStillDistinguishKeys() {
+		assertNotEquals(keyGenerator.generate(this, null, "rr", 1, 10), keyGenerator.generate(this, null, "rr", 2, 10));
+	}
+
+}
@@ -0,0 +1,56 @@
+package com.eatza.restaurantsearch.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class PopularQueryRecorderTest {
+
+	PopularQueryRecorder recorder;
+
+	@Before
+	public void setup() {
+		recorder = new PopularQueryRecorder();
+	}
+
+	@Test
+	public void topByCount() {
+		recorder.record("RestaurantServiceImpl", "findAllRestaurants", new Object[] {1, 10});
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {2L});
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {2L});
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {3L});
+		List<PopularQuery> top = recorder.top(2);
+		assertEquals(2, top.size());
+		assertEquals(new PopularQuery("RestaurantServiceImpl", "findById", Arrays.asList(2L)), top.get(0));
+	}
+
+	@Test
+	public void plainValuesOnly() {
+		recorder.record("MenuItemServiceImpl", "findByMenuId", new Object[] {1L, PageRequest.of(0, 10)});
+		assertTrue(recorder.top(10).isEmpty());
+	}
+
+	@Test
+	public void boundedAndDecayed() {
+		ReflectionTestUtils.setField(recorder, "maxTracked", 2);
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {1L});
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {1L});
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {2L});
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {3L});
+		assertEquals(2, recorder.top(10).size());
+		recorder.decay();
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {3L});
+		recorder.record("RestaurantServiceImpl", "findById", new Object[] {3L});
+		assertEquals(Arrays.asList(
+				new PopularQuery("RestaurantServiceImpl", "findById", Arrays.asList(3L)),
+				new PopularQuery("RestaurantServiceImpl", "findById", Arrays.asList(1L))), recorder.top(10));
+	}
+
+}
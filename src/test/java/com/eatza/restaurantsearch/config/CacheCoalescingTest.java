@@ -0,0 +1,93 @@
+package com.eatza.restaurantsearch.config;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringRunner;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes=CacheCoalescingTest.Config.class)
+public class CacheCoalescingTest {
+
+	@Autowired
+	SlowLookup slowLookup;
+
+	@Test
+	public void concurrentMissesLoadOnce() throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<String>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				results.add(executor.submit(() -> slowLookup.find("rr nagar")));
+			}
+			slowLookup.awaitStarted();
+			Thread.sleep(100);
+			slowLookup.release();
+			for (Future<String> result : results) {
+				assertEquals("RR NAGAR", result.get(5, TimeUnit.SECONDS));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertEquals(1, slowLookup.loads());
+	}
+
+	@Configuration
+	@EnableCaching
+	@Import(CacheConfiguration.class)
+	static class Config {
+
+		@Bean
+		SlowLookup slowLookup() {
+			return new SlowLookup();
+		}
+
+	}
+
+	// State is read through methods, since the test holds the caching proxy
+	static class SlowLookup {
+
+		private final AtomicInteger loads = new AtomicInteger();
+		private final CountDownLatch started = new CountDownLatch(1);
+		private final CountDownLatch release = new CountDownLatch(1);
+
+		@Cacheable(value = "restaurantbylocandcuisine", sync = true)
+		public String find(String location) throws InterruptedException {
+			loads.incrementAndGet();
+			started.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return location.toUpperCase();
+		}
+
+		public void awaitStarted() throws InterruptedException {
+			started.await(5, TimeUnit.SECONDS);
+		}
+
+		public void release() {
+			release.countDown();
+		}
+
+		public int loads() {
+			return loads.get();
+		}
+
+	}
+
+}
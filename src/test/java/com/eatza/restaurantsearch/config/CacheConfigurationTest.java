@@ -0,0 +1,60 @@
+package com.eatza.restaurantsearch.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.github.benmanes.caffeine.cache.Cache;
+
+@RunWith(SpringRunner.class)
+@ContextConfiguration(classes=CacheConfiguration.class)
+@TestPropertySource(properties = {
+		"cache.default-spec=maximumSize=5",
+		"cache.specs.restaurantbyid=maximumSize=2,expireAfterWrite=1m" })
+public class CacheConfigurationTest {
+
+	@Autowired
+	CacheManager cacheManager;
+
+	@Test
+	public void perCacheSpec() {
+		Cache<Object, Object> cache = nativeCache("restaurantbyid");
+		assertEquals(2, cache.policy().eviction().get().getMaximum());
+		assertEquals(1, cache.policy().expireAfterWrite().get().getExpiresAfter(TimeUnit.MINUTES));
+	}
+
+	@Test
+	public void defaultSpec() {
+		Cache<Object, Object> cache = nativeCache("menuitemsbyname");
+		assertEquals(5, cache.policy().eviction().get().getMaximum());
+		assertTrue(!cache.policy().expireAfterWrite().isPresent());
+	}
+
+	@Test
+	public void bounded() {
+		Cache<Object, Object> cache = nativeCache("allrestaurants");
+		for (int i = 0; i < 100; i++) {
+			cache.put(i, i);
+		}
+		// Caffeine also evicts on the common pool; a cleanUp racing that task can leave one entry over
+		ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+		cache.cleanUp();
+		assertTrue(cache.estimatedSize() <= 5);
+	}
+
+	private Cache<Object, Object> nativeCache(String name) {
+		return ((CaffeineCache) cacheManager.getCache(name)).getNativeCache();
+	}
+
+}
@@ -0,0 +1,147 @@
+package com.eatza.restaurantsearch.config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.domain.Sort;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.repository.MenuItemRepository;
+import com.eatza.restaurantsearch.repository.RestaurantRepository;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexServiceImpl;
+
+public class CatalogEtagFilterTest {
+
+	CatalogVersion catalogVersion;
+	CatalogEtagFilter filter;
+	AtomicInteger calls;
+
+	@Before
+	public void setup() {
+		catalogVersion = new CatalogVersion();
+		filter = new CatalogEtagFilter(catalogVersion, "boot");
+		calls = new AtomicInteger();
+	}
+
+	@Test
+	public void taggedWithVersion() throws Exception {
+		MockHttpServletResponse response = get(null, servlet(200));
+		assertEquals(200, response.getStatus());
+		assertEquals("\"boot-0\"", response.getHeader("ETag"));
+	}
+
+	@Test
+	public void notModifiedSkipsController() throws Exception {
+		MockHttpServletResponse response = get("\"boot-0\"", servlet(200));
+		assertEquals(304, response.getStatus());
+		assertEquals("\"boot-0\"", response.getHeader("ETag"));
+		assertEquals(0, response.getContentAsByteArray().length);
+		assertEquals(0, calls.get());
+		assertEquals(304, get("\"other\", W/\"boot-0-gzip\"", servlet(200)).getStatus());
+	}
+
+	@Test
+	public void modifiedAfterWrite() throws Exception {
+		catalogVersion.bump();
+		MockHttpServletResponse response = get("\"boot-0\"", servlet(200));
+		assertEquals(200, response.getStatus());
+		assertEquals("\"boot-1\"", response.getHeader("ETag"));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void modifiedAfterIndexBuilt() throws Exception {
+		RestaurantIndexServiceImpl index = new RestaurantIndexServiceImpl();
+		RestaurantRepository restaurantRepository = mock(RestaurantRepository.class);
+		when(restaurantRepository.findAll(any(Sort.class))).thenReturn(Collections.emptyList());
+		ReflectionTestUtils.setField(index, "restaurantRepository", restaurantRepository);
+		ReflectionTestUtils.setField(index, "menuItemRepository", mock(MenuItemRepository.class));
+		ReflectionTestUtils.setField(index, "catalogVersion", catalogVersion);
+		// Tagged while the index is still empty
+		assertEquals("\"boot-0\"", get(null, servlet(200)).getHeader("ETag"));
+		index.rebuild();
+		MockHttpServletResponse response = get("\"boot-0\"", servlet(200));
+		assertEquals(200, response.getStatus());
+		assertEquals("\"boot-1\"", response.getHeader("ETag"));
+	}
+
+	@Test
+	public void modifiedAfterRestart() throws Exception {
+		filter = new CatalogEtagFilter(new CatalogVersion(), "restart");
+		assertEquals(200, get("\"boot-0\"", servlet(200)).getStatus());
+	}
+
+	@Test
+	public void errorsNotTagged() throws Exception {
+		MockHttpServletResponse response = get(null, servlet(404));
+		assertEquals(404, response.getStatus());
+		assertNull(response.getHeader("ETag"));
+	}
+
+	@Test
+	public void ndjsonNotTagged() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/restaurants");
+		request.addHeader("Accept", "application/x-ndjson");
+		request.addHeader("If-None-Match", "\"boot-0\"");
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain(servlet(200)));
+		assertEquals(200, response.getStatus());
+		assertNull(response.getHeader("ETag"));
+	}
+
+	@Test
+	public void gzippedBodyTaggedSeparately() throws Exception {
+		ResponseBodyCacheFilter bodyCache = new ResponseBodyCacheFilter(new ConcurrentMapCache("responsebodies"), catalogVersion, 1);
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletRequest request = new MockHttpServletRequest("GET", "/restaurants");
+			request.addHeader("Accept-Encoding", "gzip");
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(request, response, new MockFilterChain(servlet(200), bodyCache));
+			assertEquals("gzip", response.getHeader("Content-Encoding"));
+			assertEquals("\"boot-0-gzip\"", response.getHeader("ETag"));
+		}
+		assertEquals(1, calls.get());
+	}
+
+	private MockHttpServletResponse get(String ifNoneMatch, HttpServlet servlet) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/restaurants");
+		if (ifNoneMatch != null) {
+			request.addHeader("If-None-Match", ifNoneMatch);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain(servlet));
+		return response;
+	}
+
+	private HttpServlet servlet(int status) {
+		return new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+				calls.incrementAndGet();
+				resp.setStatus(status);
+				resp.setContentType("application/json");
+				resp.getOutputStream().write("{\"restaurants\":[]}".getBytes(StandardCharsets.UTF_8));
+			}
+		};
+	}
+
+}
@@ -0,0 +1,127 @@
+package com.eatza.restaurantsearch.config;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+
+public class ResponseBodyCacheFilterTest {
+
+	CatalogVersion catalogVersion;
+	ResponseBodyCacheFilter filter;
+	AtomicInteger calls;
+
+	@Before
+	public void setup() {
+		catalogVersion = new CatalogVersion();
+		filter = new ResponseBodyCacheFilter(new ConcurrentMapCache("responsebodies"), catalogVersion, 64);
+		calls = new AtomicInteger();
+	}
+
+	@Test
+	public void hitSkipsController() throws Exception {
+		get("/restaurants", "pagenumber=1&pagesize=10", null, "{\"restaurants\":[]}");
+		MockHttpServletResponse second = get("/restaurants", "pagenumber=1&pagesize=10", null, "{\"restaurants\":[]}");
+		assertEquals(1, calls.get());
+		assertEquals("{\"restaurants\":[]}", second.getContentAsString());
+		assertEquals(second.getContentAsByteArray().length, second.getContentLength());
+	}
+
+	@Test
+	public void keyedByQueryAndVersion() throws Exception {
+		get("/restaurants", "pagenumber=1&pagesize=10", null, "{}");
+		get("/restaurants", "pagenumber=2&pagesize=10", null, "{}");
+		assertEquals(2, calls.get());
+		catalogVersion.bump();
+		get("/restaurants", "pagenumber=1&pagesize=10", null, "{}");
+		assertEquals(3, calls.get());
+	}
+
+	@Test
+	public void gzippedWhenAccepted() throws Exception {
+		String json = "{\"name\":\"" + new String(new char[200]).replace('\0', 'a') + "\"}";
+		MockHttpServletResponse plain = get("/restaurants", null, null, json);
+		MockHttpServletResponse gzipped = get("/restaurants", null, "gzip, deflate", json);
+		assertEquals(1, calls.get());
+		assertNull(plain.getHeader("Content-Encoding"));
+		assertEquals("gzip", gzipped.getHeader("Content-Encoding"));
+		assertEquals(gzipped.getContentAsByteArray().length, gzipped.getContentLength());
+		byte[] unzipped = StreamUtils.copyToByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped.getContentAsByteArray())));
+		assertArrayEquals(json.getBytes(StandardCharsets.UTF_8), unzipped);
+	}
+
+	@Test
+	public void errorsNotCached() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/restaurants/99/detail");
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(request, response, new MockFilterChain(servlet(HttpServletResponse.SC_NOT_FOUND, "{}")));
+			assertEquals(404, response.getStatus());
+		}
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void postsPassThrough() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("POST", "/restaurant");
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(servlet(200, "{}")));
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(servlet(200, "{}")));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void ndjsonPassesThrough() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/restaurants");
+		request.addHeader("Accept", "application/x-ndjson");
+		for (int i = 0; i < 2; i++) {
+			MockHttpServletResponse response = new MockHttpServletResponse();
+			filter.doFilter(request, response, new MockFilterChain(servlet(200, "{}")));
+			assertEquals("{}", response.getContentAsString());
+		}
+		assertEquals(2, calls.get());
+	}
+
+	private MockHttpServletResponse get(String uri, String query, String acceptEncoding, String json) throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+		request.setQueryString(query);
+		if (acceptEncoding != null) {
+			request.addHeader("Accept-Encoding", acceptEncoding);
+		}
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new MockFilterChain(servlet(200, json)));
+		assertEquals(200, response.getStatus());
+		return response;
+	}
+
+	private HttpServlet servlet(int status, String json) {
+		return new HttpServlet() {
+			@Override
+			protected void service(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+				calls.incrementAndGet();
+				resp.setStatus(status);
+				resp.setContentType("application/json");
+				resp.getOutputStream().write(json.getBytes(StandardCharsets.UTF_8));
+			}
+		};
+	}
+
+}
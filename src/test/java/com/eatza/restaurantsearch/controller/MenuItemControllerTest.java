@@ -3,11 +3,17 @@ package com.eatza.restaurantsearch.controller;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import java.io.BufferedReader;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Optional;
 
@@ -24,11 +30,19 @@ import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import com.eatza.restaurantsearch.dto.ItemImportFormat;
+import com.eatza.restaurantsearch.dto.ItemImportResponseDto;
 import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.LineErrorDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.WriteState;
+import com.eatza.restaurantsearch.dto.WriteStatusDto;
 import com.eatza.restaurantsearch.exception.ItemNotFoundException;
 import com.eatza.restaurantsearch.model.Menu;
 import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.service.importservice.ItemImportService;
 import com.eatza.restaurantsearch.service.menuitemservice.MenuItemService;
+import com.eatza.restaurantsearch.service.writebehindservice.WriteBehindService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.jsonwebtoken.Jwts;
@@ -45,6 +59,12 @@ public class MenuItemControllerTest {
 	@MockBean
 	private MenuItemService menuItemService;
 
+	@MockBean
+	private ItemImportService itemImportService;
+
+	@MockBean
+	private WriteBehindService writeBehindService;
+
 	@Autowired
 	private ObjectMapper objectMapper;
 
@@ -80,7 +100,70 @@ public class MenuItemControllerTest {
 		.andExpect(content().string("Item Added successfully"))
 		.andReturn();
 	}
+
+	@Test
+	public void addMenuItem_async() throws Exception {
+		when(writeBehindService.submitMenuItem(any(ItemRequestDto.class)))
+				.thenReturn(new WriteStatusDto("w1", WriteState.QUEUED, null, null));
+		RequestBuilder request = MockMvcRequestBuilders.post(
+				"/item?async=true")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"menuId\":1,\"name\":\"Onion Dosa\",\"price\":200}")
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+		mockMvc.perform(request)
+		.andExpect(status().is(202))
+		.andExpect(header().string(HttpHeaders.LOCATION, "/writes/w1"))
+		.andExpect(content().json("{id: w1, state: QUEUED}"))
+		.andReturn();
+		verify(menuItemService, times(0)).saveMenuItem(any(ItemRequestDto.class));
+	}
 	
+	@Test
+	public void importItems_ndjson() throws Exception {
+		when(itemImportService.importItems(any(BufferedReader.class), eq(ItemImportFormat.NDJSON)))
+				.thenReturn(new ItemImportResponseDto(1, 1, Collections.singletonList(new LineErrorDto(2, "Menu 9 not found"))));
+		RequestBuilder request = MockMvcRequestBuilders.post(
+				"/restaurants/items/bulk")
+				.contentType("application/x-ndjson")
+				.content("{\"menuId\":1,\"name\":\"Dosa\",\"price\":80}\n{\"menuId\":9,\"name\":\"Idli\",\"price\":40}\n")
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+		mockMvc.perform(request)
+		.andExpect(status().is(200))
+		.andExpect(content().json("{imported: 1, failed: 1, errors: [{line: 2, message: 'Menu 9 not found'}]}"))
+		.andReturn();
+	}
+
+	@Test
+	public void importItems_csv() throws Exception {
+		when(itemImportService.importItems(any(BufferedReader.class), eq(ItemImportFormat.CSV)))
+				.thenReturn(new ItemImportResponseDto(1, 0, new ArrayList<>()));
+		RequestBuilder request = MockMvcRequestBuilders.post(
+				"/restaurants/items/bulk")
+				.contentType("text/csv;charset=UTF-8")
+				.content("menuId,name,price\n1,Dosa,80\n")
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+		mockMvc.perform(request)
+		.andExpect(status().is(200))
+		.andExpect(content().json("{imported: 1, failed: 0}"))
+		.andReturn();
+	}
+
+	@Test
+	public void importItems_unsupportedType() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders.post(
+				"/restaurants/items/bulk")
+				.contentType(MediaType.TEXT_PLAIN)
+				.content("1,Dosa,80")
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+		mockMvc.perform(request)
+		.andExpect(status().is(415))
+		.andReturn();
+	}
+
 	@Test
 	public void getRestaurantsContainingItem() throws Exception {
 		
@@ -98,11 +181,29 @@ public class MenuItemControllerTest {
 	}
 	
 	
+	@Test
+	public void getRestaurantsContainingItem_fuzzy() throws Exception {
+		
+		when(menuItemService.findByNameFuzzy(any(String.class),anyInt(), anyInt())).thenReturn(new ArrayList<>());
+		RequestBuilder request = MockMvcRequestBuilders.get(
+				"/restaurant/item/name/rajmaa?fuzzy=true")
+				.accept(
+						MediaType.ALL)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+		mockMvc.perform(request)
+		.andExpect(status().is(200))
+		
+		.andReturn();
+		verify(menuItemService).findByNameFuzzy("rajmaa", 1, 10);
+	}
+	
+	
 	@Test
 	public void getItemById() throws Exception {
-		MenuItem menuItem = new MenuItem("Rajma", "Beans", 120, new Menu());
-		Optional<MenuItem> returnedItem= Optional.of(menuItem);
-		when(menuItemService.findById(anyLong())).thenReturn(returnedItem);
+		MenuItemDto menuItem = new MenuItemDto(101L, "Rajma", "Beans", 120, 1L, "Dominos");
+		Optional<MenuItemDto> returnedItem= Optional.of(menuItem);
+		when(menuItemService.findDtoById(anyLong())).thenReturn(returnedItem);
 		RequestBuilder request = MockMvcRequestBuilders.get(
 				"/item/id/1?pagenumber=1&pagesize=10")
 				.accept(
@@ -111,13 +212,13 @@ public class MenuItemControllerTest {
 						jwt)*/;
 		mockMvc.perform(request)
 		.andExpect(status().is(200))
-		
+		.andExpect(content().json("{name: Rajma, price: 120, restaurantId: 1, restaurantName: Dominos}"))
 		.andReturn();
 	}
 	
 	@Test
 	public void getItemById_empty() throws Exception {
-		when(menuItemService.findById(anyLong())).thenReturn(Optional.empty());
+		when(menuItemService.findDtoById(anyLong())).thenReturn(Optional.empty());
 		RequestBuilder request = MockMvcRequestBuilders.get(
 				"/item/id/1?pagenumber=1&pagesize=10")
 				.accept(
@@ -1,17 +1,24 @@
 package com.eatza.restaurantsearch.controller;
 
+import static org.junit.Assert.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyDouble;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -24,16 +31,27 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.RequestBuilder;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
+import com.eatza.restaurantsearch.dto.BulkImportResponseDto;
+import com.eatza.restaurantsearch.dto.BulkRestaurantDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.RestaurantDetailDto;
 import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
 import com.eatza.restaurantsearch.dto.RestaurantResponseDto;
+import com.eatza.restaurantsearch.dto.WriteState;
+import com.eatza.restaurantsearch.dto.WriteStatusDto;
 import com.eatza.restaurantsearch.exception.InvalidTokenException;
+import com.eatza.restaurantsearch.exception.WriteQueueFullException;
 import com.eatza.restaurantsearch.model.Menu;
 import com.eatza.restaurantsearch.model.MenuItem;
 import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.service.importservice.RestaurantImportService;
 import com.eatza.restaurantsearch.service.restaurantservice.RestaurantService;
+import com.eatza.restaurantsearch.service.restaurantstreamservice.RestaurantStreamService;
+import com.eatza.restaurantsearch.service.writebehindservice.WriteBehindService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import io.jsonwebtoken.Jwts;
@@ -50,6 +68,15 @@ public class RestaurantControllerTest {
 	@MockBean
 	private RestaurantService restaurantService;
 
+	@MockBean
+	private RestaurantImportService restaurantImportService;
+
+	@MockBean
+	private WriteBehindService writeBehindService;
+
+	@MockBean
+	private RestaurantStreamService restaurantStreamService;
+
 	@Autowired
 	private ObjectMapper objectMapper;
 	
@@ -65,6 +92,69 @@ public class RestaurantControllerTest {
 	}
 
 
+	@Test
+	public void getAllRestaurants_ndjson() throws Exception {
+		Restaurant dominos = new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2);
+		dominos.setId(1L);
+		Restaurant aura = new Restaurant("Aura", "MG Road", "Indian", 300, 4.0);
+		aura.setId(2L);
+		Mockito.when(restaurantStreamService.streamAll(any())).thenAnswer(invocation -> {
+			Consumer<Restaurant> action = invocation.getArgument(0);
+			action.accept(dominos);
+			action.accept(aura);
+			return 2L;
+		});
+		MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/restaurants")
+				.accept("application/x-ndjson")
+				.header(HttpHeaders.AUTHORIZATION, jwt))
+		.andReturn();
+		mockMvc.perform(asyncDispatch(started))
+		.andExpect(status().is(200))
+		.andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+		.andExpect(content().string(objectMapper.writeValueAsString(dominos) + "\n" + objectMapper.writeValueAsString(aura) + "\n"));
+		Mockito.verify(restaurantService, Mockito.times(0)).findAllRestaurants(anyInt(), anyInt());
+	}
+
+	@Test
+	public void getRestaurantsByBudget_ndjson() throws Exception {
+		Mockito.when(restaurantStreamService.streamByBudget(Mockito.eq(500), any())).thenReturn(0L);
+		MvcResult started = mockMvc.perform(MockMvcRequestBuilders.get("/restaurants/budget/500")
+				.accept("application/x-ndjson")
+				.header(HttpHeaders.AUTHORIZATION, jwt))
+		.andReturn();
+		mockMvc.perform(asyncDispatch(started))
+		.andExpect(status().is(200))
+		.andExpect(content().string(""));
+		Mockito.verify(restaurantStreamService).streamByBudget(Mockito.eq(500), any());
+	}
+
+	@Test
+	public void getRestaurantsByName_ndjsonFuzzy() throws Exception {
+		restaurants = new ArrayList<>();
+		restaurants.add(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2));
+		Mockito.when(restaurantService.findByNameFuzzy(any(String.class), anyInt(), anyInt()))
+				.thenReturn(new RestaurantResponseDto(restaurants, 1, 1));
+		mockMvc.perform(MockMvcRequestBuilders.get("/restaurants/name/Dom?fuzzy=true")
+				.accept("application/x-ndjson")
+				.header(HttpHeaders.AUTHORIZATION, jwt))
+		.andExpect(status().is(400));
+		Mockito.verify(restaurantService, Mockito.never()).findByNameFuzzy(any(String.class), anyInt(), anyInt());
+	}
+
+	@Test
+	public void getRestaurantsByName_anyAcceptGetsJson() throws Exception {
+		restaurants = new ArrayList<>();
+		restaurants.add(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2));
+		Mockito.when(restaurantService.findByName(any(String.class), anyInt(), anyInt()))
+				.thenReturn(new RestaurantResponseDto(restaurants, 1, 1));
+		mockMvc.perform(MockMvcRequestBuilders.get("/restaurants/name/Dom")
+				.accept(MediaType.ALL)
+				.header(HttpHeaders.AUTHORIZATION, jwt))
+		.andExpect(status().is(200))
+		.andExpect(header().string(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE));
+		Mockito.verify(restaurantStreamService, Mockito.never()).streamByName(any(String.class), any());
+	}
+
 	// Passing
 	@Test
 	public void getAllRestaurants_basic() throws Exception {
@@ -146,6 +236,51 @@ public class RestaurantControllerTest {
 		.andReturn();
 	}
 
+	@Test
+	public void addRestaurant_async() throws Exception {
+		when(writeBehindService.submitRestaurant(any(RestaurantRequestDto.class)))
+				.thenReturn(new WriteStatusDto("w1", WriteState.QUEUED, null, null));
+		RequestBuilder request = MockMvcRequestBuilders.post(
+				"/restaurant?async=true")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Sip n Bite\",\"location\":\"MG Road\"}")
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+		mockMvc.perform(request)
+		.andExpect(status().is(202))
+		.andExpect(header().string(HttpHeaders.LOCATION, "/writes/w1"))
+		.andExpect(content().json("{id: w1, state: QUEUED}"))
+		.andReturn();
+		Mockito.verify(restaurantService, Mockito.times(0)).saveRestaurant(any(RestaurantRequestDto.class));
+	}
+
+	@Test
+	public void addRestaurant_asyncQueueFull() throws Exception {
+		when(writeBehindService.submitRestaurant(any(RestaurantRequestDto.class)))
+				.thenThrow(new WriteQueueFullException("Too many pending writes, retry later"));
+		RequestBuilder request = MockMvcRequestBuilders.post(
+				"/restaurant?async=true")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"name\":\"Sip n Bite\",\"location\":\"MG Road\"}")
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+		mockMvc.perform(request)
+		.andExpect(status().is(503))
+		.andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+		.andReturn();
+	}
+
+	@Test
+	public void getWriteStatus() throws Exception {
+		when(writeBehindService.getStatus("w1")).thenReturn(Optional.of(new WriteStatusDto("w1", WriteState.SAVED, 1000L, null)));
+		when(writeBehindService.getStatus("w2")).thenReturn(Optional.empty());
+		mockMvc.perform(MockMvcRequestBuilders.get("/writes/w1").header(HttpHeaders.AUTHORIZATION, jwt))
+		.andExpect(status().is(200))
+		.andExpect(content().json("{id: w1, state: SAVED, entityId: 1000}"));
+		mockMvc.perform(MockMvcRequestBuilders.get("/writes/w2").header(HttpHeaders.AUTHORIZATION, jwt))
+		.andExpect(status().is(404));
+	}
+
 	@Test
 	public void getRestaurantsByRating() throws Exception {
 		// list of resturants with rating below, equal and above 4.3
@@ -261,6 +396,83 @@ public class RestaurantControllerTest {
 		.andExpect(status().isOk())
 		.andReturn();
 	}
+	@Test
+	public void getRestaurantsByName_fuzzy() throws Exception {
+		List<Restaurant> resturants = Arrays.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2));
+
+		RestaurantResponseDto responseDTO = new RestaurantResponseDto(resturants, 1, 1);
+		when(restaurantService.findByNameFuzzy(any(String.class), anyInt(), anyInt())).thenReturn(responseDTO);
+
+		// request
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/name/dominoes?pagenumber=1&pagesize=10&fuzzy=true")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		// response
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{restaurants:[{name: Dominos}], totalElements: 1}"))
+		.andReturn();
+		Mockito.verify(restaurantService, Mockito.never()).findByName(any(String.class), anyInt(), anyInt());
+	}
+
+	@Test
+	public void getRestaurantsByName_cursor() throws Exception {
+		List<Restaurant> resturants = Arrays.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2));
+
+		RestaurantResponseDto responseDTO = new RestaurantResponseDto(resturants, "Njo3");
+		when(restaurantService.findByNameAfter(any(String.class), any(String.class), anyInt())).thenReturn(responseDTO);
+
+		// request
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/name/dominos?pagesize=1&cursor=")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		// response
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{restaurants:[{name: Dominos}], nextCursor: Njo3}"))
+		.andExpect(jsonPath("$.totalElements").doesNotExist())
+		.andReturn();
+		Mockito.verify(restaurantService, Mockito.never()).findByName(any(String.class), anyInt(), anyInt());
+	}
+
+	@Test
+	public void getRestaurantsByName_fuzzyCursor() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/name/dominoes?fuzzy=true&cursor=")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
+	@Test
+	public void getAllRestaurants_cursor() throws Exception {
+		List<Restaurant> resturants = Arrays.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2));
+
+		when(restaurantService.findAllRestaurantsAfter(any(String.class), anyInt())).thenReturn(new RestaurantResponseDto(resturants, (String) null));
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants?cursor=Njo3")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(jsonPath("$.nextCursor").doesNotExist())
+		.andReturn();
+		Mockito.verify(restaurantService).findAllRestaurantsAfter("Njo3", 10);
+	}
+
 	@Test
 	public void getRestaurantsByName_zero() throws Exception {
 		// list of resturants with rating below, equal and above 4.3
@@ -353,6 +565,27 @@ public class RestaurantControllerTest {
 		.andReturn();
 	}
 
+	@Test
+	public void getRestaurantsByLocationAndCuisine_fuzzy() throws Exception {
+		List<Restaurant> resturants = Arrays.asList(new Restaurant("Aura", "mg road", "italian", 967, 4.1));
+
+		RestaurantResponseDto responseDTO = new RestaurantResponseDto(resturants, 1, 1);
+		when(restaurantService.findByLocationAndCuisineFuzzy(any(String.class),any(String.class), anyInt(), anyInt())).thenReturn(responseDTO);
+
+		// request
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/location/mg rd/cuisine/italian?fuzzy=true")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		// response
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{restaurants:[{name: Aura}]}"))
+		.andReturn();
+	}
+
 	@Test
 	public void getRestaurantsByLocationAndCuisine_zero_pagenumber() throws Exception {
 		// list of resturants with rating below, equal and above 4.3
@@ -558,13 +791,48 @@ public class RestaurantControllerTest {
 	}
 
 	@Test
-	public void getItemsByRestaurantId_basic() throws Exception {
-		Menu menu = new Menu("From", "Till", new Restaurant("Resturant2", "Location2", "Indian", 200, 4.3));
+	public void getRestaurantDetail() throws Exception {
+		RestaurantDetailDto detail = new RestaurantDetailDto(new Restaurant("Resturant2", "Location2", "Indian", 200, 4.3),
+				"From", "Till", Arrays.asList(new MenuItemDto(1L, "Dosa", "Plain Dosa", 50)));
 		
+		// mocking
+		when(restaurantService.findDetailById(anyLong(), anyInt(), anyInt())).thenReturn(detail);
+		
+		// request
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/1/detail?pagenumber=1&pagesize=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		// response
+		mockMvc.perform(request)
+			.andExpect(status().is(200))
+			.andExpect(content().json("{restaurant: {name: Resturant2}, activeFrom: From, items: [{name: Dosa, price: 50}]}"))
+			.andReturn();
+	}
+	
+	@Test
+	public void getRestaurantDetail_badRequest() throws Exception {
+		// request
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/1/detail?pagenumber=0&pagesize=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		// response
+		mockMvc.perform(request)
+			.andExpect(status().is(400))
+			.andReturn();
+	}
+
+	@Test
+	public void getItemsByRestaurantId_basic() throws Exception {
 		// mocking
 		when(restaurantService.findMenuItemByRestaurantId(anyLong(), anyInt(), anyInt())).thenReturn(Arrays.asList(
-				new MenuItem("Dosa", "Plain Dosa", 200, menu),
-				new MenuItem("Khara Bath", "Bath", 200, menu)
+				new MenuItemDto(1L, "Dosa", "Plain Dosa", 200),
+				new MenuItemDto(2L, "Khara Bath", "Bath", 200)
 				));
 		
 		// request
@@ -577,6 +845,7 @@ public class RestaurantControllerTest {
 		// response
 		mockMvc.perform(request)
 			.andExpect(status().is(200))
+			.andExpect(jsonPath("$[0].menu").doesNotExist())
 			.andReturn();
 	}
 	
@@ -617,4 +886,58 @@ public class RestaurantControllerTest {
 			.andExpect(status().is(404))
 			.andReturn();
 	}
+
+	@Test
+	public void importRestaurants_ndjson() throws Exception {
+		List<String> names = new ArrayList<>();
+		when(restaurantImportService.importRestaurants(any())).thenAnswer(invocation -> {
+			Iterator<BulkRestaurantDto> restaurants = invocation.getArgument(0);
+			restaurants.forEachRemaining(restaurant -> names.add(restaurant.getName() + ":" + restaurant.getItems().size()));
+			return new BulkImportResponseDto(names.size(), 3);
+		});
+		RequestBuilder request = MockMvcRequestBuilders.post("/restaurants/bulk")
+				.contentType("application/x-ndjson")
+				.content("{\"name\":\"Dominos\",\"items\":[{\"name\":\"Dosa\"}]}\n{\"name\":\"Aura\",\"items\":[{\"name\":\"Pasta\"},{\"name\":\"Pizza\"}]}\n")
+				.header(HttpHeaders.AUTHORIZATION, jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{restaurants: 2, items: 3}"))
+		.andReturn();
+		assertEquals(Arrays.asList("Dominos:1", "Aura:2"), names);
+	}
+
+	@Test
+	public void importRestaurants_array() throws Exception {
+		when(restaurantImportService.importRestaurants(any())).thenAnswer(invocation -> {
+			Iterator<BulkRestaurantDto> restaurants = invocation.getArgument(0);
+			int count = 0;
+			for (; restaurants.hasNext(); restaurants.next()) {
+				count++;
+			}
+			return new BulkImportResponseDto(count, 0);
+		});
+		RequestBuilder request = MockMvcRequestBuilders.post("/restaurants/bulk")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("[{\"name\":\"Dominos\"},{\"name\":\"Aura\"},{\"name\":\"Re\"}]")
+				.header(HttpHeaders.AUTHORIZATION, jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{restaurants: 3, items: 0}"))
+		.andReturn();
+	}
+
+	@Test
+	public void importRestaurants_unreadable() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders.post("/restaurants/bulk")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("]")
+				.header(HttpHeaders.AUTHORIZATION, jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
 }
@@ -0,0 +1,302 @@
+package com.eatza.restaurantsearch.controller;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.Arrays;
+import java.util.Date;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import com.eatza.restaurantsearch.dto.FacetCountDto;
+import com.eatza.restaurantsearch.dto.FacetsDto;
+import com.eatza.restaurantsearch.dto.NearbyRestaurantDto;
+import com.eatza.restaurantsearch.dto.RestaurantResponseDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.ScoredRestaurantDto;
+import com.eatza.restaurantsearch.dto.SuggestionDto;
+import com.eatza.restaurantsearch.dto.TotalsMode;
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+import com.eatza.restaurantsearch.service.restaurantservice.RestaurantService;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+
+@RunWith(SpringRunner.class)
+@WebMvcTest(value= SearchController.class)
+public class SearchControllerTest {
+
+	@Autowired
+	private MockMvc mockMvc;
+
+	@MockBean
+	private RestaurantIndexService restaurantIndexService;
+
+	@MockBean
+	private RestaurantService restaurantService;
+
+	String jwt="";
+	private static final long EXPIRATIONTIME = 900000;
+	@Before
+	public void setup() {
+		jwt = "Bearer "+Jwts.builder().setSubject("user").claim("roles", "user").setIssuedAt(new Date())
+				.signWith(SignatureAlgorithm.HS256, "secretkey").setExpiration(new Date(System.currentTimeMillis() + EXPIRATIONTIME)).compact();
+	}
+
+	@Test
+	public void suggest() throws Exception {
+		when(restaurantIndexService.suggest(anyString(), anyInt())).thenReturn(Arrays.asList(
+				new SuggestionDto("Dominos", "restaurant", 4.5),
+				new SuggestionDto("dosa", "item", 4.1)));
+
+		// request
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/suggest?prefix=do&limit=5")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		// response
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("[{text: Dominos, type: restaurant, rating: 4.5}, {text: dosa, type: item}]"))
+		.andReturn();
+	}
+
+	@Test
+	public void suggest_limitCapped() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/suggest?prefix=do&limit=500")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andReturn();
+		verify(restaurantIndexService).suggest("do", 50);
+	}
+
+	@Test
+	public void suggest_blankPrefix() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/suggest?prefix= ")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
+	@Test
+	public void suggest_zeroLimit() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/suggest?prefix=do&limit=0")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
+	@Test
+	public void search() throws Exception {
+		RestaurantResponseDto responseDto = new RestaurantResponseDto(Arrays.asList(
+				new Restaurant("Aura", "mg road", "italian", 400, 4.2)), 1, 1);
+		when(restaurantService.search(any(RestaurantSearchCriteria.class), anyInt(), anyInt())).thenReturn(responseDto);
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/search?location=mg road&cuisine=italian&budget=500&rating=4&pagenumber=1&pagesize=10")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{restaurants: [{name: Aura}], totalPages: 1, totalElements: 1}"))
+		.andReturn();
+	}
+
+	@Test
+	public void search_totalsNone() throws Exception {
+		RestaurantResponseDto responseDto = new RestaurantResponseDto(Arrays.asList(
+				new Restaurant("Aura", "mg road", "italian", 400, 4.2)), true);
+		when(restaurantService.search(any(RestaurantSearchCriteria.class), anyInt(), anyInt(), eq(TotalsMode.NONE))).thenReturn(responseDto);
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/search?location=mg road&totals=none")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{restaurants: [{name: Aura}], hasNext: true}"))
+		.andExpect(jsonPath("$.totalElements").doesNotExist())
+		.andReturn();
+	}
+
+	@Test
+	public void search_invalidTotals() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/search?location=mg road&totals=some")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
+	@Test
+	public void search_notFound() throws Exception {
+		when(restaurantService.search(any(RestaurantSearchCriteria.class), anyInt(), anyInt()))
+			.thenReturn(new RestaurantResponseDto(Arrays.asList(), 0, 0));
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/search?cuisine=thai")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(404))
+		.andReturn();
+	}
+
+	@Test
+	public void search_badPage() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/search?cuisine=thai&pagenumber=0")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
+	@Test
+	public void facets() throws Exception {
+		FacetsDto facets = new FacetsDto(2, Arrays.asList(new FacetCountDto("italian", 2)), Arrays.asList(new FacetCountDto("mg road", 2)),
+				Arrays.asList(new FacetCountDto("500", 1)), Arrays.asList(new FacetCountDto("4.0", 2)));
+		when(restaurantIndexService.facets(any(RestaurantSearchCriteria.class))).thenReturn(facets);
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/facets?location=mg road")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("{totalElements: 2, cuisines: [{value: italian, count: 2}], budgets: [{value: '500', count: 1}]}"))
+		.andReturn();
+	}
+
+	@Test
+	public void nearby() throws Exception {
+		when(restaurantIndexService.nearby(anyDouble(), anyDouble(), anyDouble(), anyInt(), any(RestaurantSearchCriteria.class)))
+			.thenReturn(Arrays.asList(new NearbyRestaurantDto(new Restaurant("Aura", "mg road", "italian", 400, 4.2), 1.2)));
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/nearby?latitude=12.97&longitude=77.59&radius=5&limit=1000")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("[{restaurant: {name: Aura}, distanceKm: 1.2}]"))
+		.andReturn();
+		verify(restaurantIndexService).nearby(eq(12.97), eq(77.59), eq(5.0), eq(100), any(RestaurantSearchCriteria.class));
+	}
+
+	@Test
+	public void nearby_badCoordinates() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/nearby?latitude=97&longitude=77.59")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
+	@Test
+	public void nearby_notFound() throws Exception {
+		when(restaurantIndexService.nearby(anyDouble(), anyDouble(), anyDouble(), anyInt(), any(RestaurantSearchCriteria.class)))
+			.thenReturn(Arrays.asList());
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/nearby?latitude=12.97&longitude=77.59&radius=1")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(404))
+		.andReturn();
+	}
+
+	@Test
+	public void searchText() throws Exception {
+		when(restaurantIndexService.searchText(anyString(), anyInt()))
+			.thenReturn(Arrays.asList(new ScoredRestaurantDto(new Restaurant("Aura", "mg road", "italian", 400, 4.2), 2.5)));
+
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/text?query=italian pasta&limit=5")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().isOk())
+		.andExpect(content().json("[{restaurant: {name: Aura}, score: 2.5}]"))
+		.andReturn();
+		verify(restaurantIndexService).searchText("italian pasta", 5);
+	}
+
+	@Test
+	public void searchText_blankQuery() throws Exception {
+		RequestBuilder request = MockMvcRequestBuilders
+				.get("/restaurants/text?query= ")
+				.accept(MediaType.APPLICATION_JSON)
+				.header(HttpHeaders.AUTHORIZATION,
+						jwt);
+
+		mockMvc.perform(request)
+		.andExpect(status().is(400))
+		.andReturn();
+	}
+
+}
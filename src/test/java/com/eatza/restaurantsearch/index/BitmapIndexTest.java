@@ -0,0 +1,52 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+public class BitmapIndexTest {
+
+	@Test
+	public void get() {
+		BitmapIndex index = new BitmapIndex();
+		index.add(0, "MG Road");
+		index.add(1, "rr nagar");
+		index.add(2, "mg road");
+		index.add(3, null);
+		assertArrayEquals(new int[] {0, 2}, index.get("mg road").toArray());
+		assertArrayEquals(new int[] {1}, index.get("RR Nagar").toArray());
+		assertTrue(index.get("kormangala").isEmpty());
+		assertTrue(index.get("").isEmpty());
+		assertTrue(index.get(null).isEmpty());
+	}
+
+	@Test
+	public void get_matchesLowerEquality() {
+		BitmapIndex index = new BitmapIndex();
+		index.add(0, "MG Road");
+		index.add(1, "mg  road");
+		index.add(2, "mg road ");
+		assertArrayEquals(new int[] {0}, index.get("mg road").toArray());
+		assertArrayEquals(new int[] {1}, index.get("MG  Road").toArray());
+		assertArrayEquals(new int[] {2}, index.get("Mg Road ").toArray());
+	}
+
+	@Test
+	public void count() {
+		BitmapIndex index = new BitmapIndex();
+		index.add(0, "Italian");
+		index.add(1, "indian");
+		index.add(2, "italian");
+		Map<String, Integer> counts = new LinkedHashMap<>();
+		index.count(RoaringBitmap.bitmapOf(0, 2), counts::put);
+		assertEquals(1, counts.size());
+		assertEquals(Integer.valueOf(2), counts.get("Italian"));
+	}
+
+}
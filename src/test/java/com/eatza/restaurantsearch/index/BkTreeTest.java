@@ -0,0 +1,61 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BkTreeTest {
+
+	BkTree tree;
+
+	@Before
+	public void setup() {
+		tree = new BkTree();
+		tree.addText("Dominos", 0);
+		tree.addText("mg road", 1);
+		tree.addText("Pizza Hut", 2);
+		tree.addText("Dominos", 3);
+	}
+
+	@Test
+	public void search() {
+		Map<Integer, Integer> distances = new HashMap<>();
+		tree.search("dominoes", 2, distances);
+		assertEquals(2, distances.size());
+		assertEquals(Integer.valueOf(1), distances.get(0));
+		assertEquals(Integer.valueOf(1), distances.get(3));
+	}
+
+	@Test
+	public void search_words() {
+		Map<Integer, Integer> distances = new HashMap<>();
+		tree.search("mg  rd", 2, distances);
+		assertEquals(Integer.valueOf(2), distances.get(1));
+		distances.clear();
+		tree.search("piza", 1, distances);
+		assertTrue(distances.containsKey(2));
+	}
+
+	@Test
+	public void search_outOfRange() {
+		Map<Integer, Integer> distances = new HashMap<>();
+		tree.search("burger", 2, distances);
+		assertTrue(distances.isEmpty());
+		tree.search("domino", 0, distances);
+		assertFalse(distances.containsKey(0));
+	}
+
+	@Test
+	public void distance() {
+		assertEquals(3, BkTree.distance("kitten", "sitting"));
+		assertEquals(0, BkTree.distance("", ""));
+		assertEquals(4, BkTree.distance("", "aura"));
+	}
+
+}
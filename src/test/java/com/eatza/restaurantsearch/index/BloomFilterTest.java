@@ -0,0 +1,40 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class BloomFilterTest {
+
+	@Test
+	public void mightContain() {
+		BloomFilter filter = new BloomFilter(1000, 0.01);
+		for (int i = 0; i < 1000; i++) {
+			filter.add("item" + i);
+		}
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(filter.mightContain("item" + i));
+		}
+		int falsePositives = 0;
+		for (int i = 0; i < 10000; i++) {
+			if (filter.mightContain("other" + i)) {
+				falsePositives++;
+			}
+		}
+		assertTrue("false positives: " + falsePositives, falsePositives < 300);
+	}
+
+	@Test
+	public void empty() {
+		BloomFilter filter = new BloomFilter(10, 0.01);
+		assertFalse(filter.mightContain("raj"));
+		assertFalse(filter.mightContain(""));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidRate() {
+		new BloomFilter(10, 1);
+	}
+
+}
@@ -0,0 +1,85 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import com.eatza.restaurantsearch.index.Bm25Index.ScoredDocs;
+
+public class Bm25IndexTest {
+
+	Bm25Index index;
+
+	@Before
+	public void setup() {
+		index = new Bm25Index();
+		index.add(0, "Pizza Hut", 3);
+		index.add(0, "Cheese pizza with extra cheese", 1);
+		index.add(1, "Dosa Camp", 3);
+		index.add(1, "Masala dosa, cheese dosa", 1);
+		index.add(2, "Burger Barn", 3);
+		index.add(2, "Pizza burger", 1);
+		index.compact();
+	}
+
+	@Test
+	public void search() {
+		ScoredDocs top = index.search("pizza", 10);
+		assertEquals(2, top.size());
+		assertEquals(2, top.matched());
+		assertEquals(0, top.doc(0));
+		assertEquals(2, top.doc(1));
+		assertTrue(top.score(0) > top.score(1));
+	}
+
+	@Test
+	public void search_rareTermsWeighMore() {
+		ScoredDocs top = index.search("cheese masala", 10);
+		assertEquals(1, top.doc(0));
+		assertEquals(0, top.doc(1));
+	}
+
+	@Test
+	public void search_limit() {
+		ScoredDocs top = index.search("pizza dosa burger", 1);
+		assertEquals(1, top.size());
+		assertEquals(3, top.matched());
+	}
+
+	@Test
+	public void search_noMatch() {
+		assertEquals(0, index.search("sushi", 10).size());
+		assertEquals(0, index.search("", 10).size());
+	}
+
+	@Test
+	public void compact_outOfOrder() {
+		Bm25Index shuffled = new Bm25Index();
+		shuffled.add(2, "Burger Barn", 3);
+		shuffled.add(0, "Pizza Hut", 3);
+		shuffled.add(1, "Dosa Camp", 3);
+		shuffled.add(2, "Pizza burger", 1);
+		shuffled.add(0, "Cheese pizza with extra cheese", 1);
+		shuffled.add(1, "Masala dosa, cheese dosa", 1);
+		shuffled.compact();
+		for (String query : new String[] {"pizza", "cheese masala", "pizza dosa burger"}) {
+			ScoredDocs expected = index.search(query, 10);
+			ScoredDocs actual = shuffled.search(query, 10);
+			assertEquals(expected.size(), actual.size());
+			for (int i = 0; i < expected.size(); i++) {
+				assertEquals(expected.doc(i), actual.doc(i));
+				assertEquals(expected.score(i), actual.score(i), 1e-9);
+			}
+		}
+	}
+
+	@Test
+	public void tokens() {
+		assertArrayEquals(new String[] {"paneer", "tikka", "spicy"}, Terms.tokens("  Paneer-Tikka, spicy!"));
+		assertEquals(0, Terms.tokens(" ,.").length);
+	}
+
+}
@@ -0,0 +1,91 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.roaringbitmap.RoaringBitmap;
+
+public class ColumnarRangeIndexTest {
+
+	ColumnarRangeIndex index;
+
+	@Before
+	public void setup() {
+		index = new ColumnarRangeIndex();
+		index.add(0, 400, 4.2);
+		index.add(1, 200, 4.1);
+		index.add(2, 400, 4.8);
+		index.add(3, 900, 3.5);
+		index.add(4, 150, 4.2);
+	}
+
+	@Test
+	public void budgetAtMost() {
+		assertEquals(4, index.countBudgetAtMost(400));
+		assertArrayEquals(new int[] {4, 1, 0, 2}, index.budgetAtMost(400, 0, 10).toArray());
+		assertArrayEquals(new int[] {0, 2}, index.budgetAtMost(400, 2, 2).toArray());
+		assertEquals(0, index.countBudgetAtMost(100));
+		assertEquals(5, index.countBudgetAtMost(Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void ratingAtLeast() {
+		assertEquals(4, index.countRatingAtLeast(4.1));
+		assertArrayEquals(new int[] {2, 0, 4, 1}, index.ratingAtLeast(4.1, 0, 10).toArray());
+		assertArrayEquals(new int[] {4}, index.ratingAtLeast(4.1, 2, 1).toArray());
+		assertEquals(0, index.countRatingAtLeast(5));
+	}
+
+	@Test
+	public void countBands() {
+		RoaringBitmap docs = RoaringBitmap.bitmapOf(0, 1, 3);
+		assertArrayEquals(new int[] {1, 2, 3}, index.countBudgetAtMost(docs, new int[] {250, 500, 1000}));
+		assertArrayEquals(new int[] {0, 2, 3}, index.countRatingAtLeast(docs, new double[] {4.5, 4, 3}));
+	}
+
+	@Test
+	public void pagePastEnd() {
+		assertTrue(index.budgetAtMost(400, 4, 10).isEmpty());
+		assertTrue(index.ratingAtLeast(0, 50, 10).isEmpty());
+	}
+
+	@Test
+	public void grows() {
+		for (int doc = 5; doc < 100; doc++) {
+			index.add(doc, 1000 - doc, 1);
+		}
+		assertEquals(100, index.size());
+		assertArrayEquals(new int[] {99, 98}, index.budgetAtMost(1000, 5, 2).toArray());
+	}
+
+	@Test
+	public void addAllMatchesSingleAdds() {
+		ColumnarRangeIndex bulk = new ColumnarRangeIndex();
+		bulk.addAll(new int[] {0, 1}, new int[] {400, 200}, new double[] {4.2, 4.1}, 2);
+		bulk.addAll(new int[] {2, 3, 4}, new int[] {400, 900, 150}, new double[] {4.8, 3.5, 4.2}, 3);
+		assertEquals(5, bulk.size());
+		assertArrayEquals(index.budgetAtMost(Integer.MAX_VALUE, 0, 10).toArray(), bulk.budgetAtMost(Integer.MAX_VALUE, 0, 10).toArray());
+		assertArrayEquals(index.ratingAtLeast(0, 0, 10).toArray(), bulk.ratingAtLeast(0, 0, 10).toArray());
+		bulk.add(5, 300, 4.5);
+		assertArrayEquals(new int[] {4, 1, 5}, bulk.budgetAtMost(300, 0, 10).toArray());
+	}
+
+	@Test
+	public void prefixBitmapsSharedUntilWrite() {
+		RoaringBitmap cheap = index.budgetAtMostBitmap(400);
+		assertArrayEquals(new int[] {0, 1, 2, 4}, cheap.toArray());
+		assertSame(cheap, index.budgetAtMostBitmap(450));
+		assertArrayEquals(new int[] {0, 2, 4}, index.ratingAtLeastBitmap(4.2).toArray());
+		index.add(5, 100, 5);
+		RoaringBitmap updated = index.budgetAtMostBitmap(400);
+		assertNotSame(cheap, updated);
+		assertArrayEquals(new int[] {0, 1, 2, 4, 5}, updated.toArray());
+		assertArrayEquals(new int[] {0, 2, 4, 5}, index.ratingAtLeastBitmap(4.2).toArray());
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GeoGridTest {
+
+	GeoGrid grid;
+
+	@Before
+	public void setup() {
+		grid = new GeoGrid(0.05);
+		grid.add(0, 12.9255, 77.5468);
+		grid.add(1, 12.9756, 77.6050);
+		grid.add(2, 12.9352, 77.6245);
+		grid.add(3, 13.1986, 77.7066);
+		grid.add(4, 19.0760, 72.8777);
+	}
+
+	@Test
+	public void distanceKm() {
+		assertEquals(0, GeoGrid.distanceKm(12.97, 77.59, 12.97, 77.59), 0.0);
+		assertEquals(845, GeoGrid.distanceKm(12.9716, 77.5946, 19.0760, 72.8777), 5);
+	}
+
+	@Test
+	public void nearest() {
+		assertArrayEquals(new int[] {1, 2, 0}, grid.nearest(12.9716, 77.5946, 3, Double.POSITIVE_INFINITY, null).toArray());
+		assertArrayEquals(new int[] {4}, grid.nearest(19.0, 72.8, 1, Double.POSITIVE_INFINITY, null).toArray());
+		assertEquals(5, grid.nearest(0, 0, 10, Double.POSITIVE_INFINITY, null).size());
+	}
+
+	@Test
+	public void nearest_radius() {
+		assertArrayEquals(new int[] {1}, grid.nearest(12.9716, 77.5946, 10, 2, null).toArray());
+		assertEquals(3, grid.nearest(12.9716, 77.5946, 10, 10, null).size());
+		assertTrue(grid.nearest(0, 0, 10, 100, null).isEmpty());
+	}
+
+	@Test
+	public void nearest_filter() {
+		assertArrayEquals(new int[] {2, 3}, grid.nearest(12.9716, 77.5946, 2, Double.POSITIVE_INFINITY, doc -> doc > 1).toArray());
+	}
+
+	@Test
+	public void nearest_matchesBruteForce() {
+		Random random = new Random(7);
+		GeoGrid dense = new GeoGrid(0.01);
+		double[][] points = new double[2000][];
+		for (int doc = 0; doc < points.length; doc++) {
+			points[doc] = new double[] {12.8 + random.nextDouble() * 0.4, 77.4 + random.nextDouble() * 0.4};
+			dense.add(doc, points[doc][0], points[doc][1]);
+		}
+		IntList nearest = dense.nearest(13.0, 77.6, 5, Double.POSITIVE_INFINITY, null);
+		double fifth = GeoGrid.distanceKm(points[nearest.last()][0], points[nearest.last()][1], 13.0, 77.6);
+		int closer = 0;
+		for (double[] point : points) {
+			if (GeoGrid.distanceKm(point[0], point[1], 13.0, 77.6) <= fifth) {
+				closer++;
+			}
+		}
+		assertEquals(5, closer);
+	}
+
+	@Test
+	public void nearest_farFromData() {
+		GeoGrid fine = new GeoGrid(0.001);
+		fine.add(0, 12.9255, 77.5468);
+		fine.add(1, 12.9756, 77.6050);
+		fine.add(2, -33.8688, 151.2093);
+		assertArrayEquals(new int[] {2, 1}, fine.nearest(-40, 170, 2, Double.POSITIVE_INFINITY, null).toArray());
+		assertTrue(fine.nearest(-40, 170, 2, Double.POSITIVE_INFINITY, doc -> false).isEmpty());
+		assertArrayEquals(new int[] {0}, fine.nearest(-40, 170, 1, Double.POSITIVE_INFINITY, doc -> doc == 0).toArray());
+	}
+
+	@Test
+	public void nearest_antimeridian() {
+		GeoGrid dateline = new GeoGrid(0.05);
+		dateline.add(0, 0, 179.9);
+		dateline.add(1, 0, -179.9);
+		dateline.add(2, 0, 179.0);
+		assertArrayEquals(new int[] {1, 0}, dateline.nearest(0, -179.95, 2, Double.POSITIVE_INFINITY, null).toArray());
+		assertArrayEquals(new int[] {0, 1}, dateline.nearest(0, 179.95, 2, Double.POSITIVE_INFINITY, null).toArray());
+		assertArrayEquals(new int[] {0, 1}, dateline.nearest(0, 180, 3, 20, null).toArray());
+		assertEquals(22.2, GeoGrid.distanceKm(0, 179.9, 0, -179.9), 0.1);
+	}
+
+}
@@ -0,0 +1,50 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class PrefixTrieTest {
+
+	PrefixTrie trie;
+
+	@Before
+	public void setup() {
+		trie = new PrefixTrie();
+		trie.add("dominos", 0, 4.5);
+		trie.add("domino pizza", 1, 3.9);
+		trie.add("pizza", 1, 3.9);
+		trie.add("dosa camp", 2, 4.8);
+		trie.add("aura", 3, 4.1);
+	}
+
+	@Test
+	public void complete() {
+		assertArrayEquals(new int[] {2, 0, 1}, trie.complete("do", 10).toArray());
+		assertArrayEquals(new int[] {0, 1}, trie.complete("dom", 10).toArray());
+		assertArrayEquals(new int[] {1}, trie.complete("piz", 10).toArray());
+	}
+
+	@Test
+	public void complete_limit() {
+		assertArrayEquals(new int[] {2}, trie.complete("d", 1).toArray());
+		assertEquals(4, trie.complete("", 10).size());
+	}
+
+	@Test
+	public void complete_noMatch() {
+		assertTrue(trie.complete("x", 10).isEmpty());
+		assertTrue(trie.complete("dominoss", 10).isEmpty());
+	}
+
+	@Test
+	public void add_keepsHighestScore() {
+		trie.add("domino pizza", 1, 4.9);
+		assertArrayEquals(new int[] {1, 2, 0}, trie.complete("do", 10).toArray());
+		assertEquals(4.9, trie.score(1), 0.0);
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.eatza.restaurantsearch.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TrigramIndexTest {
+
+	TrigramIndex index;
+
+	@Before
+	public void setup() {
+		index = new TrigramIndex();
+		index.add(0, "Dominos");
+		index.add(1, "Aura");
+		index.add(2, "Domino Pizza");
+		index.add(3, "Pizza Hut");
+		index.add(5, "aaa");
+	}
+
+	@Test
+	public void search() {
+		assertArrayEquals(new int[] {0, 2}, index.search("domino").toArray());
+		assertArrayEquals(new int[] {2, 3}, index.search("PIZZA").toArray());
+		assertArrayEquals(new int[] {0}, index.search("nos").toArray());
+	}
+
+	@Test
+	public void search_shortQuery() {
+		assertArrayEquals(new int[] {1, 3}, index.search("u").toArray());
+		assertEquals(5, index.search("").size());
+	}
+
+	@Test
+	public void search_verifiesCandidates() {
+		assertEquals(0, index.search("aaaa").size());
+		assertEquals(0, index.search("pizza dom").size());
+		assertEquals(0, index.search("xyz").size());
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void add_outOfOrder() {
+		index.add(4, "Late");
+	}
+
+	@Test
+	public void intersect() {
+		IntList small = new IntList();
+		small.add(3);
+		small.add(40);
+		small.add(99);
+		IntList large = new IntList();
+		for (int i = 0; i < 100; i += 2) {
+			large.add(i);
+		}
+		assertArrayEquals(new int[] {40}, TrigramIndex.intersect(small, large).toArray());
+	}
+
+}
@@ -0,0 +1,222 @@
+package com.eatza.restaurantsearch.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.ItemImportFormat;
+import com.eatza.restaurantsearch.dto.ItemImportResponseDto;
+import com.eatza.restaurantsearch.dto.LineErrorDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
+import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.repository.MenuRepository;
+import com.eatza.restaurantsearch.repository.MenuRepository.MenuRestaurantView;
+import com.eatza.restaurantsearch.service.importservice.ItemImportServiceImpl;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@RunWith(SpringRunner.class)
+public class ItemImportServiceTest {
+
+	@InjectMocks
+	ItemImportServiceImpl itemImportService;
+
+	@Mock
+	EntityManager entityManager;
+
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	@Mock
+	MenuRepository menuRepository;
+
+	@Mock
+	RestaurantIndexService restaurantIndexService;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Captor
+	ArgumentCaptor<List<MenuItemDto>> indexedItems;
+
+	@Before
+	public void setup() {
+		ReflectionTestUtils.setField(itemImportService, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(itemImportService, "chunkSize", 2);
+		ReflectionTestUtils.setField(itemImportService, "maxErrors", 10);
+		List<MenuRestaurantView> menus = Arrays.asList(menu(1L, 10L), menu(2L, 20L));
+		when(menuRepository.findRestaurantIdsByIdIn(anyCollection())).thenReturn(menus);
+	}
+
+	@Test
+	public void importItems_ndjson() throws Exception {
+		ItemImportResponseDto imported = itemImportService.importItems(lines(
+				"{\"menuId\":1,\"name\":\"Dosa\",\"description\":\"Crisp\",\"price\":80}",
+				"",
+				"{\"menuId\":9,\"name\":\"Idli\",\"price\":40}",
+				"{\"menuId\":2,\"name\":",
+				"{\"menuId\":2,\"price\":40}",
+				"{\"menuId\":2,\"name\":\"Vada\",\"price\":30}"), ItemImportFormat.NDJSON);
+
+		assertEquals(2, imported.getImported());
+		assertEquals(3, imported.getFailed());
+		assertEquals(Arrays.asList(3L, 4L, 5L), lineNumbers(imported.getErrors()));
+		assertEquals("Menu 9 not found", imported.getErrors().get(0).getMessage());
+		assertEquals("name is required", imported.getErrors().get(2).getMessage());
+		verify(entityManager, times(2)).persist(any(MenuItem.class));
+		verify(transactionManager, times(2)).commit(any());
+		verify(restaurantIndexService, times(2)).indexItems(indexedItems.capture());
+		assertEquals(Arrays.asList("Dosa@10", "Vada@20"), indexed());
+		assertEquals("Crisp", indexedItems.getAllValues().get(0).get(0).getDescription());
+		verify(catalogVersion, times(2)).bump();
+	}
+
+	@Test
+	public void importItems_csv() throws Exception {
+		ItemImportResponseDto imported = itemImportService.importItems(lines(
+				"name,price,menuId,description",
+				"\"Masala, Dosa\",80,1,\"The \"\"crisp\"\" one\"",
+				"Idli,forty,1,",
+				"Vada,30,2",
+				"\"Upma,20,1,"), ItemImportFormat.CSV);
+
+		assertEquals(2, imported.getImported());
+		assertEquals(2, imported.getFailed());
+		assertEquals(Arrays.asList(3L, 5L), lineNumbers(imported.getErrors()));
+		assertEquals("price is not a whole number: forty", imported.getErrors().get(0).getMessage());
+		verify(restaurantIndexService).indexItems(indexedItems.capture());
+		assertEquals(Arrays.asList("Masala, Dosa@10", "Vada@20"), indexed());
+		assertEquals("The \"crisp\" one", indexedItems.getValue().get(0).getDescription());
+	}
+
+	@Test
+	public void importItems_csvWithoutHeader() throws Exception {
+		try {
+			itemImportService.importItems(lines("1,Dosa,80"), ItemImportFormat.CSV);
+			fail();
+		} catch (RestaurantBadRequestException e) {
+			assertEquals("CSV header must name the menuId, name and price columns", e.getMessage());
+		}
+		verify(transactionManager, times(0)).commit(any());
+	}
+
+	@Test
+	public void importItems_errorsCapped() throws Exception {
+		ReflectionTestUtils.setField(itemImportService, "maxErrors", 2);
+		List<String> lines = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			lines.add("{\"menuId\":9,\"name\":\"Idli\"}");
+		}
+		ItemImportResponseDto imported = itemImportService.importItems(lines(lines.toArray(new String[0])), ItemImportFormat.NDJSON);
+
+		assertEquals(0, imported.getImported());
+		assertEquals(5, imported.getFailed());
+		assertEquals(2, imported.getErrors().size());
+		verify(transactionManager, times(0)).commit(any());
+		verify(restaurantIndexService, times(0)).indexItems(anyList());
+	}
+
+	@Test
+	public void importItems_nullLine() throws Exception {
+		ItemImportResponseDto imported = itemImportService.importItems(lines(
+				"null",
+				"{\"menuId\":1,\"name\":\"Dosa\",\"price\":80}"), ItemImportFormat.NDJSON);
+
+		assertEquals(1, imported.getImported());
+		assertEquals(1, imported.getFailed());
+		assertEquals(Arrays.asList(1L), lineNumbers(imported.getErrors()));
+		assertEquals("Line is not a JSON object", imported.getErrors().get(0).getMessage());
+	}
+
+	@Test
+	public void importItems_badRowRetried() throws Exception {
+		doThrow(new PersistenceException("constraint")).when(entityManager)
+				.persist(argThat(item -> item instanceof MenuItem && "Bad".equals(((MenuItem) item).getName())));
+		ItemImportResponseDto imported = itemImportService.importItems(lines(
+				"{\"menuId\":1,\"name\":\"Bad\",\"price\":80}",
+				"{\"menuId\":2,\"name\":\"Vada\",\"price\":30}"), ItemImportFormat.NDJSON);
+
+		assertEquals(1, imported.getImported());
+		assertEquals(1, imported.getFailed());
+		assertEquals(Arrays.asList(1L), lineNumbers(imported.getErrors()));
+		assertEquals("Could not save item", imported.getErrors().get(0).getMessage());
+		verify(transactionManager, times(1)).commit(any());
+		verify(restaurantIndexService).indexItems(indexedItems.capture());
+		assertEquals(Arrays.asList("Vada@20"), indexed());
+		verify(catalogVersion).bump();
+	}
+
+	@Test
+	public void importItems_errorsCappedByLine() throws Exception {
+		ReflectionTestUtils.setField(itemImportService, "maxErrors", 2);
+		ItemImportResponseDto imported = itemImportService.importItems(lines(
+				"{\"menuId\":9,\"name\":\"Idli\"}",
+				"{\"menuId\":",
+				"{\"menuId\":",
+				"{\"menuId\":9,\"name\":\"Idli\"}"), ItemImportFormat.NDJSON);
+
+		assertEquals(4, imported.getFailed());
+		// The unknown menu on line 1 is only found with its chunk, after the parse errors on lines 2 and 3
+		assertEquals(Arrays.asList(1L, 2L), lineNumbers(imported.getErrors()));
+	}
+
+	private List<String> indexed() {
+		List<String> names = new ArrayList<>();
+		for (List<MenuItemDto> batch : indexedItems.getAllValues()) {
+			for (MenuItemDto item : batch) {
+				names.add(item.getName() + "@" + item.getRestaurantId());
+			}
+		}
+		return names;
+	}
+
+	private static BufferedReader lines(String... lines) {
+		return new BufferedReader(new StringReader(String.join("\n", lines)));
+	}
+
+	private static List<Long> lineNumbers(List<LineErrorDto> errors) {
+		List<Long> lines = new ArrayList<>();
+		for (LineErrorDto error : errors) {
+			lines.add(error.getLine());
+		}
+		return lines;
+	}
+
+	private static MenuRestaurantView menu(Long id, Long restaurantId) {
+		MenuRestaurantView menu = mock(MenuRestaurantView.class);
+		when(menu.getId()).thenReturn(id);
+		when(menu.getRestaurantId()).thenReturn(restaurantId);
+		return menu;
+	}
+
+}
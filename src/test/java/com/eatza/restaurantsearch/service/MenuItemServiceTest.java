@@ -1,13 +1,17 @@
 package com.eatza.restaurantsearch.service;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static  org.mockito.ArgumentMatchers.any;
 import static  org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
 
@@ -22,6 +26,8 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.cache.NegativeCache;
 import com.eatza.restaurantsearch.dto.ItemRequestDto;
 import com.eatza.restaurantsearch.exception.ItemNotFoundException;
 import com.eatza.restaurantsearch.exception.MenuNotSavedException;
@@ -33,7 +39,7 @@ import com.eatza.restaurantsearch.model.Restaurant;
 import com.eatza.restaurantsearch.repository.MenuItemRepository;
 import com.eatza.restaurantsearch.service.menuitemservice.MenuItemServiceImpl;
 import com.eatza.restaurantsearch.service.menuservice.MenuService;
-import com.eatza.restaurantsearch.service.restaurantservice.RestaurantService;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
 
 @RunWith(SpringRunner.class)
 public class MenuItemServiceTest {
@@ -48,90 +54,73 @@ public class MenuItemServiceTest {
 	private MenuService menuService;
 	
 	@Mock
-	private RestaurantService restaurantService;
+	private RestaurantIndexService restaurantIndexService;
+
+	@Mock
+	private CatalogVersion catalogVersion;
+
+	@Mock
+	private NegativeCache negativeCache;
 	
 	@Test
 	public void findByNameOfRestaurant() throws ItemNotFoundException {
-		MenuItem menuItem = new MenuItem();
-		menuItem.setDescription("Dosa");
-		menuItem.setId(1L);
 		Restaurant restaurant = new Restaurant("Dominos", "RR", "Italian", 400, 4.1);
 		restaurant.setId(1L);
-		Menu menu = new Menu("10", "22", restaurant);
-		menu.setId(1L);
-		Optional<Menu> optionalMenu= Optional.of(new Menu("10", "22", restaurant));
-		optionalMenu.get().setId(1L);
-		menuItem.setMenu(menu);
-		menuItem.setName("Onion Dosa");
-		menuItem.setPrice(110);
-		List<MenuItem> list = new ArrayList<>();
-		list.add(menuItem);
-		List<MenuItem> menuItems= new ArrayList<>();
-		menuItems.add(menuItem);
-		Page<MenuItem> page = new PageImpl<>(menuItems);
        
-		when(menuItemRepository.findByNameContaining(any(String.class), any(Pageable.class))).thenReturn(page);
-		when(menuService.getMenuById(anyLong())).thenReturn(optionalMenu);
+		when(menuItemRepository.findRestaurantsByItemNameContaining(any(String.class), any(Pageable.class))).thenReturn(Arrays.asList(restaurant));
 		
-		List<Restaurant> restaurantsToReturn =  menuItemService.findByName("Dominos",1,10);
-	
-	}
-	
-	@Test(expected= RestaurantBadRequestException.class)
-	public void findByNameOfRestaurant_empty() throws ItemNotFoundException {
-		MenuItem menuItem = new MenuItem();
-		menuItem.setDescription("Dosa");
-		menuItem.setId(1L);
-		Restaurant restaurant = new Restaurant("Dominos", "RR", "Italian", 400, 4.1);
-		restaurant.setId(1L);
-		Menu menu = new Menu("10", "22", restaurant);
-		menu.setId(1L);
-		Optional<Menu> optionalMenu= Optional.of(new Menu("10", "22", restaurant));
-		optionalMenu.get().setId(1L);
-		menuItem.setMenu(menu);
-		menuItem.setName("Onion Dosa");
-		menuItem.setPrice(110);
-		List<MenuItem> list = new ArrayList<>();
-		list.add(menuItem);
-		List<MenuItem> menuItems= new ArrayList<>();
-		menuItems.add(menuItem);
-		Page<MenuItem> page = new PageImpl<>(menuItems);
-       
-		when(menuItemRepository.findByNameContaining(any(String.class), any(Pageable.class))).thenReturn(page);
-		when(menuService.getMenuById(anyLong())).thenReturn(Optional.empty());
-		
-		menuItemService.findByName("Dominos",1,10);
-	
+		List<Restaurant> restaurantsToReturn =  menuItemService.findByName("Dosa",1,10);
+		assertEquals(1, restaurantsToReturn.size());
+		assertEquals("Dominos", restaurantsToReturn.get(0).getName());
+		verify(menuItemRepository).findRestaurantsByItemNameContaining("Dosa", PageRequest.of(0, 10));
+		verify(menuService, never()).getMenuById(anyLong());
 	}
 	
 	@Test(expected=ItemNotFoundException.class)
 	public void findByNameOfRestaurant_exception() throws ItemNotFoundException {
-		MenuItem menuItem = new MenuItem();
-		menuItem.setDescription("Dosa");
-		menuItem.setId(1L);
-		Restaurant restaurant = new Restaurant("Dominos", "RR", "Italian", 400, 4.1);
-		restaurant.setId(1L);
-		Menu menu = new Menu("10", "22", restaurant);
-		menu.setId(1L);
-		Optional<Menu> optionalMenu= Optional.of(new Menu("10", "22", restaurant));
-		optionalMenu.get().setId(1L);
-		menuItem.setMenu(menu);
-		menuItem.setName("Onion Dosa");
-		menuItem.setPrice(110);
-		List<MenuItem> list = new ArrayList<>();
-		list.add(menuItem);
-       
-		when(menuItemRepository.findByNameContaining(any(String.class), any(Pageable.class))).thenReturn(Mockito.mock(Page.class));
-		when(menuService.getMenuById(anyLong())).thenReturn(optionalMenu);
-		
-		List<Restaurant> restaurantsToReturn =  menuItemService.findByName("Dominos",1,10);
+		when(menuItemRepository.findRestaurantsByItemNameContaining(any(String.class), any(Pageable.class))).thenReturn(Collections.emptyList());
 		
+		menuItemService.findByName("Dosa",1,10);
+		verify(negativeCache).recordMiss("menuitemsbyname", "Dosa", 1, 10);
+	}
 
-		
-		
-		
+	@Test(expected=ItemNotFoundException.class)
+	public void findByNameOfRestaurant_excludedByIndex() throws ItemNotFoundException {
+		when(restaurantIndexService.excludesItemName("zzzz")).thenReturn(true);
+		try {
+			menuItemService.findByName("zzzz",1,10);
+		} finally {
+			verify(menuItemRepository, never()).findRestaurantsByItemNameContaining(any(String.class), any(Pageable.class));
+		}
+	}
+
+	@Test(expected=ItemNotFoundException.class)
+	public void findByNameOfRestaurant_knownMiss() throws ItemNotFoundException {
+		when(negativeCache.isKnownMiss("menuitemsbyname", "Dosa", 1, 10)).thenReturn(true);
+		try {
+			menuItemService.findByName("Dosa",1,10);
+		} finally {
+			verify(menuItemRepository, never()).findRestaurantsByItemNameContaining(any(String.class), any(Pageable.class));
+		}
 	}
 	
+	@Test
+	public void findByNameFuzzy() throws ItemNotFoundException {
+		Restaurant restaurant = new Restaurant("Dominos", "RR", "Italian", 400, 4.1);
+		Page<Restaurant> page = new PageImpl<>(Arrays.asList(restaurant));
+		when(restaurantIndexService.isReady()).thenReturn(true);
+		when(restaurantIndexService.findByItemNameFuzzy(any(String.class), any(Pageable.class))).thenReturn(page);
+		List<Restaurant> restaurantsToReturn = menuItemService.findByNameFuzzy("rajmaa", 1, 10);
+		assertEquals("Dominos", restaurantsToReturn.get(0).getName());
+	}
+
+	@Test(expected=ItemNotFoundException.class)
+	public void findByNameFuzzy_empty() throws ItemNotFoundException {
+		when(restaurantIndexService.isReady()).thenReturn(true);
+		when(restaurantIndexService.findByItemNameFuzzy(any(String.class), any(Pageable.class))).thenReturn(new PageImpl<>(new ArrayList<>()));
+		menuItemService.findByNameFuzzy("biryani", 1, 10);
+	}
+
 	@Test
 	public void saveMenuItem() {
 		MenuItem menuItem = new MenuItem();
@@ -154,6 +143,7 @@ public class MenuItemServiceTest {
 		when(menuItemRepository.save(any(MenuItem.class))).thenReturn(menuItem);
 		MenuItem savedItem = menuItemService.saveMenuItem(dto);
 		assertNotNull(savedItem);
+		verify(catalogVersion).bump();
 		
 	}
 	
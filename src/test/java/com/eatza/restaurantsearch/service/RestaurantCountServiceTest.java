@@ -0,0 +1,74 @@
+package com.eatza.restaurantsearch.service;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.eatza.restaurantsearch.service.restaurantcountservice.RestaurantCountServiceImpl;
+import com.github.benmanes.caffeine.cache.Cache;
+
+public class RestaurantCountServiceTest {
+
+	RestaurantCountServiceImpl restaurantCountService;
+
+	@Before
+	public void setup() {
+		restaurantCountService = new RestaurantCountServiceImpl();
+		ReflectionTestUtils.setField(restaurantCountService, "refreshAfterMillis", 60000L);
+		ReflectionTestUtils.setField(restaurantCountService, "maxEntries", 10000);
+		restaurantCountService.start();
+	}
+
+	@After
+	public void shutdown() {
+		restaurantCountService.shutdown();
+	}
+
+	@Test
+	public void approximateCount_countsOnce() {
+		AtomicInteger calls = new AtomicInteger();
+		assertEquals(5, restaurantCountService.approximateCount("name:Dom", () -> { calls.incrementAndGet(); return 5; }));
+		assertEquals(5, restaurantCountService.approximateCount("name:Dom", () -> { calls.incrementAndGet(); return 9; }));
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void approximateCount_staleRefreshedInBackground() throws InterruptedException {
+		ReflectionTestUtils.setField(restaurantCountService, "refreshAfterMillis", -1L);
+		restaurantCountService.approximateCount("budget:400", () -> 5);
+		CountDownLatch recounted = new CountDownLatch(1);
+		assertEquals(5, restaurantCountService.approximateCount("budget:400", () -> { recounted.countDown(); return 9; }));
+		recounted.await(5, TimeUnit.SECONDS);
+		long count = 5;
+		for (int i = 0; i < 50 && count == 5; i++) {
+			Thread.sleep(20);
+			ReflectionTestUtils.setField(restaurantCountService, "refreshAfterMillis", 60000L);
+			count = restaurantCountService.approximateCount("budget:400", () -> 0);
+		}
+		assertEquals(9, count);
+	}
+
+	@Test
+	public void approximateCount_boundedEntries() {
+		ReflectionTestUtils.setField(restaurantCountService, "maxEntries", 2);
+		restaurantCountService.start();
+		restaurantCountService.approximateCount("a", () -> 1);
+		restaurantCountService.approximateCount("b", () -> 2);
+		restaurantCountService.approximateCount("c", () -> 3);
+		@SuppressWarnings("unchecked")
+		Cache<String, ?> counts = (Cache<String, ?>) ReflectionTestUtils.getField(restaurantCountService, "counts");
+		ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+		counts.cleanUp();
+		// one filter makes room for the newcomer, the rest stay cached
+		assertEquals(2, counts.estimatedSize());
+	}
+
+}
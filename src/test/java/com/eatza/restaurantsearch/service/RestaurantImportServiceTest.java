@@ -0,0 +1,153 @@
+package com.eatza.restaurantsearch.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.BulkImportResponseDto;
+import com.eatza.restaurantsearch.dto.BulkRestaurantDto;
+import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.service.importservice.RestaurantImportServiceImpl;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+
+@RunWith(SpringRunner.class)
+public class RestaurantImportServiceTest {
+
+	@InjectMocks
+	RestaurantImportServiceImpl restaurantImportService;
+
+	@Mock
+	EntityManager entityManager;
+
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	@Mock
+	RestaurantIndexService restaurantIndexService;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Captor
+	ArgumentCaptor<List<MenuItemDto>> indexedItems;
+
+	long nextId;
+
+	@Before
+	public void setup() {
+		ReflectionTestUtils.setField(restaurantImportService, "chunkSize", 2);
+		nextId = 1000;
+		doAnswer(invocation -> {
+			Object entity = invocation.getArgument(0);
+			if (entity instanceof Restaurant) {
+				((Restaurant) entity).setId(nextId++);
+			}
+			return null;
+		}).when(entityManager).persist(any());
+	}
+
+	@Test
+	public void importRestaurants_chunked() {
+		BulkImportResponseDto imported = restaurantImportService.importRestaurants(Arrays.asList(
+				restaurant("Dominos", "Dosa", "Idli"), restaurant("Aura"), restaurant("Re", "Rajma")).iterator());
+
+		assertEquals(3, imported.getRestaurants());
+		assertEquals(3, imported.getItems());
+		verify(transactionManager, times(2)).commit(any());
+		verify(entityManager, times(2)).flush();
+		verify(entityManager, times(2)).clear();
+		verify(entityManager, times(9)).persist(any());
+		verify(restaurantIndexService, times(2)).indexAll(anyList());
+		verify(restaurantIndexService, times(2)).indexItems(indexedItems.capture());
+		assertEquals(Arrays.asList("Dosa@1000", "Idli@1000"), names(indexedItems.getAllValues().get(0)));
+		assertEquals(Arrays.asList("Rajma@1002"), names(indexedItems.getAllValues().get(1)));
+		verify(restaurantIndexService, times(0)).indexItem(any(), any(), any(), anyLong());
+		verify(catalogVersion, times(2)).bump();
+	}
+
+	@Test
+	public void importRestaurants_empty() {
+		BulkImportResponseDto imported = restaurantImportService.importRestaurants(Collections.<BulkRestaurantDto>emptyIterator());
+
+		assertEquals(0, imported.getRestaurants());
+		verify(transactionManager, times(0)).commit(any());
+		verify(catalogVersion, times(0)).bump();
+	}
+
+	@Test
+	public void importRestaurants_unreadableKeepsEarlier() {
+		List<BulkRestaurantDto> readable = new ArrayList<>(Arrays.asList(restaurant("Dominos"), restaurant("Aura"), restaurant("Re")));
+		Iterator<BulkRestaurantDto> restaurants = new Iterator<BulkRestaurantDto>() {
+			public boolean hasNext() {
+				return true;
+			}
+			public BulkRestaurantDto next() {
+				if (readable.isEmpty()) {
+					throw new IllegalStateException("Unexpected end of input");
+				}
+				return readable.remove(0);
+			}
+		};
+		try {
+			restaurantImportService.importRestaurants(restaurants);
+			fail();
+		} catch (RestaurantBadRequestException e) {
+			assertEquals("Could not read restaurant 4, the 3 before it were imported", e.getMessage());
+		}
+		verify(transactionManager, times(2)).commit(any());
+		verify(restaurantIndexService, times(2)).indexAll(anyList());
+		verify(restaurantIndexService, times(2)).indexItems(Collections.emptyList());
+	}
+
+	private static List<String> names(List<MenuItemDto> items) {
+		List<String> names = new ArrayList<>();
+		for (MenuItemDto item : items) {
+			names.add(item.getName() + "@" + item.getRestaurantId());
+		}
+		return names;
+	}
+
+	private static BulkRestaurantDto restaurant(String name, String... items) {
+		BulkRestaurantDto restaurant = new BulkRestaurantDto();
+		restaurant.setName(name);
+		restaurant.setLocation("mg road");
+		restaurant.setCuisine("indian");
+		List<ItemRequestDto> itemDtos = new ArrayList<>();
+		for (String item : items) {
+			ItemRequestDto itemDto = new ItemRequestDto();
+			itemDto.setName(item);
+			itemDtos.add(itemDto);
+		}
+		restaurant.setItems(itemDtos);
+		return restaurant;
+	}
+
+}
@@ -0,0 +1,390 @@
+package com.eatza.restaurantsearch.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.FacetCountDto;
+import com.eatza.restaurantsearch.dto.FacetsDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.NearbyRestaurantDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.ScoredRestaurantDto;
+import com.eatza.restaurantsearch.dto.SuggestionDto;
+import com.eatza.restaurantsearch.exception.IndexNotReadyException;
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.repository.MenuItemRepository;
+import com.eatza.restaurantsearch.repository.MenuItemRepository.ItemRestaurantView;
+import com.eatza.restaurantsearch.repository.RestaurantRepository;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexServiceImpl;
+
+@RunWith(SpringRunner.class)
+public class RestaurantIndexServiceTest {
+
+	@InjectMocks
+	RestaurantIndexServiceImpl restaurantIndexService;
+
+	@Mock
+	RestaurantRepository restaurantRepository;
+
+	@Mock
+	MenuItemRepository menuItemRepository;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Before
+	public void setup() {
+		ReflectionTestUtils.setField(restaurantIndexService, "maxDistance", 2);
+		ReflectionTestUtils.setField(restaurantIndexService, "budgetBands", new int[] {500, 1000});
+		ReflectionTestUtils.setField(restaurantIndexService, "ratingBands", new double[] {4.5, 4});
+		List<Restaurant> restaurants = new ArrayList<>();
+		restaurants.add(restaurant(1L, "Dominos", "rr nagar", "Soprole", 966, 4.5));
+		restaurants.add(restaurant(2L, "Aura", "mg road", "italian", 967, 4.1));
+		restaurants.add(restaurant(3L, "Re", "kormangala", "indian", 968, 4.9));
+		restaurants.get(0).setLatitude(12.9255);
+		restaurants.get(0).setLongitude(77.5468);
+		restaurants.get(1).setLatitude(12.9756);
+		restaurants.get(1).setLongitude(77.6050);
+		when(restaurantRepository.findAll(any(Sort.class))).thenReturn(restaurants);
+		when(menuItemRepository.findAllItemRestaurants()).thenReturn(Arrays.asList(item(1L, "Rajma", "Kidney beans in a spicy gravy", 1L), item(2L, "whiteChole", "Chickpea curry", 2L)));
+	}
+
+	static ItemRestaurantView item(Long id, String name, String description, Long restaurantId) {
+		return new ItemRestaurantView() {
+			public Long getId() {
+				return id;
+			}
+			public String getName() {
+				return name;
+			}
+			public String getDescription() {
+				return description;
+			}
+			public Long getRestaurantId() {
+				return restaurantId;
+			}
+		};
+	}
+
+	static Restaurant restaurant(Long id, String name, String location, String cuisine, int budget, double rating) {
+		Restaurant restaurant = new Restaurant(name, location, cuisine, budget, rating);
+		restaurant.setId(id);
+		return restaurant;
+	}
+
+	@Test
+	public void rebuild() {
+		assertFalse(restaurantIndexService.isReady());
+		restaurantIndexService.rebuild();
+		assertTrue(restaurantIndexService.isReady());
+		verify(catalogVersion).bump();
+	}
+
+	@Test
+	public void rebuild_keepsWritesMadeDuringSnapshot() {
+		List<Restaurant> snapshot = restaurantRepository.findAll(Sort.by("id"));
+		when(restaurantRepository.findAll(any(Sort.class))).thenAnswer(invocation -> {
+			// Committed and indexed while the rebuild reads its snapshot, which already holds item 1
+			restaurantIndexService.index(restaurant(4L, "Pizza Hut", "jp nagar", "italian", 300, 4.0));
+			restaurantIndexService.indexItem(5L, "Paneer tikka", "Grilled cottage cheese", 4L);
+			restaurantIndexService.indexItem(1L, "Rajma", "Kidney beans in a spicy gravy", 1L);
+			return snapshot;
+		});
+		restaurantIndexService.rebuild();
+
+		assertEquals(1, restaurantIndexService.findByNameContaining("pizza", PageRequest.of(0, 10)).getTotalElements());
+		assertEquals(1, restaurantIndexService.findByBudgetAtMost(300, PageRequest.of(0, 10)).getTotalElements());
+		Page<Restaurant> page = restaurantIndexService.findByItemNameFuzzy("paneer tika", PageRequest.of(0, 10));
+		assertEquals(1, page.getTotalElements());
+		assertEquals("Pizza Hut", page.getContent().get(0).getName());
+		assertEquals(1, restaurantIndexService.findByItemNameFuzzy("rajma", PageRequest.of(0, 10)).getTotalElements());
+	}
+
+	@Test
+	public void findByNameContaining() {
+		restaurantIndexService.rebuild();
+		Page<Restaurant> page = restaurantIndexService.findByNameContaining("dom", PageRequest.of(0, 10));
+		assertEquals(1, page.getTotalElements());
+		assertEquals("Dominos", page.getContent().get(0).getName());
+	}
+
+	@Test
+	public void findByNameContaining_paging() {
+		restaurantIndexService.rebuild();
+		Page<Restaurant> page = restaurantIndexService.findByNameContaining("r", PageRequest.of(1, 1));
+		assertEquals(2, page.getTotalElements());
+		assertEquals(2, page.getTotalPages());
+		assertEquals("Re", page.getContent().get(0).getName());
+		assertTrue(restaurantIndexService.findByNameContaining("r", PageRequest.of(5, 1)).getContent().isEmpty());
+	}
+
+	@Test
+	public void index() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Domino Pizza", "jp nagar", "italian", 300, 4.0));
+		restaurantIndexService.index(restaurant(4L, "Domino Pizza", "jp nagar", "italian", 300, 4.0));
+		Page<Restaurant> page = restaurantIndexService.findByNameContaining("domino", PageRequest.of(0, 10));
+		assertEquals(2, page.getTotalElements());
+	}
+
+	@Test
+	public void findByNameFuzzy() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Dominoes Pizza", "jp nagar", "italian", 300, 4.0));
+		Page<Restaurant> page = restaurantIndexService.findByNameFuzzy("dominoes", PageRequest.of(0, 10));
+		assertEquals(2, page.getTotalElements());
+		assertEquals("Dominoes Pizza", page.getContent().get(0).getName());
+		assertEquals("Dominos", page.getContent().get(1).getName());
+	}
+
+	@Test
+	public void findByLocationAndCuisineFuzzy() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Pasta Street", "mg road", "indian", 300, 4.0));
+		Page<Restaurant> page = restaurantIndexService.findByLocationAndCuisineFuzzy("mg rd", "italain", PageRequest.of(0, 10));
+		assertEquals(2, page.getTotalElements());
+		assertEquals("Aura", page.getContent().get(0).getName());
+		assertEquals("Pasta Street", page.getContent().get(1).getName());
+	}
+
+	@Test
+	public void findByLocationAndNameFuzzy() {
+		restaurantIndexService.rebuild();
+		Page<Restaurant> page = restaurantIndexService.findByLocationAndNameFuzzy("rr nagr", "dominoes", PageRequest.of(0, 10));
+		assertEquals(1, page.getTotalElements());
+		assertEquals("Dominos", page.getContent().get(0).getName());
+	}
+
+	@Test
+	public void findByItemNameFuzzy() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.indexItem(null, "Rajmah Chawal", "Rajma with rice", 3L);
+		Page<Restaurant> page = restaurantIndexService.findByItemNameFuzzy("rajmaa", PageRequest.of(0, 10));
+		assertEquals(2, page.getTotalElements());
+		assertEquals("Dominos", page.getContent().get(0).getName());
+		assertTrue(restaurantIndexService.findByItemNameFuzzy("biryani", PageRequest.of(0, 10)).getContent().isEmpty());
+	}
+
+	@Test
+	public void indexItems() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.indexItems(Arrays.asList(new MenuItemDto(5L, "Paneer tikka", "Grilled cottage cheese", 200, 3L, null),
+				new MenuItemDto(6L, "Masala Dosa", null, 80, 2L, null)));
+		assertEquals("Re", restaurantIndexService.findByItemNameFuzzy("paneer tika", PageRequest.of(0, 10)).getContent().get(0).getName());
+		assertEquals("Aura", restaurantIndexService.searchText("dosa", 10).get(0).getRestaurant().getName());
+	}
+
+	@Test
+	public void excludesItemName() {
+		assertFalse(restaurantIndexService.excludesItemName("zzzz"));
+		restaurantIndexService.rebuild();
+		assertFalse(restaurantIndexService.excludesItemName("RAJ"));
+		assertFalse(restaurantIndexService.excludesItemName("techol"));
+		assertFalse(restaurantIndexService.excludesItemName("zz"));
+		assertFalse(restaurantIndexService.excludesItemName("zz%z"));
+		assertTrue(restaurantIndexService.excludesItemName("zzzz"));
+		restaurantIndexService.indexItem(null, "Zzzzap", "Fizzy", 3L);
+		assertFalse(restaurantIndexService.excludesItemName("zzzz"));
+	}
+
+	@Test
+	public void excludesItemName_accents() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.indexItem(null, "Café Mocha", null, 1L);
+		restaurantIndexService.indexItem(null, "Creme Brulee", null, 2L);
+		assertFalse(restaurantIndexService.excludesItemName("cafe"));
+		assertFalse(restaurantIndexService.excludesItemName("CAFÉ"));
+		assertFalse(restaurantIndexService.excludesItemName("crème brûlée"));
+		assertTrue(restaurantIndexService.excludesItemName("cafés"));
+		// ß may equal "ss" or "s" depending on the collation, so it turns the filter off
+		assertFalse(restaurantIndexService.excludesItemName("straße"));
+		restaurantIndexService.indexItem(null, "Weißwurst", null, 1L);
+		assertFalse(restaurantIndexService.excludesItemName("weisswurst"));
+		assertFalse(restaurantIndexService.excludesItemName("zzzz"));
+	}
+
+	@Test(expected = IndexNotReadyException.class)
+	public void suggest_notReady() {
+		restaurantIndexService.suggest("R", 10);
+	}
+
+	@Test
+	public void suggest() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Rasa", "jp nagar", "kerala", 300, 4.7));
+		List<SuggestionDto> suggestions = restaurantIndexService.suggest("R", 10);
+		assertEquals("Re", suggestions.get(0).getText());
+		assertEquals("restaurant", suggestions.get(0).getType());
+		assertEquals(4.9, suggestions.get(0).getRating(), 0.0);
+		assertEquals("Rasa", suggestions.get(1).getText());
+		assertEquals("mg road", restaurantIndexService.suggest("road", 10).get(0).getText());
+		assertEquals("Rajma", restaurantIndexService.suggest("raj", 10).get(0).getText());
+		assertEquals("item", restaurantIndexService.suggest("raj", 10).get(0).getType());
+		assertEquals(2, restaurantIndexService.suggest("r", 2).size());
+	}
+
+	@Test
+	public void findByBudgetAtMost() {
+		restaurantIndexService.rebuild();
+		Page<Restaurant> page = restaurantIndexService.findByBudgetAtMost(967, PageRequest.of(0, 1));
+		assertEquals(2, page.getTotalElements());
+		assertEquals("Dominos", page.getContent().get(0).getName());
+		page = restaurantIndexService.findByBudgetAtMost(967, PageRequest.of(1, 1));
+		assertEquals("Aura", page.getContent().get(0).getName());
+		assertTrue(restaurantIndexService.findByBudgetAtMost(967, PageRequest.of(2, 1)).getContent().isEmpty());
+	}
+
+	@Test
+	public void findByRatingAtLeast() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Rasa", "jp nagar", "kerala", 300, 4.7));
+		Page<Restaurant> page = restaurantIndexService.findByRatingAtLeast(4.5, PageRequest.of(0, 10));
+		assertEquals(3, page.getTotalElements());
+		assertEquals("Re", page.getContent().get(0).getName());
+		assertEquals("Rasa", page.getContent().get(1).getName());
+		assertEquals("Dominos", page.getContent().get(2).getName());
+	}
+
+	@Test
+	public void search() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Rasa", "MG Road", "Kerala", 300, 4.7));
+		restaurantIndexService.index(restaurant(5L, "Toscano", "mg road", "Italian", 1200, 4.4));
+		Page<Restaurant> page = restaurantIndexService.search(new RestaurantSearchCriteria("mg road", "italian", 1000, 4.0), PageRequest.of(0, 10));
+		assertEquals(1, page.getTotalElements());
+		assertEquals("Aura", page.getContent().get(0).getName());
+		page = restaurantIndexService.search(new RestaurantSearchCriteria("mg road", null, null, 4.2), PageRequest.of(0, 10));
+		assertEquals(2, page.getTotalElements());
+		assertEquals("Rasa", page.getContent().get(0).getName());
+		assertEquals("Toscano", page.getContent().get(1).getName());
+		assertEquals(0, restaurantIndexService.search(new RestaurantSearchCriteria("mg road", "indian", null, null), PageRequest.of(0, 10)).getTotalElements());
+	}
+
+	@Test
+	public void search_paged() {
+		restaurantIndexService.rebuild();
+		Page<Restaurant> page = restaurantIndexService.search(new RestaurantSearchCriteria(), PageRequest.of(1, 2));
+		assertEquals(3, page.getTotalElements());
+		assertEquals(1, page.getContent().size());
+		assertEquals("Re", page.getContent().get(0).getName());
+		assertTrue(restaurantIndexService.search(new RestaurantSearchCriteria(), PageRequest.of(2, 2)).getContent().isEmpty());
+	}
+
+	@Test
+	public void facets() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Rasa", "MG Road", "Kerala", 300, 4.7));
+		restaurantIndexService.index(restaurant(5L, "Toscano", "mg road", "Italian", 1200, 4.4));
+		FacetsDto facets = restaurantIndexService.facets(new RestaurantSearchCriteria("mg road", "italian", null, null));
+		assertEquals(2, facets.getTotalElements());
+		assertEquals("italian", facets.getCuisines().get(0).getValue());
+		assertEquals(2, facets.getCuisines().get(0).getCount());
+		assertEquals("Kerala", facets.getCuisines().get(1).getValue());
+		assertEquals(1, facets.getCuisines().get(1).getCount());
+		assertEquals(2, facets.getCuisines().size());
+		assertEquals(1, facets.getLocations().size());
+		assertEquals("mg road", facets.getLocations().get(0).getValue());
+		assertEquals(2, facets.getLocations().get(0).getCount());
+		assertFacet("500", 0, facets.getBudgets().get(0));
+		assertFacet("1000", 1, facets.getBudgets().get(1));
+		assertFacet("4.5", 0, facets.getRatings().get(0));
+		assertFacet("4.0", 2, facets.getRatings().get(1));
+	}
+
+	@Test
+	public void facets_noFilters() {
+		restaurantIndexService.rebuild();
+		FacetsDto facets = restaurantIndexService.facets(new RestaurantSearchCriteria());
+		assertEquals(3, facets.getTotalElements());
+		assertEquals(3, facets.getCuisines().size());
+		assertEquals(3, facets.getLocations().size());
+		assertFacet("1000", 3, facets.getBudgets().get(1));
+		assertFacet("4.5", 2, facets.getRatings().get(0));
+	}
+
+	@Test
+	public void facets_everyFilter() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Rasa", "MG Road", "Kerala", 300, 4.7));
+		FacetsDto facets = restaurantIndexService.facets(new RestaurantSearchCriteria("mg road", "kerala", 500, 4.5));
+		assertEquals(1, facets.getTotalElements());
+		assertEquals(1, facets.getCuisines().size());
+		assertEquals("Kerala", facets.getCuisines().get(0).getValue());
+		assertEquals(1, facets.getLocations().size());
+		assertFacet("500", 1, facets.getBudgets().get(0));
+		assertFacet("1000", 1, facets.getBudgets().get(1));
+		assertFacet("4.5", 1, facets.getRatings().get(0));
+	}
+
+	@Test(expected = IndexNotReadyException.class)
+	public void facets_notReady() {
+		restaurantIndexService.facets(new RestaurantSearchCriteria());
+	}
+
+	private static void assertFacet(String value, long count, FacetCountDto facet) {
+		assertEquals(value, facet.getValue());
+		assertEquals(count, facet.getCount());
+	}
+
+	@Test(expected = IndexNotReadyException.class)
+	public void nearby_notReady() {
+		restaurantIndexService.nearby(12.9716, 77.5946, Double.POSITIVE_INFINITY, 10, new RestaurantSearchCriteria());
+	}
+
+	@Test
+	public void nearby() {
+		restaurantIndexService.rebuild();
+		List<NearbyRestaurantDto> nearby = restaurantIndexService.nearby(12.9716, 77.5946, Double.POSITIVE_INFINITY, 10, new RestaurantSearchCriteria());
+		assertEquals(2, nearby.size());
+		assertEquals("Aura", nearby.get(0).getRestaurant().getName());
+		assertEquals(1.2, nearby.get(0).getDistanceKm(), 0.1);
+		assertEquals("Dominos", nearby.get(1).getRestaurant().getName());
+		nearby = restaurantIndexService.nearby(12.9716, 77.5946, Double.POSITIVE_INFINITY, 10, new RestaurantSearchCriteria(null, null, null, 4.5));
+		assertEquals(1, nearby.size());
+		assertEquals("Dominos", nearby.get(0).getRestaurant().getName());
+		assertTrue(restaurantIndexService.nearby(12.9716, 77.5946, 1, 10, new RestaurantSearchCriteria()).isEmpty());
+	}
+
+	@Test(expected = IndexNotReadyException.class)
+	public void searchText_notReady() {
+		restaurantIndexService.searchText("curry", 10);
+	}
+
+	@Test
+	public void searchText() {
+		restaurantIndexService.rebuild();
+		restaurantIndexService.index(restaurant(4L, "Curry House", "mg road", "indian", 300, 4.7));
+		restaurantIndexService.indexItem(null, "Paneer tikka", "Grilled cottage cheese", 3L);
+		List<ScoredRestaurantDto> results = restaurantIndexService.searchText("curry", 10);
+		assertEquals(2, results.size());
+		assertEquals("Curry House", results.get(0).getRestaurant().getName());
+		assertEquals("Aura", results.get(1).getRestaurant().getName());
+		assertTrue(results.get(0).getScore() > results.get(1).getScore());
+
+		results = restaurantIndexService.searchText("Indian cheese", 10);
+		assertEquals("Re", results.get(0).getRestaurant().getName());
+		assertEquals(1, restaurantIndexService.searchText("spicy kidney beans", 1).size());
+		assertTrue(restaurantIndexService.searchText("sushi", 10).isEmpty());
+	}
+
+}
@@ -2,11 +2,17 @@ package com.eatza.restaurantsearch.service;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static  org.mockito.ArgumentMatchers.any;
 import static  org.mockito.ArgumentMatchers.anyDouble;
 import static  org.mockito.ArgumentMatchers.anyInt;
 import static  org.mockito.ArgumentMatchers.anyLong;
+import static  org.mockito.ArgumentMatchers.eq;
+import static  org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.ArrayList;
@@ -20,18 +26,30 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.test.context.junit4.SpringRunner;
 
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.cache.NegativeCache;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.RestaurantDetailDto;
 import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
 import com.eatza.restaurantsearch.dto.RestaurantResponseDto;
+import com.eatza.restaurantsearch.dto.RestaurantSearchCriteria;
+import com.eatza.restaurantsearch.dto.TotalsMode;
+import com.eatza.restaurantsearch.exception.RestaurantBadRequestException;
 import com.eatza.restaurantsearch.exception.RestaurantNotFoundException;
 import com.eatza.restaurantsearch.model.Menu;
 import com.eatza.restaurantsearch.model.MenuItem;
 import com.eatza.restaurantsearch.model.Restaurant;
 import com.eatza.restaurantsearch.repository.RestaurantRepository;
+import com.eatza.restaurantsearch.repository.RestaurantRepository.RankedRestaurant;
 import com.eatza.restaurantsearch.service.menuitemservice.MenuItemService;
 import com.eatza.restaurantsearch.service.menuservice.MenuService;
+import com.eatza.restaurantsearch.service.restaurantcountservice.RestaurantCountService;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
 import com.eatza.restaurantsearch.service.restaurantservice.RestaurantServiceImpl;
 
 @RunWith(SpringRunner.class)
@@ -50,6 +68,18 @@ public class RestaurantServiceTest {
 	@Mock
 	MenuItemService menuItemService;
 
+	@Mock
+	RestaurantIndexService restaurantIndexService;
+
+	@Mock
+	RestaurantCountService restaurantCountService;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Mock
+	NegativeCache negativeCache;
+
 
 	@Test
 	public void saveRestaurant() {
@@ -73,6 +103,7 @@ public class RestaurantServiceTest {
 		assertEquals("Dominos",persistedRestaurant.getName());
 		assertEquals(400,persistedRestaurant.getBudget());
 		assertEquals("Italian",persistedRestaurant.getCuisine());
+		verify(catalogVersion).bump();
 		assertEquals("RR Nagar",persistedRestaurant.getLocation());
 
 	}
@@ -111,6 +142,18 @@ public class RestaurantServiceTest {
 
 
 	}
+
+	@Test
+	public void findByName_index() {
+		Page<Restaurant> page = new PageImpl<>(Arrays
+				.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)), PageRequest.of(0, 10), 1);
+		when(restaurantIndexService.isReady()).thenReturn(true);
+		when(restaurantIndexService.findByNameContaining(any(String.class),any(Pageable.class))).thenReturn(page);
+		RestaurantResponseDto dto = restaurantService.findByName("dom", 1, 10);
+		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
+		assertEquals(Long.valueOf(1), dto.getTotalElements());
+		verify(restaurantRepository, never()).findByNameContaining(any(String.class),any(Pageable.class));
+	}
 	
 	
 	@Test
@@ -123,14 +166,33 @@ public class RestaurantServiceTest {
 						, new Restaurant("RR Vatika", "RR Nagar", "North Indian", 200, 4.1)));
 		when(page.getTotalPages()).thenReturn(2);
 		when(page.getTotalElements()).thenReturn(10L);
-		when(restaurantRepository.findByLocationContainingAndCuisineContaining(any(String.class),any(String.class),any(Pageable.class))).thenReturn(page);
-		when(restaurantRepository.findByLocationContainingOrCuisineContaining(any(String.class),any(String.class),any(Pageable.class))).thenReturn(page);
+		when(restaurantRepository.findRankedByLocationOrCuisine(any(String.class),any(String.class),any(Pageable.class))).thenReturn(page);
 		RestaurantResponseDto dto = restaurantService.findByLocationAndCuisine("RR Nagar", "Italian", pageNumber, pageSize);
 		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
 
 
 	}
 
+	@Test
+	public void findByLocationAndCuisineFuzzy() {
+		Page<Restaurant> page = new PageImpl<>(Arrays
+				.asList(new Restaurant("Aura", "mg road", "italian", 967, 4.1)), PageRequest.of(0, 10), 1);
+		when(restaurantIndexService.isReady()).thenReturn(true);
+		when(restaurantIndexService.findByLocationAndCuisineFuzzy(any(String.class),any(String.class),any(Pageable.class))).thenReturn(page);
+		RestaurantResponseDto dto = restaurantService.findByLocationAndCuisineFuzzy("mg rd", "italain", 1, 10);
+		assertEquals("Aura", dto.getRestaurants().get(0).getName());
+	}
+
+	@Test
+	public void findByNameFuzzy_indexNotReady() {
+		Page<Restaurant> page = new PageImpl<>(Arrays
+				.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)), PageRequest.of(0, 10), 1);
+		when(restaurantRepository.findByNameContaining(any(String.class),any(Pageable.class))).thenReturn(page);
+		RestaurantResponseDto dto = restaurantService.findByNameFuzzy("Dominos", 1, 10);
+		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
+		verify(restaurantIndexService, never()).findByNameFuzzy(any(String.class),any(Pageable.class));
+	}
+
 	@Test
 	public void findByLocationAndName() {
 		int pageNumber=1;
@@ -141,8 +203,7 @@ public class RestaurantServiceTest {
 						, new Restaurant("RR Vatika", "RR Nagar", "North Indian", 200, 4.1)));
 		when(page.getTotalPages()).thenReturn(2);
 		when(page.getTotalElements()).thenReturn(10L);
-		when(restaurantRepository.findByLocationContainingAndNameContaining(any(String.class),any(String.class),any(Pageable.class))).thenReturn(page);
-		when(restaurantRepository.findByLocationContainingAndNameContaining(any(String.class),any(String.class),any(Pageable.class))).thenReturn(page);
+		when(restaurantRepository.findRankedByLocationOrName(any(String.class),any(String.class),any(Pageable.class))).thenReturn(page);
 		RestaurantResponseDto dto = restaurantService.findByLocationAndName("RR Nagar", "Dominos", pageNumber, pageSize);
 		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
 
@@ -165,7 +226,7 @@ public class RestaurantServiceTest {
 		dtoExpected.setRestaurants(Arrays
 				.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)
 						, new Restaurant("RR Vatika", "RR Nagar", "North Indian", 200, 4.1)));
-		dtoExpected.setTotalElements(1);
+		dtoExpected.setTotalElements(1L);
 		dtoExpected.setTotalPages(1);
 		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
 
@@ -187,6 +248,160 @@ public class RestaurantServiceTest {
 		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
 	}
 	
+	@Test
+	public void findByBudget_index() {
+		Page<Restaurant> page = mock(Page.class);
+		when(page.getContent()).thenReturn(Arrays
+				.asList(new Restaurant("RR Vatika", "RR Nagar", "North Indian", 200, 4.1)));
+		when(page.getTotalPages()).thenReturn(1);
+		when(page.getTotalElements()).thenReturn(1L);
+		when(restaurantIndexService.isReady()).thenReturn(true);
+		when(restaurantIndexService.findByBudgetAtMost(anyInt(),any(Pageable.class))).thenReturn(page);
+		RestaurantResponseDto dto = restaurantService.findByBudget(300, 1, 10);
+		assertEquals("RR Vatika", dto.getRestaurants().get(0).getName());
+		verify(restaurantRepository, never()).findByBudgetLessThanEqual(anyInt(),any(Pageable.class));
+	}
+	
+	@Test
+	public void findByRating_index() {
+		Page<Restaurant> page = mock(Page.class);
+		when(page.getContent()).thenReturn(Arrays
+				.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)));
+		when(page.getTotalPages()).thenReturn(1);
+		when(page.getTotalElements()).thenReturn(1L);
+		when(restaurantIndexService.isReady()).thenReturn(true);
+		when(restaurantIndexService.findByRatingAtLeast(anyDouble(),any(Pageable.class))).thenReturn(page);
+		RestaurantResponseDto dto = restaurantService.findByRating(4.2, 1, 10);
+		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
+		verify(restaurantRepository, never()).findByRatingGreaterThanEqual(anyDouble(),any(Pageable.class));
+	}
+	
+	@Test
+	public void search() {
+		Page<Restaurant> page = mock(Page.class);
+		when(page.getContent()).thenReturn(Arrays
+				.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)));
+		when(page.getTotalPages()).thenReturn(1);
+		when(page.getTotalElements()).thenReturn(1L);
+		when(restaurantRepository.search(any(), any(), any(), any(), any(Pageable.class))).thenReturn(page);
+		RestaurantResponseDto dto = restaurantService.search(new RestaurantSearchCriteria("RR Nagar", "Italian", 500, null), 1, 10);
+		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
+		verify(restaurantRepository).search(eq("RR Nagar"), eq("Italian"), eq(500), isNull(), any(Pageable.class));
+	}
+	
+	@Test
+	public void search_index() {
+		Page<Restaurant> page = mock(Page.class);
+		when(page.getContent()).thenReturn(Arrays
+				.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)));
+		when(page.getTotalPages()).thenReturn(1);
+		when(page.getTotalElements()).thenReturn(1L);
+		when(restaurantIndexService.isReady()).thenReturn(true);
+		when(restaurantIndexService.search(any(RestaurantSearchCriteria.class), any(Pageable.class))).thenReturn(page);
+		RestaurantResponseDto dto = restaurantService.search(new RestaurantSearchCriteria("RR Nagar", "Italian", 500, 4.0), 1, 10);
+		assertEquals(Long.valueOf(1), dto.getTotalElements());
+		verify(restaurantRepository, never()).search(any(), any(), any(), any(), any(Pageable.class));
+	}
+	
+	@Test
+	public void findByBudgetAfter() {
+		Restaurant cheap = new Restaurant("RR Vatika", "RR Nagar", "North Indian", 200, 4.1);
+		cheap.setId(7L);
+		when(restaurantRepository.findByBudgetAtMostAfter(anyInt(), anyInt(), anyLong(), any(Pageable.class)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(cheap), PageRequest.of(0, 1), true));
+		RestaurantResponseDto dto = restaurantService.findByBudgetAfter(400, "", 1);
+		assertEquals("RR Vatika", dto.getRestaurants().get(0).getName());
+		assertNull(dto.getTotalElements());
+		verify(restaurantRepository).findByBudgetAtMostAfter(eq(400), eq(Integer.MIN_VALUE), eq(0L), any(Pageable.class));
+
+		restaurantService.findByBudgetAfter(400, dto.getNextCursor(), 1);
+		verify(restaurantRepository).findByBudgetAtMostAfter(eq(400), eq(200), eq(7L), any(Pageable.class));
+	}
+	
+	@Test
+	public void findByRatingAfter_lastPage() {
+		Restaurant best = new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2);
+		best.setId(3L);
+		when(restaurantRepository.findByRatingAtLeastAfter(anyDouble(), anyDouble(), anyLong(), any(Pageable.class)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(best), PageRequest.of(0, 10), false));
+		RestaurantResponseDto dto = restaurantService.findByRatingAfter(4, null, 10);
+		assertEquals(1, dto.getRestaurants().size());
+		assertNull(dto.getNextCursor());
+	}
+	
+	@Test
+	public void findByLocationAndCuisineAfter() {
+		Restaurant both = new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2);
+		both.setId(5L);
+		when(restaurantRepository.findRankedByLocationOrCuisineAfter(any(String.class), any(String.class), anyInt(), anyLong(), any(Pageable.class)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(ranked(both, 0)), PageRequest.of(0, 1), true));
+		RestaurantResponseDto dto = restaurantService.findByLocationAndCuisineAfter("RR", "Italian", "", 1);
+		restaurantService.findByLocationAndCuisineAfter("RR", "Italian", dto.getNextCursor(), 1);
+		verify(restaurantRepository).findRankedByLocationOrCuisineAfter(eq("RR"), eq("Italian"), eq(0), eq(5L), any(Pageable.class));
+	}
+
+	@Test
+	public void findByLocationAndNameAfter_rankFromQuery() {
+		// A case-insensitive collation matches "rr" in "RR Nagar", and the name column may be null
+		Restaurant both = new Restaurant(null, "RR Nagar", "Italian", 400, 4.2);
+		both.setId(7L);
+		when(restaurantRepository.findRankedByLocationOrNameAfter(any(String.class), any(String.class), anyInt(), anyLong(), any(Pageable.class)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(ranked(both, 0)), PageRequest.of(0, 1), true));
+		RestaurantResponseDto dto = restaurantService.findByLocationAndNameAfter("rr", "dom", "", 1);
+		assertEquals(1, dto.getRestaurants().size());
+		restaurantService.findByLocationAndNameAfter("rr", "dom", dto.getNextCursor(), 1);
+		verify(restaurantRepository).findRankedByLocationOrNameAfter(eq("rr"), eq("dom"), eq(0), eq(7L), any(Pageable.class));
+	}
+
+	static RankedRestaurant ranked(Restaurant restaurant, int rank) {
+		return new RankedRestaurant() {
+			public Restaurant getRestaurant() {
+				return restaurant;
+			}
+			public Integer getRank() {
+				return rank;
+			}
+		};
+	}
+	
+	@Test
+	public void findByName_totalsNone() {
+		when(restaurantRepository.findByNameContainingAfter(any(String.class), anyLong(), any(Pageable.class)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)), PageRequest.of(0, 1), true));
+		RestaurantResponseDto dto = restaurantService.findByName("Dom", 1, 1, TotalsMode.NONE);
+		assertEquals("Dominos", dto.getRestaurants().get(0).getName());
+		assertTrue(dto.getHasNext());
+		assertNull(dto.getTotalElements());
+		verify(restaurantRepository, never()).countByNameContaining(any(String.class));
+		verify(restaurantCountService, never()).approximateCount(any(String.class), any());
+	}
+
+	@Test
+	public void findByLocationAndCuisine_totalsApproximate() {
+		when(restaurantRepository.findRankedByLocationOrCuisineAfter(any(String.class), any(String.class), anyInt(), anyLong(), any(Pageable.class)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(ranked(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2), 0)), PageRequest.of(1, 1), true));
+		when(restaurantCountService.approximateCount(eq("location:RR/cuisine:Italian"), any())).thenReturn(7L);
+		RestaurantResponseDto dto = restaurantService.findByLocationAndCuisine("RR", "Italian", 2, 1, TotalsMode.APPROXIMATE);
+		assertEquals(Long.valueOf(7), dto.getTotalElements());
+		assertEquals(Integer.valueOf(7), dto.getTotalPages());
+		verify(restaurantRepository).findRankedByLocationOrCuisineAfter(eq("RR"), eq("Italian"), eq(-1), eq(0L), eq(PageRequest.of(1, 1)));
+	}
+
+	@Test
+	public void findByBudget_totalsApproximate_staleCountBelowPage() {
+		when(restaurantRepository.findByBudgetAtMostAfter(anyInt(), anyInt(), anyLong(), any(Pageable.class)))
+			.thenReturn(new SliceImpl<>(Arrays.asList(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)), PageRequest.of(2, 1), true));
+		when(restaurantCountService.approximateCount(any(String.class), any())).thenReturn(1L);
+		RestaurantResponseDto dto = restaurantService.findByBudget(400, 3, 1, TotalsMode.APPROXIMATE);
+		assertEquals(Long.valueOf(4), dto.getTotalElements());
+		assertTrue(dto.getHasNext());
+	}
+
+	@Test(expected = RestaurantBadRequestException.class)
+	public void findAllRestaurantsAfter_invalidCursor() {
+		restaurantService.findAllRestaurantsAfter("not-a-cursor", 10);
+	}
+	
 	@Test
 	public void findById() {
 		when(restaurantRepository.findById(anyLong()))
@@ -202,36 +417,82 @@ public class RestaurantServiceTest {
 		when(restaurantRepository.findById(anyLong()))
 			.thenReturn(Optional.empty());
 		
-		Restaurant rest = restaurantService.findById(1L);
+		try {
+			restaurantService.findById(1L);
+		} finally {
+			verify(negativeCache).recordMiss("restaurantbyid", 1L);
+		}
+	}
+
+	@Test(expected = RestaurantNotFoundException.class)
+	public void findById_knownMiss() {
+		when(negativeCache.isKnownMiss("restaurantbyid", 1L)).thenReturn(true);
+		try {
+			restaurantService.findById(1L);
+		} finally {
+			verify(restaurantRepository, never()).findById(anyLong());
+		}
 	}
 	
 	
 	@Test
 	public void findMenuItemByRestaurantId_basic() {
-		List<MenuItem> menuItems = Arrays.asList(
-				new MenuItem("Dosa", "Dosa", 50, new Menu("Active", "Till", new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2))));
-		Page<MenuItem> page = new PageImpl<>(menuItems);
+		List<MenuItemDto> menuItems = Arrays.asList(new MenuItemDto(1L, "Dosa", "Dosa", 50));
+		Page<MenuItemDto> page = new PageImpl<>(menuItems);
 		
-		when(menuService.getMenuByRestaurantId(anyLong()))
-			.thenReturn(new Menu("From", "Till", new Restaurant("RR Vatika", "RR Nagar", "North Indian", 200, 4.1)));
-		when(menuItemService.findByMenuId(any(),any())).thenReturn(page);
+		when(menuItemService.findDtosByRestaurantId(any(),any())).thenReturn(page);
 		
 		
-		List<MenuItem> menuItems2 = restaurantService.findMenuItemByRestaurantId(1L, 1, 10);
+		List<MenuItemDto> menuItems2 = restaurantService.findMenuItemByRestaurantId(1L, 1, 10);
 		assertEquals("Dosa", menuItems2.get(0).getName());
+		verify(menuService, never()).getMenuByRestaurantId(anyLong());
+		
+	}
+	@Test
+	public void findDetailById() {
+		Restaurant restaurant = new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2);
+		MenuItem item = new MenuItem("Dosa", "Plain", 50, new Menu("From", "Till", restaurant));
+		item.setId(3L);
+		when(menuItemService.findWithMenuByRestaurantId(anyLong(), any(Pageable.class))).thenReturn(Arrays.asList(item));
 		
+		RestaurantDetailDto detail = restaurantService.findDetailById(1L, 1, 10);
+		assertEquals("Dominos", detail.getRestaurant().getName());
+		assertEquals("From", detail.getActiveFrom());
+		assertEquals("Dosa", detail.getItems().get(0).getName());
+		verify(menuItemService).findWithMenuByRestaurantId(1L, PageRequest.of(0, 10));
+		verify(menuService, never()).getMenuByRestaurantId(anyLong());
+		verify(restaurantRepository, never()).findById(anyLong());
 	}
+	
+	@Test
+	public void findDetailById_noMenu() {
+		when(menuItemService.findWithMenuByRestaurantId(anyLong(), any(Pageable.class))).thenReturn(new ArrayList<>());
+		when(restaurantRepository.findById(anyLong()))
+			.thenReturn(Optional.of(new Restaurant("Re", "kormangala", "indian", 968, 4.9)));
+		
+		RestaurantDetailDto detail = restaurantService.findDetailById(3L, 1, 10);
+		assertEquals("Re", detail.getRestaurant().getName());
+		assertNull(detail.getActiveFrom());
+		assertTrue(detail.getItems().isEmpty());
+	}
+	
+	@Test(expected=RestaurantNotFoundException.class)
+	public void findDetailById_notFound() {
+		when(menuItemService.findWithMenuByRestaurantId(anyLong(), any(Pageable.class))).thenReturn(new ArrayList<>());
+		when(restaurantRepository.findById(anyLong())).thenReturn(Optional.empty());
+		
+		restaurantService.findDetailById(9L, 1, 10);
+	}
+	
 	@Test(expected=RestaurantNotFoundException.class)
 	public void findMenuItemByRestaurantId_expection() {
-		List<MenuItem> menuItems = new ArrayList<>();;
-		Page<MenuItem> page = new PageImpl<>(menuItems);
+		List<MenuItemDto> menuItems = new ArrayList<>();;
+		Page<MenuItemDto> page = new PageImpl<>(menuItems);
 		
-		when(menuService.getMenuByRestaurantId(anyLong()))
-			.thenReturn(new Menu("From", "Till", new Restaurant("RR Vatika", "RR Nagar", "North Indian", 200, 4.1)));
-		when(menuItemService.findByMenuId(any(),any())).thenReturn(page);
+		when(menuItemService.findDtosByRestaurantId(any(),any())).thenReturn(page);
 		
 		
-		List<MenuItem> menuItems2 = restaurantService.findMenuItemByRestaurantId(1L, 1, 10);
+		List<MenuItemDto> menuItems2 = restaurantService.findMenuItemByRestaurantId(1L, 1, 10);
 		assertEquals("Dosa", menuItems2.get(0).getName());
 		
 	}
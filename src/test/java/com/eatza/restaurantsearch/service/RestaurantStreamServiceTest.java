@@ -0,0 +1,75 @@
+package com.eatza.restaurantsearch.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.repository.RestaurantRepository;
+import com.eatza.restaurantsearch.service.restaurantstreamservice.RestaurantStreamServiceImpl;
+
+@RunWith(SpringRunner.class)
+public class RestaurantStreamServiceTest {
+
+	@InjectMocks
+	RestaurantStreamServiceImpl restaurantStreamService;
+
+	@Mock
+	RestaurantRepository restaurantRepository;
+
+	@Mock
+	EntityManager entityManager;
+
+	@Test
+	public void streamAll_detachesAndCloses() {
+		Restaurant dominos = new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2);
+		Restaurant aura = new Restaurant("Aura", "MG Road", "Indian", 300, 4.0);
+		AtomicBoolean closed = new AtomicBoolean();
+		when(restaurantRepository.streamAll()).thenReturn(Stream.of(dominos, aura).onClose(() -> closed.set(true)));
+		List<Restaurant> written = new ArrayList<>();
+
+		long count = restaurantStreamService.streamAll(written::add);
+
+		assertEquals(2, count);
+		assertEquals(2, written.size());
+		assertEquals("Aura", written.get(1).getName());
+		verify(entityManager).detach(dominos);
+		verify(entityManager).detach(aura);
+		assertTrue(closed.get());
+	}
+
+	@Test
+	public void streamByBudget_closedOnFailure() {
+		AtomicBoolean closed = new AtomicBoolean();
+		when(restaurantRepository.streamByBudgetAtMost(500))
+				.thenReturn(Stream.of(new Restaurant("Dominos", "RR Nagar", "Italian", 400, 4.2)).onClose(() -> closed.set(true)));
+		try {
+			restaurantStreamService.streamByBudget(500, restaurant -> {
+				throw new IllegalStateException("client went away");
+			});
+			fail();
+		} catch (IllegalStateException e) {
+			assertEquals("client went away", e.getMessage());
+		}
+		assertTrue(closed.get());
+		verify(entityManager, times(0)).detach(any());
+	}
+
+}
@@ -0,0 +1,274 @@
+package com.eatza.restaurantsearch.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.eatza.restaurantsearch.cache.CatalogVersion;
+import com.eatza.restaurantsearch.dto.ItemRequestDto;
+import com.eatza.restaurantsearch.dto.MenuItemDto;
+import com.eatza.restaurantsearch.dto.RestaurantRequestDto;
+import com.eatza.restaurantsearch.dto.WriteState;
+import com.eatza.restaurantsearch.dto.WriteStatusDto;
+import com.eatza.restaurantsearch.exception.WriteQueueFullException;
+import com.eatza.restaurantsearch.model.MenuItem;
+import com.eatza.restaurantsearch.model.Restaurant;
+import com.eatza.restaurantsearch.repository.MenuRepository;
+import com.eatza.restaurantsearch.repository.MenuRepository.MenuRestaurantView;
+import com.eatza.restaurantsearch.service.restaurantindexservice.RestaurantIndexService;
+import com.eatza.restaurantsearch.service.writebehindservice.WriteBehindServiceImpl;
+
+@RunWith(SpringRunner.class)
+public class WriteBehindServiceTest {
+
+	@InjectMocks
+	WriteBehindServiceImpl writeBehindService;
+
+	@Mock
+	EntityManager entityManager;
+
+	@Mock
+	PlatformTransactionManager transactionManager;
+
+	@Mock
+	MenuRepository menuRepository;
+
+	@Mock
+	RestaurantIndexService restaurantIndexService;
+
+	@Mock
+	CatalogVersion catalogVersion;
+
+	@Captor
+	ArgumentCaptor<List<Restaurant>> restaurantBatches;
+
+	@Captor
+	ArgumentCaptor<List<MenuItemDto>> itemBatches;
+
+	CountDownLatch writing;
+	CountDownLatch release;
+
+	@Before
+	public void setup() {
+		ReflectionTestUtils.setField(writeBehindService, "cacheManager", new ConcurrentMapCacheManager());
+		ReflectionTestUtils.setField(writeBehindService, "queueCapacity", 2);
+		ReflectionTestUtils.setField(writeBehindService, "batchSize", 10);
+		ReflectionTestUtils.setField(writeBehindService, "offerTimeoutMillis", 10L);
+		ReflectionTestUtils.setField(writeBehindService, "shutdownTimeoutMillis", 5000L);
+		MenuRestaurantView menu = mock(MenuRestaurantView.class);
+		when(menu.getId()).thenReturn(1L);
+		when(menu.getRestaurantId()).thenReturn(10L);
+		when(menuRepository.findRestaurantIdsByIdIn(anyCollection())).thenReturn(Collections.singletonList(menu));
+		doAnswer(invocation -> {
+			Object entity = invocation.getArgument(0);
+			if (entity instanceof Restaurant) {
+				if ("Slow".equals(((Restaurant) entity).getName())) {
+					writing.countDown();
+					release.await(5, TimeUnit.SECONDS);
+				}
+				((Restaurant) entity).setId(1000L);
+			} else if (entity instanceof MenuItem) {
+				if ("Bad".equals(((MenuItem) entity).getName())) {
+					throw new PersistenceException("constraint violated");
+				}
+				((MenuItem) entity).setId(2000L);
+			}
+			return null;
+		}).when(entityManager).persist(any());
+		writing = new CountDownLatch(1);
+		release = new CountDownLatch(1);
+		writeBehindService.start();
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		writeBehindService.shutdown();
+	}
+
+	@Test
+	public void queuedWritesSaved() {
+		WriteStatusDto restaurant = writeBehindService.submitRestaurant(restaurant("Dominos"));
+		WriteStatusDto item = writeBehindService.submitMenuItem(item(1L, "Dosa"));
+		assertEquals(WriteState.QUEUED, restaurant.getState());
+		writeBehindService.shutdown();
+
+		assertStatus(restaurant.getId(), WriteState.SAVED, 1000L);
+		assertStatus(item.getId(), WriteState.SAVED, 2000L);
+		assertEquals(Arrays.asList("Dominos"), indexedRestaurants());
+		assertEquals(Arrays.asList("Dosa@10"), indexedItems());
+	}
+
+	@Test
+	public void unknownMenuFails() {
+		WriteStatusDto item = writeBehindService.submitMenuItem(item(9L, "Dosa"));
+		writeBehindService.shutdown();
+
+		WriteStatusDto status = writeBehindService.getStatus(item.getId()).get();
+		assertEquals(WriteState.FAILED, status.getState());
+		assertEquals("Menu 9 not found", status.getMessage());
+		verify(transactionManager, times(0)).commit(any());
+	}
+
+	@Test
+	public void fullQueueRefused() throws Exception {
+		writeBehindService.submitRestaurant(restaurant("Slow"));
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		WriteStatusDto first = writeBehindService.submitMenuItem(item(1L, "Dosa"));
+		WriteStatusDto second = writeBehindService.submitMenuItem(item(1L, "Idli"));
+		try {
+			writeBehindService.submitMenuItem(item(1L, "Vada"));
+			fail();
+		} catch (WriteQueueFullException e) {
+			assertEquals("Too many pending writes, retry later", e.getMessage());
+		}
+		release.countDown();
+		writeBehindService.shutdown();
+
+		assertStatus(first.getId(), WriteState.SAVED, 2000L);
+		assertStatus(second.getId(), WriteState.SAVED, 2000L);
+		assertEquals(Arrays.asList("Dosa@10", "Idli@10"), indexedItems());
+	}
+
+	@Test
+	public void badWriteIsolatedFromBatch() throws Exception {
+		writeBehindService.submitRestaurant(restaurant("Slow"));
+		assertTrue(writing.await(5, TimeUnit.SECONDS));
+		WriteStatusDto good = writeBehindService.submitMenuItem(item(1L, "Dosa"));
+		WriteStatusDto bad = writeBehindService.submitMenuItem(item(1L, "Bad"));
+		release.countDown();
+		writeBehindService.shutdown();
+
+		assertStatus(good.getId(), WriteState.SAVED, 2000L);
+		assertStatus(bad.getId(), WriteState.FAILED, null);
+		assertEquals(Arrays.asList("Dosa@10"), indexedItems());
+	}
+
+	@Test
+	public void refusedAfterShutdown() {
+		writeBehindService.shutdown();
+		try {
+			writeBehindService.submitRestaurant(restaurant("Dominos"));
+			fail();
+		} catch (WriteQueueFullException e) {
+			assertEquals("Writes are not accepted while the service shuts down", e.getMessage());
+		}
+	}
+
+	@Test
+	public void indexFailureKeepsWriteSaved() {
+		doThrow(new IllegalStateException("index down")).when(restaurantIndexService).indexAll(anyList());
+		WriteStatusDto restaurant = writeBehindService.submitRestaurant(restaurant("Dominos"));
+		WriteStatusDto item = writeBehindService.submitMenuItem(item(1L, "Dosa"));
+		writeBehindService.shutdown();
+
+		assertStatus(restaurant.getId(), WriteState.SAVED, 1000L);
+		assertStatus(item.getId(), WriteState.SAVED, 2000L);
+		assertEquals(Arrays.asList("Dosa@10"), indexedItems());
+		verify(catalogVersion, atLeastOnce()).bump();
+	}
+
+	@Test
+	public void refusedWhenWriterExitsDuringOffer() {
+		writeBehindService.shutdown();
+		// Stands in for a submit that passed the running check just before shutdown and offers after the writer exited
+		ReflectionTestUtils.setField(writeBehindService, "running", true);
+		ReflectionTestUtils.setField(writeBehindService, "queue", new ArrayBlockingQueue<Object>(2) {
+
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			public boolean offer(Object write, long timeout, TimeUnit unit) throws InterruptedException {
+				ReflectionTestUtils.setField(writeBehindService, "running", false);
+				return super.offer(write, timeout, unit);
+			}
+
+		});
+		try {
+			writeBehindService.submitRestaurant(restaurant("Dominos"));
+			fail();
+		} catch (WriteQueueFullException e) {
+			assertEquals("Writes are not accepted while the service shuts down", e.getMessage());
+		}
+		assertTrue(((BlockingQueue<?>) ReflectionTestUtils.getField(writeBehindService, "queue")).isEmpty());
+	}
+
+	private List<String> indexedRestaurants() {
+		verify(restaurantIndexService, atLeast(0)).indexAll(restaurantBatches.capture());
+		List<String> names = new ArrayList<>();
+		for (List<Restaurant> batch : restaurantBatches.getAllValues()) {
+			for (Restaurant restaurant : batch) {
+				names.add(restaurant.getName());
+			}
+		}
+		return names;
+	}
+
+	private List<String> indexedItems() {
+		verify(restaurantIndexService, atLeast(0)).indexItems(itemBatches.capture());
+		List<String> names = new ArrayList<>();
+		for (List<MenuItemDto> batch : itemBatches.getAllValues()) {
+			for (MenuItemDto item : batch) {
+				names.add(item.getName() + "@" + item.getRestaurantId());
+			}
+		}
+		return names;
+	}
+
+	private void assertStatus(String id, WriteState state, Long entityId) {
+		WriteStatusDto status = writeBehindService.getStatus(id).get();
+		assertEquals(state, status.getState());
+		assertEquals(entityId, status.getEntityId());
+	}
+
+	private static RestaurantRequestDto restaurant(String name) {
+		RestaurantRequestDto restaurant = new RestaurantRequestDto();
+		restaurant.setName(name);
+		restaurant.setLocation("mg road");
+		return restaurant;
+	}
+
+	private static ItemRequestDto item(Long menuId, String name) {
+		ItemRequestDto item = new ItemRequestDto();
+		item.setMenuId(menuId);
+		item.setName(name);
+		return item;
+	}
+
+}
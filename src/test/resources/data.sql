@@ -1,3 +1,3 @@
-INSERT INTO restaurants(budget,cuisine,location,name,rating) VALUES(966,'Soprole','rr nagar','Dominos',4.5);
-INSERT INTO restaurants(budget,cuisine,location,name,rating) VALUES(967,'italian','mg road','Aura',4.1);
-INSERT INTO restaurants(budget,cuisine,location,name,rating) VALUES(968,'indian','kormangala','Re',4.9);
\ No newline at end of file
+INSERT INTO restaurants(id,budget,cuisine,location,name,rating,latitude,longitude) VALUES(1,966,'Soprole','rr nagar','Dominos',4.5,12.9255,77.5468);
+INSERT INTO restaurants(id,budget,cuisine,location,name,rating,latitude,longitude) VALUES(2,967,'italian','mg road','Aura',4.1,12.9756,77.605);
+INSERT INTO restaurants(id,budget,cuisine,location,name,rating,latitude,longitude) VALUES(3,968,'indian','kormangala','Re',4.9,12.9352,77.6245);
\ No newline at end of file